@@ -39,7 +39,6 @@ import android.widget.Toast;
 
 import java.io.File;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.List;
 
 import edu.mit.haystack.mahalirelayapp.MahaliData;
@@ -47,8 +46,13 @@ import edu.mit.haystack.mahalirelayapp.MahaliRelayApp;
 import edu.mit.haystack.mahalirelayapp.R;
 import edu.mit.haystack.mahalirelayapp.computation.dataselection.DataSelectionActivity;
 import edu.mit.haystack.mahalirelayapp.rinex.GPSObservation;
+import edu.mit.haystack.mahalirelayapp.rinex.GPSObservationCodec;
+import edu.mit.haystack.mahalirelayapp.rinex.ObservationStore;
 import edu.mit.haystack.mahalirelayapp.rinex.RinexObservationParser;
 import edu.mit.haystack.mcheetah.DataProcessFragment;
+import edu.mit.haystack.mcheetah.parsing.DataListFactory;
+import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.parsing.ParserFactory;
 import edu.mit.haystack.mcheetah.parsing.PointSkipSelectionDialogFragment;
 import edu.mit.haystack.mcheetah.visualization.Renderer;
 
@@ -60,6 +64,11 @@ import edu.mit.haystack.mcheetah.visualization.Renderer;
 public class MahaliDataViewActivity extends AppCompatActivity implements DataProcessFragment.ActivityEndRequestedListener,
         DataProcessFragment.DisplayPointDensityListener, Renderer.BadDataListener {
 
+    /**
+     * Parsed observation files are cached here, under the app's cache directory
+     */
+    private static final String PARSED_CACHE_DIRECTORY = "parsed_observations";
+
     private DataProcessFragment<GPSObservation> datafragment;
     private TECRenderer renderer;
     private TECComputer computer;
@@ -95,7 +104,12 @@ public class MahaliDataViewActivity extends AppCompatActivity implements DataPro
             TECRenderer renderer = new TECRenderer(this);
 
             datafragment = new DataProcessFragment<GPSObservation>();
-            datafragment.setParserClass(RinexObservationParser.class);
+            datafragment.setParserFactory(new ParserFactory<GPSObservation>() {
+                @Override
+                public Parser<GPSObservation> newParser() {
+                    return new RinexObservationParser();
+                }
+            });
 
             TECComputer computer = new TECComputer();
 
@@ -115,8 +129,21 @@ public class MahaliDataViewActivity extends AppCompatActivity implements DataPro
             computer.setIonexFile(ioenxFile);
 
             datafragment.setComputer(computer);
-            ArrayList<GPSObservation> myData = new ArrayList<>();
+            // TECComputer recomputes TEC from scratch, so parsed observations can be reused - changing
+            // the density only parses new epochs, and opening the same files again reads the cache
+            datafragment.setParsedDataCache(new File(getCacheDir(), PARSED_CACHE_DIRECTORY),
+                    new GPSObservationCodec());
+            // Observations are kept as arrays of fields rather than an object each - a day of 1 Hz
+            // data is around a million of them. Parsed and cached observations are kept in stores
+            // too, so the parser writes straight into their arrays and merging them is a copy
+            ObservationStore myData = new ObservationStore();
             datafragment.setDataObject(myData);
+            datafragment.setDataListFactory(new DataListFactory<GPSObservation>() {
+                @Override
+                public List<GPSObservation> newList(int capacity) {
+                    return new ObservationStore(capacity);
+                }
+            });
             datafragment.setRenderer(renderer);
             getSupportFragmentManager().beginTransaction().replace(R.id.tec_plot_root, datafragment, "TECPlot").commit();
         } else {
@@ -185,11 +212,19 @@ public class MahaliDataViewActivity extends AppCompatActivity implements DataPro
                 @Override
                 public void run() {
                     int size = mahaliData.size();
-                    GPSObservation o;
-                    for (int i = size-1; i >= 0; i--) {
-                        o = mahaliData.get(i);
-                        o.slantTEC = o.slantTEC - newBias + originalBias;
-                        TECComputer.applyMappingFunction(o);
+                    if (mahaliData instanceof ObservationStore) {
+                        ObservationStore store = (ObservationStore) mahaliData;
+                        for (int i = size-1; i >= 0; i--) {
+                            store.slantTEC[i] = store.slantTEC[i] - newBias + originalBias;
+                            TECComputer.applyMappingFunction(store, i);
+                        }
+                    } else {
+                        GPSObservation o;
+                        for (int i = size-1; i >= 0; i--) {
+                            o = mahaliData.get(i);
+                            o.slantTEC = o.slantTEC - newBias + originalBias;
+                            TECComputer.applyMappingFunction(o);
+                        }
                     }
 
                     runOnUiThread(new Runnable() {
@@ -32,7 +32,6 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.text.DecimalFormat;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -41,6 +40,8 @@ import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
 import edu.mit.haystack.mahalirelayapp.rinex.GPSObservation;
+import edu.mit.haystack.mahalirelayapp.rinex.GpsTime;
+import edu.mit.haystack.mahalirelayapp.rinex.ObservationStore;
 import edu.mit.haystack.mcheetah.visualization.Glyphs;
 import edu.mit.haystack.mcheetah.visualization.Renderer;
 
@@ -67,8 +68,18 @@ public class TECRenderer extends Renderer<GPSObservation> {
     private DecimalFormat format;
     private long startTime;
 
+    /**
+     * When plotting an ObservationStore, the row each point came from so update() can find it
+     */
+    private int[] plotRows;
+
     @Override
     public void addData(List<GPSObservation> observations) {
+        if (observations instanceof ObservationStore) {
+            addData((ObservationStore) observations);
+            return;
+        }
+
         // This is much faster than using an iterator
         GPSObservation o;
         int cutoff = (int) (Integer.MAX_VALUE*0.8);
@@ -91,7 +102,9 @@ public class TECRenderer extends Renderer<GPSObservation> {
         Comparator<GPSObservation> timeOrder = new Comparator<GPSObservation>() {
             @Override
             public int compare(GPSObservation o1, GPSObservation o2) {
-                return o1.time.compareTo(o2.time);
+                long t1 = o1.time.getTime();
+                long t2 = o2.time.getTime();
+                return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
             }
         };
 
@@ -104,12 +117,10 @@ public class TECRenderer extends Renderer<GPSObservation> {
             return;
         }
 
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(observations.get(0).time.getTime());
-        cal.set(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DAY_OF_MONTH), 0, 0, 0);
-        startTime = cal.getTimeInMillis();
+        // Times are plotted from midnight on the first day
+        startTime = GpsTime.getStartOfDay(observations.get(0).time.getTime());
         for (int i = 0; i < observations.size(); i++) {
-            dataPoints.put((float) (observations.get(i).time.getTime() - cal.getTimeInMillis()));
+            dataPoints.put((float) (observations.get(i).time.getTime() - startTime));
 
             if (plotVertical) {
                 dataPoints.put((float) (observations.get(i).verticalTEC));
@@ -122,11 +133,61 @@ public class TECRenderer extends Renderer<GPSObservation> {
         setPlotBounds();
     }
 
+    /**
+     * Same as addData(List) but reads the store's fields directly instead of making an object
+     * for every observation
+     *
+     * The store is the engine's data, so bad TEC is skipped and points are put in time order
+     * through plotRows rather than by changing the store
+     *
+     * @param store observations with TEC computed
+     */
+    private void addData(ObservationStore store) {
+        plotRows = store.rowsByTime((int) (Integer.MAX_VALUE*0.8));
+
+        numPoints = plotRows.length;
+
+        if (numPoints == 0) {
+            badDataListener.badData();
+        }
+
+        // Each point is 2 floats, each of which is 4 bytes
+        dataPoints = ByteBuffer.allocateDirect(4 * 2 * numPoints).order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+        format = new DecimalFormat();
+        format.setMinimumFractionDigits(2);
+        format.setMaximumFractionDigits(2);
+
+        if (numPoints == 0) {
+            return;
+        }
+
+        long[] times = store.timeMillis;
+        double[] tec = plotVertical ? store.verticalTEC : store.slantTEC;
+
+        startTime = GpsTime.getStartOfDay(times[plotRows[0]]);
+        for (int i = 0; i < numPoints; i++) {
+            dataPoints.put((float) (times[plotRows[i]] - startTime));
+            dataPoints.put((float) tec[plotRows[i]]);
+        }
+        dataPoints.rewind();
+
+        setPlotBounds();
+    }
+
     @Override
     public void update(List<GPSObservation> observations) {
-        for (int i = 0; i < observations.size(); i++) {
-            dataPoints.put(2*i+1, plotVertical ? (float) observations.get(i).verticalTEC :
-                                                    (float) observations.get(i).slantTEC);
+        if (observations instanceof ObservationStore) {
+            ObservationStore store = (ObservationStore) observations;
+            double[] tec = plotVertical ? store.verticalTEC : store.slantTEC;
+            for (int i = 0; i < numPoints; i++) {
+                dataPoints.put(2*i+1, (float) tec[plotRows[i]]);
+            }
+        } else {
+            for (int i = 0; i < observations.size(); i++) {
+                dataPoints.put(2*i+1, plotVertical ? (float) observations.get(i).verticalTEC :
+                                                        (float) observations.get(i).slantTEC);
+            }
         }
         dataPoints.rewind();
         setPlotBounds();
@@ -254,10 +315,9 @@ public class TECRenderer extends Renderer<GPSObservation> {
         String str;
         for (int i = 0; i <= xAxisTicks; i++) {
             point = ((xMax-xMin) / xAxisTicks*i + xMin - translateX) / zoom;
-            Calendar cal = Calendar.getInstance();
-            cal.setTimeInMillis((long) point + startTime);
-            str = cal.get(Calendar.HOUR_OF_DAY) + ":" + (cal.get(Calendar.MINUTE) < 10 ? "0" : "") +
-                    cal.get(Calendar.MINUTE)  + ":" + cal.get(Calendar.SECOND);
+            long time = (long) point + startTime;
+            str = GpsTime.getHour(time) + ":" + (GpsTime.getMinute(time) < 10 ? "0" : "") +
+                    GpsTime.getMinute(time)  + ":" + GpsTime.getSecond(time);
             glyphs.drawText(gl, str, 3*xSpacing/4+xStep*i - glyphs.getStringLength(str, Glyphs.SUBTEXT_MODE)/2,
                     ySpacing/2 - glyphs.getHeight(Glyphs.SUBTEXT_MODE), Glyphs.SUBTEXT_MODE);
         }
@@ -56,6 +56,8 @@ import edu.mit.haystack.mahalirelayapp.computation.MahaliDataViewActivity;
 import edu.mit.haystack.mahalirelayapp.heatmap.HeatmapActivity;
 import edu.mit.haystack.mahalirelayapp.position.PositionDialogFragment;
 import edu.mit.haystack.mcheetah.DataProcessFragment;
+import edu.mit.haystack.mcheetah.autotune.Autotuner;
+import edu.mit.haystack.mcheetah.parsing.RecordBudget;
 import edu.mit.haystack.mcheetah.utils.ZipUtils;
 
 /**
@@ -67,6 +69,16 @@ import edu.mit.haystack.mcheetah.utils.ZipUtils;
  */
 public class DataSelectionActivity extends AppCompatActivity{
 
+    /**
+     * Rough memory taken by one parsed GPSObservation, including its place in a list
+     */
+    private static final int OBSERVATION_BYTES = 96;
+
+    /**
+     * Parsed observations waiting on computation may take up to 1/this of the heap
+     */
+    private static final int IN_FLIGHT_HEAP_FRACTION = 16;
+
     private DataAdapter dataFileAdapter;
     private ArrayList<DataEntry> dataFileNames;
     private ListView fileList;
@@ -204,6 +216,10 @@ public class DataSelectionActivity extends AppCompatActivity{
                         extras.putInt(DataProcessFragment.DATA_DENSITY_KEY, 1);
                         extras.putInt(DataProcessFragment.PARSER_THREAD_KEY, 4);
                         extras.putString(DataProcessFragment.SHARED_PREFERENCES_KEY, "MahaliPrefs");
+                        extras.putBoolean(DataProcessFragment.ONLINE_TUNING_KEY, true);
+                        // Keep observations waiting on computation to a small slice of the heap
+                        extras.putInt(DataProcessFragment.RECORD_BUDGET_KEY, RecordBudget.recordsFor(
+                                Autotuner.maxStackSize()/IN_FLIGHT_HEAP_FRACTION, OBSERVATION_BYTES));
 
                         Intent intent = new Intent(getApplicationContext(), MahaliDataViewActivity.class);
                         intent.putExtras(extras);
@@ -38,16 +38,26 @@ import android.widget.LinearLayout;
 import android.widget.Toast;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
+import edu.mit.haystack.mcheetah.autotune.Autotuner;
+import edu.mit.haystack.mcheetah.autotune.DensityPlan;
+import edu.mit.haystack.mcheetah.autotune.DensityPlanner;
+import edu.mit.haystack.mcheetah.autotune.SharedPreferencesProfileStore;
+import edu.mit.haystack.mcheetah.autotune.TuningConfiguration;
+import edu.mit.haystack.mcheetah.autotune.TuningProfileStore;
 import edu.mit.haystack.mahalirelayapp.R;
+import edu.mit.haystack.mcheetah.metrics.CsvMetricsSink;
+import edu.mit.haystack.mcheetah.metrics.LogcatMetricsSink;
+import edu.mit.haystack.mcheetah.metrics.Metrics;
+import edu.mit.haystack.mcheetah.metrics.Tracer;
+import edu.mit.haystack.mcheetah.parsing.DataListFactory;
 import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.parsing.ParserFactory;
 import edu.mit.haystack.mcheetah.parsing.PointSkipSelectionDialogFragment;
+import edu.mit.haystack.mcheetah.parsing.RecordCodec;
 import edu.mit.haystack.mcheetah.visualization.DataView;
 import edu.mit.haystack.mcheetah.visualization.OutlierRemovalSelectionDialogFragment;
 import edu.mit.haystack.mcheetah.visualization.Renderer;
@@ -58,6 +68,10 @@ import edu.mit.haystack.mcheetah.visualization.Renderer;
  * This is where the magic happens
  * This class combines the Parser, Computer, and Renderer for processing and displaying scientific data
  *
+ * Parsing and computation are run by a DataProcessEngine, which has no Android dependencies and can
+ * be used on its own outside of an app. This fragment adds the Android pieces on top: reading the
+ * settings from the Intent, showing errors, and displaying the plot
+ *
  * To use, set the parser, computer, and renderer to your implementations, then the DataProcessFragment
  * to a blank activity. Pass data to this and parsing, computation, and rendering will be handled automatically
  * on a background thread.
@@ -90,6 +104,61 @@ public class DataProcessFragment<D> extends Fragment implements
      */
     public static final String SHARED_PREFERENCES_KEY = "shared_prefs";
 
+    /**
+     * Constant name for the Bundle key containing a boolean, true to run the Autotuner the first time
+     * data of this size is processed on this device
+     *
+     * The result is saved in the SharedPreferences and used instead of PARSER_THREAD_KEY from then on
+     */
+    public static final String AUTOTUNE_KEY = "autotune";
+
+    /**
+     * Constant name for the Bundle key containing a boolean, true to adjust the number of parser and
+     * compute threads while the data is processed instead of benchmarking beforehand
+     *
+     * The thread counts reached are saved in the SharedPreferences so the next run starts from them
+     */
+    public static final String ONLINE_TUNING_KEY = "online_tuning";
+
+    /**
+     * Constant name for the Bundle key containing a long, the number of milliseconds processing should
+     * take at most
+     *
+     * If set, the user isn't asked for a data density. The finest density predicted to finish in time
+     * is picked from a quick sample of the data, and the user is told how much data was skipped
+     */
+    public static final String TIME_BUDGET_KEY = "time_budget";
+
+    /**
+     * Constant name for the Bundle key containing an int, the most parsed records that can be waiting
+     * on computation at once
+     *
+     * If set, parsing slows down to match computation instead of holding more data than this. Use on
+     * devices with little memory, see DataProcessEngine.setRecordBudget
+     */
+    public static final String RECORD_BUDGET_KEY = "record_budget";
+
+    /**
+     * Constant name for the Bundle key containing a boolean, true to write timings and other metrics
+     * for each stage to logcat
+     */
+    public static final String METRICS_LOG_KEY = "metrics_log";
+
+    /**
+     * Constant name for the Bundle key containing a String, the path of a CSV file to append timings
+     * and other metrics for each stage to
+     */
+    public static final String METRICS_CSV_KEY = "metrics_csv";
+
+    /**
+     * Constant name for the Bundle key containing a String, the path of a directory to write a trace
+     * of each run to
+     *
+     * Each trace shows what every thread was doing from parsing to building the plot, and opens in
+     * chrome://tracing or Perfetto
+     */
+    public static final String TRACE_DIRECTORY_KEY = "trace_directory";
+
     /**
      * The name of the SharedPreferences object so this can read stored data
      */
@@ -106,20 +175,41 @@ public class DataProcessFragment<D> extends Fragment implements
     private SharedPreferences.Editor prefsEditor;
 
     /**
-     * Parser object class
-     *
-     * Must be set in setParserClass(Parser)
-     *
-     * A Class object is passed because we create the actual parsers in the parse method with a threadpool
+     * Tuning results saved in the SharedPreferences
+     */
+    private TuningProfileStore profileStore;
+
+    /**
+     * Whether to tune if there's no saved tuning result for the data files
+     */
+    private boolean autotune;
+
+    /**
+     * How long processing should take in milliseconds, 0 if the user picks the data density
+     */
+    private long timeBudgetMillis;
+
+    /**
+     * Writes metrics to a CSV file if METRICS_CSV_KEY was given, closed when this is destroyed
+     */
+    private CsvMetricsSink csvMetrics;
+
+    /**
+     * Where traces are written, null if runs aren't traced
+     */
+    private File traceDirectory;
+
+    /**
+     * The trace of the run in progress, null if there isn't one
      */
-    private Class parserClass;
+    private volatile Tracer runTracer;
 
     /**
-     * Compute object
+     * Runs parsing and computation and holds the parser, computer, and data object
      *
-     * Must be set in setComputer(Computer)
+     * The parser, computer, and data object must be set before this fragment is added
      */
-    private Computer<D> computer;
+    private final DataProcessEngine<D> engine = new DataProcessEngine<D>();
 
     /**
      * Renderer object
@@ -128,11 +218,6 @@ public class DataProcessFragment<D> extends Fragment implements
      */
     private Renderer<D> renderer;
 
-    /**
-     * The data object that will be processed
-     */
-    private List<D> dataObject;
-
     /**
      * Holds the view that will house the plot
      */
@@ -154,11 +239,6 @@ public class DataProcessFragment<D> extends Fragment implements
      */
     private boolean restarting;
 
-    /**
-     * ThreadPool for parsing data files
-     */
-    private ExecutorService parserPool;
-
     /**
      * Whether the computation and plot display is finished
      */
@@ -176,13 +256,88 @@ public class DataProcessFragment<D> extends Fragment implements
         (new Thread(new Runnable() {
             @Override
             public void run() {
-                parse();
-                compute();
-                plot();
+                applyTuningProfile();
+                processAndPlot();
+            }
+        })).start();
+    }
+
+    /**
+     * Pick the data density that fits in the time budget, then compute and plot that data
+     */
+    private void processWithinBudget() {
+        (new Thread(new Runnable() {
+            @Override
+            public void run() {
+                applyTuningProfile();
+
+                DensityPlanner<D> planner = new DensityPlanner<D>();
+                planner.setParallelism(engine.getParserThreads());
+                try {
+                    DensityPlan plan = planner.plan(dataFiles, engine.getParserFactory(), engine.getComputer(),
+                            timeBudgetMillis);
+                    dataDensity = plan.getDensity();
+                    showMessage(describePlan(plan));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    dataDensity = 1;
+                }
+
+                processAndPlot();
             }
         })).start();
     }
 
+    /**
+     * Parse and compute the data, then show the plot
+     *
+     * Must be run on a background thread
+     */
+    private void processAndPlot() {
+        if (traceDirectory != null) {
+            runTracer = Tracer.start();
+        }
+
+        // Start over if a different density was picked, so the last run's data isn't kept
+        List<D> data = engine.getDataObject();
+        synchronized (data) {
+            data.clear();
+        }
+
+        engine.process(dataFiles, dataDensity);
+        if (engine.isOnlineTuning()) {
+            saveTuningProfile();
+        }
+        plot();
+    }
+
+    /**
+     * @param plan the chosen density
+     * @return a message telling the user how much data is skipped and how long it should take
+     */
+    private static String describePlan(DensityPlan plan) {
+        int density = plan.getDensity();
+        String message = "Using every ";
+        if (density == 2) {
+            message += "2nd ";
+        } else if (density == 3) {
+            message += "3rd ";
+        } else if (density > 1) {
+            message += density + "th ";
+        }
+        message += "point";
+
+        if (density > 1) {
+            message += " (" + Math.round(plan.getFractionDropped()*100) + "% skipped, error about " +
+                    String.format("%.1f", plan.getStandardErrorFactor()) + "x)";
+        }
+        message += ", about " + (plan.getPredictedMillis() + 500) / 1000 + " s";
+        if (!plan.fitsBudget()) {
+            message += " - can't finish within " + plan.getBudgetMillis() / 1000.0 + " s";
+        }
+        return message;
+    }
+
     /**
      * Clip the plot bounds to the user-provided min and max y value
      *
@@ -229,10 +384,6 @@ public class DataProcessFragment<D> extends Fragment implements
          
         finished = false;
 
-        // We should allow the user to select a data density when we start
-        // When this is clicked, computation begins
-        pointDensityListener.displayPointDensityDialog();
-
         Bundle extra = getActivity().getIntent().getExtras();
         dataDensity = extra.getInt(DATA_DENSITY_KEY);
         ArrayList<String> filePaths = extra.getStringArrayList(FILE_PATH_KEY);
@@ -257,8 +408,67 @@ public class DataProcessFragment<D> extends Fragment implements
 
         sharedPrefsName = extra.getString(SHARED_PREFERENCES_KEY);
         prefs = getActivity().getSharedPreferences(sharedPrefsName, Context.MODE_PRIVATE);
+        profileStore = new SharedPreferencesProfileStore(prefs);
+        autotune = extra.getBoolean(AUTOTUNE_KEY, false);
+        engine.setOnlineTuning(extra.getBoolean(ONLINE_TUNING_KEY, false));
+        engine.setRecordBudget(extra.getInt(RECORD_BUDGET_KEY, 0));
+        addMetricsSinks(extra);
+        String tracePath = extra.getString(TRACE_DIRECTORY_KEY);
+        traceDirectory = tracePath == null ? null : new File(tracePath);
+
+        engine.setParserThreads(extra.getInt(PARSER_THREAD_KEY));
+        engine.setErrorListener(new DataProcessEngine.ErrorListener() {
+            @Override
+            public void onParseError(File file, Exception e) {
+                // Parsers report problems like missing observation types in the exception message
+                String message = e.getMessage();
+                if (!(e instanceof IOException) || message == null) {
+                    message = "Error reading " + file.getName();
+                }
+                showMessage(message);
+            }
+        });
+
+        timeBudgetMillis = extra.getLong(TIME_BUDGET_KEY, 0);
+        if (timeBudgetMillis > 0) {
+            processWithinBudget();
+        } else {
+            // We should allow the user to select a data density when we start
+            // When this is clicked, computation begins
+            pointDensityListener.displayPointDensityDialog();
+        }
+    }
 
-        parserPool = Executors.newFixedThreadPool(extra.getInt(PARSER_THREAD_KEY));
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        engine.shutdown();
+        if (csvMetrics != null) {
+            engine.getMetrics().removeSink(csvMetrics);
+            csvMetrics.close();
+            csvMetrics = null;
+        }
+    }
+
+    /**
+     * Add the metrics sinks asked for in the extras
+     *
+     * @param extra the extras this was started with
+     */
+    private void addMetricsSinks(Bundle extra) {
+        if (extra.getBoolean(METRICS_LOG_KEY, false)) {
+            engine.getMetrics().addSink(new LogcatMetricsSink());
+        }
+
+        String csvPath = extra.getString(METRICS_CSV_KEY);
+        if (csvPath != null && csvMetrics == null) {
+            try {
+                csvMetrics = new CsvMetricsSink(new File(csvPath));
+                engine.getMetrics().addSink(csvMetrics);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     /**
@@ -292,9 +502,9 @@ public class DataProcessFragment<D> extends Fragment implements
         View view = inflater.inflate(R.layout.fragment_data_process, container, false);
 
         if (restarting) {
-            dataView = new DataView<D>(getActivity(), dataObject);
+            dataView = new DataView<D>(getActivity(), engine.getDataObject());
             dataView.setMyRenderer(renderer);
-            renderer.addData(dataObject);
+            renderer.addData(engine.getDataObject());
 
             if (view != null) {
                 LinearLayout plot = (LinearLayout) view.findViewById(R.id.data_plot);
@@ -311,11 +521,36 @@ public class DataProcessFragment<D> extends Fragment implements
     }
 
     /**
-     * Set the parsing class, which will be used in the parse() method to create Parsers for each file
+     * Set the parsing class, which will be used to create Parsers for each file
+     *
+     * The Parser is created with its Context constructor if it has one, otherwise with its no-argument
+     * constructor. Each parser thread creates one Parser and reuses it for every file, so reflection
+     * isn't done per file. Prefer setParserFactory to avoid reflection altogether
+     *
      * @param p the class of the Parser
      */
-    public void setParserClass(Class p) {
-        parserClass = p;
+    public void setParserClass(final Class p) {
+        engine.setParserFactory(new ParserFactory<D>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Parser<D> newParser() throws Exception {
+                // Use reflection here because we just have a Class object and need to cast it to a Parser<D>
+                try {
+                    return (Parser<D>) p.getDeclaredConstructor(Context.class).newInstance(getActivity());
+                } catch (NoSuchMethodException e) {
+                    return (Parser<D>) p.getDeclaredConstructor().newInstance();
+                }
+            }
+        });
+    }
+
+    /**
+     * Set the factory used to create Parsers for each file
+     *
+     * @param factory the parser factory
+     */
+    public void setParserFactory(ParserFactory<D> factory) {
+        engine.setParserFactory(factory);
     }
 
     /**
@@ -325,7 +560,7 @@ public class DataProcessFragment<D> extends Fragment implements
      * @param c the Computer object
      */
     public void setComputer(Computer<D> c) {
-        computer = c;
+        engine.setComputer(c);
     }
 
     /**
@@ -334,7 +569,7 @@ public class DataProcessFragment<D> extends Fragment implements
      * @return the Computer object
      */
     public Computer<D> getComputer() {
-        return computer;
+        return engine.getComputer();
     }
 
     /**
@@ -364,7 +599,7 @@ public class DataProcessFragment<D> extends Fragment implements
      * @param d the data object, a list of type D, data
      */
     public void setDataObject(List<D> d) {
-        dataObject = d;
+        engine.setDataObject(d);
     }
 
     /**
@@ -373,102 +608,154 @@ public class DataProcessFragment<D> extends Fragment implements
      * @return the list of data objects
      */
     public List<D> getDataObject() {
-        return dataObject;
+        return engine.getDataObject();
     }
 
-    public boolean isFinished() {
-        return finished;
+    /**
+     * Set how the lists parsed data is held in before it's merged into the data object are made,
+     * usually the same kind of list as the data object. See DataProcessEngine.setDataListFactory
+     *
+     * @param factory makes the lists
+     */
+    public void setDataListFactory(DataListFactory<D> factory) {
+        engine.setDataListFactory(factory);
     }
 
     /**
-     * Parses all given data files
+     * Keep parsed data in memory so picking a different data density doesn't parse every file again
+     *
+     * Only use this if the Computer doesn't change parsed values in place, or resets anything it
+     * stores in the data objects before computing. See DataProcessEngine.setReuseParsedData
+     *
+     * @param reuse true to keep parsed data between runs
      */
-    @SuppressWarnings("unchecked")
-    private void parse() {
-        // Get the number of data files
-        int size = dataFiles.length;
+    public void setReuseParsedData(boolean reuse) {
+        engine.setReuseParsedData(reuse);
+    }
 
-        // Create an array of Futures for however many data files are given, which will hold the results
-        // of parsing each file
-        Future[] futures = new Future[size];
+    /**
+     * Keep parsed data in memory and on disk, so opening the same files again later loads them from
+     * the cache instead of parsing them
+     *
+     * The same rules apply to the Computer as for setReuseParsedData
+     *
+     * @param directory where to keep cache files, somewhere under the app's storage
+     * @param codec writes and reads the data objects
+     */
+    public void setParsedDataCache(File directory, RecordCodec<D> codec) {
+        engine.setParsedDataCache(directory, codec);
+    }
 
-        // Create an array of booleans indicating whether each future has finished already
-        boolean[] finishedAlready = new boolean[size];
+    /**
+     * Get the engine that runs parsing and computation
+     *
+     * @return the DataProcessEngine
+     */
+    public DataProcessEngine<D> getEngine() {
+        return engine;
+    }
 
-        // Are we done with all the files?
-        boolean doneParsing = false;
+    public boolean isFinished() {
+        return finished;
+    }
 
-        // Loop through all the data files, add a Future to the array for each data files, and
-        // initialize the boolean array, since nothing has finished yet
-        for (int i = 0; i < size; i++) {
-            futures[i] = addFileToParse(dataFiles[i]);
-            finishedAlready[i] = false;
+    /**
+     * Show a message to the user, like an error
+     *
+     * Safe to call from any thread
+     *
+     * @param message the message to show
+     */
+    private void showMessage(final String message) {
+        final Activity activity = getActivity();
+        if (activity != null) {
+            activity.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    Toast.makeText(activity, message, Toast.LENGTH_SHORT).show();
+                }
+            });
         }
+    }
 
-        // Until all the files have been parsed
-        while (!doneParsing) {
-            doneParsing = true;
-
-            // Loop through all the files
-            for (int i = 0; i < size; i++) {
-                // If a Future is finished and wasn't before (it just finished parsing)
-                if (futures[i].isDone() && !finishedAlready[i]) {
-                    // it's finished now
-                    finishedAlready[i] = true;
-                    try {
-                        // This parser just finished, add all its data to dataObject
-                        dataObject.addAll((List<D>) futures[i].get());
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    // Hint to the system that this might be a good time to collect garbage to
-                    // clear any objects the parser might have created
-                    System.gc();
-                }
-                if (!futures[i].isDone()) {
-                    doneParsing = false;
-                }
+    /**
+     * Sets up the engine and computer with the saved tuning result for the data files
+     *
+     * If nothing has been saved and autotuning was requested, tunes first and saves the result. This
+     * processes the data files several times so it must be run on a background thread. Online tuning
+     * doesn't need this, it starts from the configured thread counts. The data density the user
+     * picked is always kept
+     */
+    @SuppressWarnings("unchecked")
+    private void applyTuningProfile() {
+        String key = Autotuner.getProfileKey(dataFiles);
+        TuningConfiguration profile = profileStore.load(key);
+        Computer<D> computer = engine.getComputer();
+
+        if (profile == null && autotune && !engine.isOnlineTuning() && computer instanceof TunableComputer) {
+            Autotuner<D> tuner = new Autotuner<D>();
+            int[] threads = getThreadCandidates();
+            tuner.setParserThreadCandidates(threads);
+            tuner.setComputeThreadCandidates(threads);
+            tuner.setDensityCandidates(dataDensity);
+            // The fewest timed runs that can show one configuration is significantly faster
+            tuner.setRepetitions(3);
+            profile = tuner.tune(dataFiles, engine.getParserFactory(), (TunableComputer<D>) computer,
+                    engine.getDataObject());
+
+            // Don't save a search that was cut short
+            if (Thread.currentThread().isInterrupted()) {
+                return;
             }
+            profileStore.save(key, profile);
+        }
 
-            try {
-                Thread.sleep(10);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        if (profile == null) {
+            return;
+        }
+
+        engine.setParserThreads(profile.parserThreads);
+        if (computer instanceof TunableComputer) {
+            ((TunableComputer<D>) computer).setComputeThreads(profile.computeThreads);
+            ((TunableComputer<D>) computer).setBatchSize(profile.batchSize);
         }
     }
 
     /**
-     * Add a data file for parsing and submit it to the parser pool to begin parsing
-     *
-     * @param f the file to parse
-     * @return a Future object which will return a list of data objects
+     * Saves the thread counts online tuning reached so the next run starts from them
      */
     @SuppressWarnings("unchecked")
-    private Future<List<D>> addFileToParse(final File f) {
-        return parserPool.submit(new Callable<List<D>>() {
-            @Override
-            public List<D> call() {
-                try {
-                    // Use reflection here because we just have a Class object and need to cast
-                    // it to a Parser<D>, which needs to be initialized with the application context
-                    Parser<D> parser = (Parser<D>) parserClass.getDeclaredConstructor(Context.class)
-                            .newInstance(getActivity());
+    private void saveTuningProfile() {
+        int computeThreads = 1;
+        int batchSize = 1;
+        Computer<D> computer = engine.getComputer();
+        if (computer instanceof TunableComputer) {
+            computeThreads = ((TunableComputer<D>) computer).getComputeThreads();
+            batchSize = ((TunableComputer<D>) computer).getBatchSize();
+        }
 
-                    return parser.parse(f, dataDensity);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    return null;
-                }
-            }
-        });
+        profileStore.save(Autotuner.getProfileKey(dataFiles),
+                new TuningConfiguration(engine.getParserThreads(), computeThreads, batchSize, dataDensity));
     }
 
     /**
-     * Performs the main computation
+     * Powers of two up to the number of cores, plus the number of cores
+     *
+     * Keeps the number of runs needed to tune on a phone small
      */
-    private void compute() {
-        computer.compute(dataObject);
+    private static int[] getThreadCandidates() {
+        int cores = Autotuner.getNumCores();
+        List<Integer> candidates = new ArrayList<Integer>();
+        for (int i = 1; i < cores; i *= 2) {
+            candidates.add(i);
+        }
+        candidates.add(cores);
+
+        int[] threads = new int[candidates.size()];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = candidates.get(i);
+        }
+        return threads;
     }
 
     /**
@@ -481,13 +768,28 @@ public class DataProcessFragment<D> extends Fragment implements
             getActivity().runOnUiThread(new Runnable() {
                 @Override
                 public void run() {
-                    dataView = new DataView<D>(getActivity(), dataObject);
+                    dataView = new DataView<D>(getActivity(), engine.getDataObject());
                     dataView.setMyRenderer(renderer);
-                    renderer.addData(dataObject);
+
+                    Metrics metrics = engine.getMetrics();
+                    long startAllocated = metrics.isEnabled() ? Metrics.allocatedBytes() : -1;
+                    long startTime = System.nanoTime();
+                    Tracer.beginSection("build render buffers");
+                    try {
+                        renderer.addData(engine.getDataObject());
+                    } finally {
+                        Tracer.endSection();
+                    }
+                    metrics.recordTime(Metrics.RENDER, null, System.nanoTime() - startTime,
+                            Metrics.allocatedSince(startAllocated));
+                    metrics.flush();
+                    finishTrace();
+
                     View thisView = getView();
                     if (thisView != null) {
                         LinearLayout plot = (LinearLayout) thisView.findViewById(R.id.data_plot);
                         if (plot != null) {
+                            plot.removeAllViews();
                             plot.addView(dataView);
                             finished = true;
                         }
@@ -497,6 +799,35 @@ public class DataProcessFragment<D> extends Fragment implements
                     }
                 }
             });
+        } else {
+            finishTrace();
+        }
+    }
+
+    /**
+     * Stop tracing this run, if it's being traced, and write the trace out on a background thread
+     */
+    private void finishTrace() {
+        final Tracer tracer = runTracer;
+        if (tracer == null) {
+            return;
         }
+        runTracer = null;
+        tracer.stop();
+
+        final File dir = traceDirectory;
+        final File traceFile = new File(dir, "trace-" + System.currentTimeMillis() + ".json");
+        (new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (dir.isDirectory() || dir.mkdirs()) {
+                        tracer.write(traceFile);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        })).start();
     }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package edu.mit.haystack.mcheetah.metrics;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import android.util.Log;
+
+/**
+ * @author David Mascharka
+ *
+ * Writes each metric to logcat as it's recorded
+ */
+public class LogcatMetricsSink implements MetricsSink {
+
+    public static final String DEFAULT_TAG = "MCheetahMetrics";
+
+    private final String tag;
+
+    public LogcatMetricsSink() {
+        this(DEFAULT_TAG);
+    }
+
+    /**
+     * @param tag the logcat tag to write under
+     */
+    public LogcatMetricsSink(String tag) {
+        this.tag = tag;
+    }
+
+    @Override
+    public void record(Metric metric) {
+        Log.i(tag, metric.toString());
+    }
+
+    @Override
+    public void flush() {
+    }
+}
\ No newline at end of file
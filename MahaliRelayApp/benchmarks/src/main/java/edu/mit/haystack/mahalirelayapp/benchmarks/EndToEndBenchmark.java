@@ -0,0 +1,456 @@
+package edu.mit.haystack.mahalirelayapp.benchmarks;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import edu.mit.haystack.mahalirelayapp.MahaliData;
+import edu.mit.haystack.mahalirelayapp.computation.TECComputer;
+import edu.mit.haystack.mahalirelayapp.rinex.GPSEphemeris;
+import edu.mit.haystack.mahalirelayapp.rinex.IonexParser;
+import edu.mit.haystack.mahalirelayapp.rinex.MahaliObservation;
+import edu.mit.haystack.mahalirelayapp.rinex.RinexNavigationParser;
+import edu.mit.haystack.mahalirelayapp.rinex.RinexObservationParser;
+import edu.mit.haystack.mcheetah.metrics.CsvMetricsSink;
+import edu.mit.haystack.mcheetah.metrics.Metrics;
+
+/**
+ * @author David Mascharka
+ *
+ * Times the whole RINEX to TEC pipeline on synthetic data of increasing length
+ *
+ * For every duration SyntheticRinex writes an observation, navigation and IONEX file. Then the
+ * navigation parser, the IONEX parser, the observation parser and
+ * TECComputer.calculateEverythingAndConvert run over them, in the order the app runs them, and the
+ * wall time, peak heap and records per second of each stage are reported
+ *
+ * The time per record should stay about the same as the input gets longer. After the table a
+ * scaling exponent is printed for every stage between neighbouring durations - 1 is linear, and
+ * anything well above 1 is flagged as superlinear
+ *
+ * Runs on any desktop JVM, no device or receiver data needed:
+ *
+ *   ./gradlew :benchmarks:benchmark -Pbenchmark.args="--hours 1,24,72 --interval 1"
+ *
+ * Peak heap is the sum of the peaks of the heap memory pools while a stage ran, after a GC before
+ * it started. It includes whatever earlier stages left behind, like the app would have
+ */
+public class EndToEndBenchmark {
+
+    public static final String PARSE_NAVIGATION = "parse_navigation";
+    public static final String PARSE_IONEX = "parse_ionex";
+    public static final String PARSE_OBSERVATION = "parse_observation";
+    public static final String COMPUTE = Metrics.COMPUTE;
+
+    private static final String[] STAGES = {PARSE_NAVIGATION, PARSE_IONEX, PARSE_OBSERVATION, COMPUTE};
+
+    /**
+     * Metric name for the peak heap in bytes, written next to the Metrics names in the CSV
+     */
+    public static final String PEAK_HEAP_BYTES = "peak_heap_bytes";
+
+    private static final String USAGE =
+            "Usage: EndToEndBenchmark [options]\n" +
+            "  --hours <list>       comma separated input durations in hours (default 1,6,24,48,72)\n" +
+            "  --interval <s>       seconds between epochs (default 10)\n" +
+            "  --satellites <n>     satellites in the constellation, 1-32 (default 32)\n" +
+            "  --repeat <n>         measured runs per duration, the median time is reported (default 3)\n" +
+            "  --warmup <n>         unmeasured runs on the first duration (default 1)\n" +
+            "  --threads <n>        vertical TEC conversion threads (default: available processors)\n" +
+            "  --batch <n>          observations per conversion task (default " +
+            TECComputer.DEFAULT_BATCH_SIZE + ")\n" +
+            "  --tolerance <x>      flag scaling exponents above 1 + x (default 0.2)\n" +
+            "  --dir <directory>    keep the generated files here and reuse them on later runs\n" +
+            "  --csv <file>         append the results to a CSV file in the metrics format\n";
+
+    /**
+     * Measurements of one stage at one duration
+     */
+    private static class StageResult {
+        final String stage;
+        final long[] nanos;
+        long records;
+        long bytes;
+        long peakHeap;
+
+        StageResult(String stage, int repeats) {
+            this.stage = stage;
+            nanos = new long[repeats];
+        }
+
+        long getMedianNanos() {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+
+        double getRecordsPerSecond() {
+            return records / (Math.max(1, getMedianNanos()) / 1e9);
+        }
+    }
+
+    /**
+     * The generated files for one duration
+     */
+    private static class Input {
+        double hours;
+        File observation;
+        File navigation;
+        File ionex;
+        int satellites;
+    }
+
+    private double[] hours = {1, 6, 24, 48, 72};
+    private int interval = 10;
+    private int satellites = SyntheticRinex.MAX_SATELLITES;
+    private int repeat = 3;
+    private int warmup = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = TECComputer.DEFAULT_BATCH_SIZE;
+    private double tolerance = 0.2;
+    private File directory;
+    private File csvFile;
+
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+
+    public static void main(String[] args) {
+        EndToEndBenchmark benchmark = new EndToEndBenchmark();
+        try {
+            benchmark.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+
+        try {
+            benchmark.run();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                System.out.print(USAGE);
+                System.exit(0);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+
+            String value = args[++i];
+            try {
+                if (option.equals("--hours")) {
+                    String[] items = value.split(",");
+                    hours = new double[items.length];
+                    for (int j = 0; j < items.length; j++) {
+                        hours[j] = Double.parseDouble(items[j].trim());
+                    }
+                    Arrays.sort(hours);
+                } else if (option.equals("--interval")) {
+                    interval = Integer.parseInt(value);
+                } else if (option.equals("--satellites")) {
+                    satellites = Integer.parseInt(value);
+                } else if (option.equals("--repeat")) {
+                    repeat = Math.max(1, Integer.parseInt(value));
+                } else if (option.equals("--warmup")) {
+                    warmup = Math.max(0, Integer.parseInt(value));
+                } else if (option.equals("--threads")) {
+                    threads = Math.max(1, Integer.parseInt(value));
+                } else if (option.equals("--batch")) {
+                    batchSize = Math.max(1, Integer.parseInt(value));
+                } else if (option.equals("--tolerance")) {
+                    tolerance = Double.parseDouble(value);
+                } else if (option.equals("--dir")) {
+                    directory = new File(value);
+                } else if (option.equals("--csv")) {
+                    csvFile = new File(value);
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad value for " + option + ": " + value);
+            }
+        }
+    }
+
+    private void run() throws IOException {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+
+        boolean temporary = directory == null;
+        File dir = temporary ? Files.createTempDirectory("rinex-benchmark").toFile() : directory;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Couldn't create " + dir);
+        }
+
+        System.out.println(String.format(Locale.US,
+                "RINEX to TEC benchmark: %ds interval, %d satellites, %d runs, %d threads, batches of %d, max heap %d MB",
+                interval, satellites, repeat, threads, batchSize, Runtime.getRuntime().maxMemory() >> 20));
+        System.out.println(String.format(Locale.US, "%7s  %-18s %10s %9s %11s %13s %10s %12s",
+                "hours", "stage", "records", "input MB", "median ms", "records/s", "ns/record", "peak heap MB"));
+
+        List<StageResult[]> results = new ArrayList<StageResult[]>();
+        try {
+            for (int d = 0; d < hours.length; d++) {
+                Input input = generate(dir, hours[d]);
+
+                if (d == 0) {
+                    StageResult[] ignored = newResults(1);
+                    for (int i = 0; i < warmup; i++) {
+                        runPipeline(input, ignored, 0);
+                    }
+                }
+
+                StageResult[] stages = newResults(repeat);
+                for (int i = 0; i < repeat; i++) {
+                    runPipeline(input, stages, i);
+                }
+                results.add(stages);
+                printResults(hours[d], stages);
+
+                if (temporary) {
+                    delete(input.observation);
+                    delete(input.navigation);
+                    delete(input.ionex);
+                }
+            }
+        } finally {
+            if (temporary) {
+                delete(dir);
+            }
+        }
+
+        printScaling(results);
+
+        if (csvFile != null) {
+            writeCsv(results);
+        }
+    }
+
+    /**
+     * Writes the input files for a duration, or reuses them if an earlier run left them in the
+     * directory. The files only depend on the settings so they're safe to reuse
+     */
+    private Input generate(File dir, double duration) throws IOException {
+        String name = String.format(Locale.US, "synthetic-%sh-%ds-%d", formatHours(duration), interval, satellites);
+
+        Input input = new Input();
+        input.hours = duration;
+        input.satellites = satellites;
+        input.observation = new File(dir, name + ".15o");
+        input.navigation = new File(dir, name + ".15n");
+        input.ionex = new File(dir, name + ".15i");
+
+        if (input.observation.isFile() && input.navigation.isFile() && input.ionex.isFile()) {
+            return input;
+        }
+
+        long start = System.nanoTime();
+        SyntheticRinex rinex = new SyntheticRinex(duration, interval, satellites);
+        rinex.writeNavigationFile(input.navigation);
+        rinex.writeIonexFile(input.ionex);
+        long observations = rinex.writeObservationFile(input.observation);
+        System.out.println(String.format(Locale.US, "# generated %sh: %d epochs, %d observations, %.1f MB in %.1f s",
+                formatHours(duration), rinex.getEpochCount(), observations,
+                input.observation.length() / 1048576.0, (System.nanoTime() - start) / 1e9));
+
+        return input;
+    }
+
+    private static StageResult[] newResults(int repeats) {
+        StageResult[] stages = new StageResult[STAGES.length];
+        for (int i = 0; i < STAGES.length; i++) {
+            stages[i] = new StageResult(STAGES[i], repeats);
+        }
+        return stages;
+    }
+
+    /**
+     * Runs every stage once, keeping what each stage makes around for the ones after it
+     *
+     * @param run which of the repeats this is
+     */
+    private void runPipeline(Input input, StageResult[] stages, int run) throws IOException {
+        long start;
+
+        // Ephemerides
+        startStage();
+        start = System.nanoTime();
+        List<GPSEphemeris> ephemerides = new RinexNavigationParser().parse(input.navigation, 1);
+        finishStage(stages[0], run, System.nanoTime() - start, ephemerides.size(), input.navigation.length());
+
+        // Satellite biases
+        startStage();
+        start = System.nanoTime();
+        IonexParser ionex = new IonexParser();
+        ionex.parse(input.ionex);
+        finishStage(stages[1], run, System.nanoTime() - start, input.satellites, input.ionex.length());
+
+        // Observations, parsed straight into the store TEC is computed on
+        startStage();
+        start = System.nanoTime();
+        MahaliObservation mahaliObservation = new MahaliObservation();
+        new RinexObservationParser().parse(input.observation, 1, mahaliObservation.observations);
+        int records = mahaliObservation.observations.size();
+        finishStage(stages[2], run, System.nanoTime() - start, records, input.observation.length());
+
+        // TEC
+        mahaliObservation.receiverX = MahaliData.mahaliX;
+        mahaliObservation.receiverY = MahaliData.mahaliY;
+        mahaliObservation.receiverZ = MahaliData.mahaliZ;
+
+        startStage();
+        start = System.nanoTime();
+        TECComputer.calculateEverythingAndConvert(mahaliObservation, ephemerides, ionex, batchSize, threads);
+        finishStage(stages[3], run, System.nanoTime() - start, records, input.observation.length());
+    }
+
+    /**
+     * Clears out garbage from earlier stages and starts a new peak heap measurement
+     */
+    private void startStage() {
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private void finishStage(StageResult result, int run, long nanos, long records, long bytes) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+
+        result.nanos[run] = nanos;
+        result.records = records;
+        result.bytes = bytes;
+        result.peakHeap = Math.max(result.peakHeap, peak);
+    }
+
+    private static void printResults(double duration, StageResult[] stages) {
+        for (StageResult result : stages) {
+            System.out.println(String.format(Locale.US, "%7s  %-18s %10d %9.2f %11.1f %13.0f %10.0f %12.1f",
+                    formatHours(duration), result.stage, result.records, result.bytes / 1048576.0,
+                    result.getMedianNanos() / 1e6, result.getRecordsPerSecond(),
+                    result.getMedianNanos() / (double) Math.max(1, result.records), result.peakHeap / 1048576.0));
+        }
+    }
+
+    /**
+     * Prints how time grows with records for every stage. For each pair of neighbouring durations
+     * this is log(time ratio) / log(records ratio), so 1 means the time per record didn't change
+     */
+    private void printScaling(List<StageResult[]> results) {
+        if (results.size() < 2) {
+            return;
+        }
+
+        System.out.println();
+        System.out.println("Scaling exponents (1 is linear)");
+        for (int s = 0; s < STAGES.length; s++) {
+            StringBuilder line = new StringBuilder(String.format(Locale.US, "  %-18s", STAGES[s]));
+            boolean superlinear = false;
+
+            for (int d = 1; d < results.size(); d++) {
+                StageResult before = results.get(d-1)[s];
+                StageResult after = results.get(d)[s];
+                line.append(String.format(Locale.US, "  %sh->%sh ", formatHours(hours[d-1]), formatHours(hours[d])));
+
+                if (after.records <= before.records) {
+                    // Nothing to scale against, like the IONEX file which doesn't get bigger
+                    line.append("   -");
+                    continue;
+                }
+
+                double exponent = Math.log(Math.max(1, after.getMedianNanos()) / (double) Math.max(1, before.getMedianNanos())) /
+                        Math.log(after.records / (double) before.records);
+                line.append(String.format(Locale.US, "%4.2f", exponent));
+                superlinear |= exponent > 1 + tolerance;
+            }
+
+            if (superlinear) {
+                line.append("  SUPERLINEAR");
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Appends every measurement to the CSV file, labelled with the duration, so runs on different
+     * commits can be compared
+     */
+    private void writeCsv(List<StageResult[]> results) throws IOException {
+        CsvMetricsSink sink = new CsvMetricsSink(csvFile);
+        Metrics metrics = new Metrics();
+        metrics.addSink(sink);
+
+        try {
+            for (int d = 0; d < results.size(); d++) {
+                String label = formatHours(hours[d]) + "h";
+                for (StageResult result : results.get(d)) {
+                    metrics.record(result.stage, Metrics.TIME_MS, label, result.getMedianNanos() / 1e6);
+                    metrics.record(result.stage, Metrics.RECORDS, label, result.records);
+                    metrics.record(result.stage, Metrics.BYTES, label, result.bytes);
+                    metrics.record(result.stage, Metrics.RECORDS_PER_SECOND, label, result.getRecordsPerSecond());
+                    metrics.record(result.stage, PEAK_HEAP_BYTES, label, result.peakHeap);
+                }
+            }
+            metrics.flush();
+        } finally {
+            sink.close();
+        }
+    }
+
+    private static String formatHours(double hours) {
+        if (hours == Math.rint(hours)) {
+            return Long.toString((long) hours);
+        }
+        return Double.toString(hours);
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,574 @@
+package edu.mit.haystack.mahalirelayapp.benchmarks;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import edu.mit.haystack.mahalirelayapp.rinex.GPSEphemeris;
+
+/**
+ * @author David Mascharka
+ *
+ * Writes synthetic RINEX 2.11 observation and navigation files, and an IONEX file of satellite
+ * biases, so the whole RINEX to TEC pipeline can be benchmarked without a receiver
+ *
+ * The satellites fly real orbits. The navigation file has an ephemeris for every satellite every two
+ * hours and a satellite is observed whenever it's more than 10 degrees above the horizon. Ranges and
+ * phases are made from the distance to the satellite and a slant TEC that changes through the day,
+ * so the TEC computation sees passes, gaps and biases like it would in a real file
+ *
+ * Everything comes from a seed so the same settings always write exactly the same files
+ */
+public class SyntheticRinex {
+
+    public static final long DEFAULT_SEED = 20150518L;
+
+    public static final int MAX_SATELLITES = 32;
+
+    /**
+     * Receiver position in ECEF, near Haystack Observatory
+     */
+    public static final double RECEIVER_X = 1492233.0;
+    public static final double RECEIVER_Y = -4458089.0;
+    public static final double RECEIVER_Z = 4296046.0;
+
+    // The observation parser converts with these, so the phases are written with them too
+    private static final double SPEED_OF_LIGHT = 3.0E8;
+    private static final double L1_FREQUENCY = 154.0*10.23E6;
+    private static final double L2_FREQUENCY = 120.0*10.23E6;
+    private static final double L1_WAVELENGTH = SPEED_OF_LIGHT/L1_FREQUENCY;
+    private static final double L2_WAVELENGTH = SPEED_OF_LIGHT/L2_FREQUENCY;
+
+    /**
+     * Ionospheric delay on L1 in meters for 1 TECu. The delay on L2 is L2_DELAY_FACTOR times this
+     */
+    private static final double L1_METERS_PER_TEC = 40.3E16/(L1_FREQUENCY*L1_FREQUENCY);
+    private static final double L2_DELAY_FACTOR = (L1_FREQUENCY*L1_FREQUENCY)/(L2_FREQUENCY*L2_FREQUENCY);
+
+    private static final double METERS_PER_NANOSECOND = 0.299792458;
+    private static final double RECEIVER_BIAS_NS = 4.0;
+
+    private static final double ELEVATION_MASK = 10.0;
+
+    /**
+     * Seconds between broadcasts of the same satellite's ephemeris
+     */
+    private static final int EPHEMERIS_INTERVAL = 7200;
+
+    private static final double SQRT_A = 5153.6;
+    private static final double MU = 3986005.0E8;
+    private static final double INCLINATION = 0.96;
+    private static final double OMEGA_DOT = -8.0E-9;
+    private static final double DELTA_N = 4.5E-9;
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int PRNS_PER_LINE = 12;
+
+    /**
+     * The data starts on the same day as the default IONEX file, day 138 of 2015
+     */
+    private static final int START_YEAR = 2015;
+    private static final int START_MONTH = 5;
+    private static final int START_DAY = 18;
+
+    private final int durationSeconds;
+    private final int intervalSeconds;
+    private final int satellites;
+    private final long seed;
+
+    /**
+     * Steps through the data without daylight saving time getting in the way
+     */
+    private final Calendar utc;
+
+    private final long startMillis;
+
+    /**
+     * Orbit parameters written to the navigation file, one row per ephemeris in broadcast order
+     */
+    private double[][] orbits;
+    private GPSEphemeris[] ephemerides;
+
+    /**
+     * @param hours how much data to make
+     * @param intervalSeconds seconds between epochs
+     * @param satellites the number of satellites in the constellation, PRNs 1 to satellites
+     */
+    public SyntheticRinex(double hours, int intervalSeconds, int satellites) {
+        this(hours, intervalSeconds, satellites, DEFAULT_SEED);
+    }
+
+    /**
+     * @param hours how much data to make
+     * @param intervalSeconds seconds between epochs
+     * @param satellites the number of satellites in the constellation, PRNs 1 to satellites
+     * @param seed the random seed for noise, ambiguities and biases
+     */
+    public SyntheticRinex(double hours, int intervalSeconds, int satellites, long seed) {
+        if (hours <= 0 || intervalSeconds <= 0) {
+            throw new IllegalArgumentException("Duration and interval must be positive");
+        }
+        if (satellites < 1 || satellites > MAX_SATELLITES) {
+            throw new IllegalArgumentException("Satellites must be between 1 and " + MAX_SATELLITES);
+        }
+
+        this.durationSeconds = (int) Math.round(hours*3600);
+        this.intervalSeconds = intervalSeconds;
+        this.satellites = satellites;
+        this.seed = seed;
+
+        utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.US);
+        utc.clear();
+        utc.set(START_YEAR, START_MONTH-1, START_DAY, 0, 0, 0);
+        startMillis = utc.getTimeInMillis();
+    }
+
+    /**
+     * @return the number of epochs in the observation file
+     */
+    public int getEpochCount() {
+        return (durationSeconds + intervalSeconds - 1) / intervalSeconds;
+    }
+
+    /**
+     * Writes the observation file
+     *
+     * Observation types are L1 L2 P1 P2 C1, which fit on one 80 character line per satellite
+     *
+     * @param file where to write
+     * @return the number of satellite observations written
+     * @throws IOException if the file can't be written
+     */
+    public long writeObservationFile(File file) throws IOException {
+        makeEphemerides();
+
+        Random random = new Random(seed);
+        double[] satelliteBiases = satelliteBiases();
+        double[] kVector = getKVector();
+
+        // Ambiguities are picked again every time a satellite rises
+        boolean[] visible = new boolean[satellites + 1];
+        long[] l1Ambiguity = new long[satellites + 1];
+        long[] l2Ambiguity = new long[satellites + 1];
+
+        byte[] prns = new byte[satellites];
+        double[] ranges = new double[satellites];
+        double[] slantTEC = new double[satellites];
+        double[] position = new double[4];
+
+        StringBuilder line = new StringBuilder(96);
+        long written = 0;
+
+        Writer writer = new BufferedWriter(new FileWriter(file), 1 << 16);
+        try {
+            writeHeaderLine(writer, "     2.11           OBSERVATION DATA    G (GPS)", "RINEX VERSION / TYPE");
+            writeHeaderLine(writer, "SyntheticRinex      MIT Haystack        18-MAY-15 00:00", "PGM / RUN BY / DATE");
+            writeHeaderLine(writer, "SYNT", "MARKER NAME");
+            writeHeaderLine(writer, "MCheetah            MIT Haystack", "OBSERVER / AGENCY");
+            writeHeaderLine(writer, String.format(Locale.US, "%14.4f%14.4f%14.4f",
+                    RECEIVER_X, RECEIVER_Y, RECEIVER_Z), "APPROX POSITION XYZ");
+            writeHeaderLine(writer, "        0.0000        0.0000        0.0000", "ANTENNA: DELTA H/E/N");
+            writeHeaderLine(writer, "     1     1", "WAVELENGTH FACT L1/2");
+            writeHeaderLine(writer, "     5    L1    L2    P1    P2    C1", "# / TYPES OF OBSERV");
+            writeHeaderLine(writer, String.format(Locale.US, "%10.3f", (double) intervalSeconds), "INTERVAL");
+            writeHeaderLine(writer, String.format(Locale.US, "%6d%6d%6d%6d%6d%13.7f     GPS",
+                    START_YEAR, START_MONTH, START_DAY, 0, 0, 0.0), "TIME OF FIRST OBS");
+            writeHeaderLine(writer, "", "END OF HEADER");
+
+            for (int t = 0; t < durationSeconds; t += intervalSeconds) {
+                Date time = setTime(t);
+
+                int count = 0;
+                for (int prn = 1; prn <= satellites; prn++) {
+                    getPosition(ephemerides[ephemerisIndex(prn, t)], time, kVector, position);
+                    if (position[3] < ELEVATION_MASK) {
+                        visible[prn] = false;
+                        continue;
+                    }
+
+                    if (!visible[prn]) {
+                        visible[prn] = true;
+                        l1Ambiguity[prn] = random.nextInt(2000000) - 1000000;
+                        l2Ambiguity[prn] = random.nextInt(2000000) - 1000000;
+                    }
+
+                    prns[count] = (byte) prn;
+                    ranges[count] = position[0];
+                    slantTEC[count] = getVerticalTEC(t) / getOneOverMappingFunction(position[3]);
+                    count++;
+                }
+
+                writeEpochLines(writer, line, count, prns);
+
+                for (int i = 0; i < count; i++) {
+                    byte prn = prns[i];
+                    double range = ranges[i];
+                    double l1Delay = slantTEC[i]*L1_METERS_PER_TEC;
+                    double l2Delay = l1Delay*L2_DELAY_FACTOR;
+
+                    double p1 = range + l1Delay + random.nextGaussian()*0.5;
+                    // IONEX biases are P1 - P2, so they come off P2
+                    double p2 = range + l2Delay - (satelliteBiases[prn] + RECEIVER_BIAS_NS)*METERS_PER_NANOSECOND
+                            + random.nextGaussian()*0.5;
+                    double c1 = p1 + random.nextGaussian()*0.3;
+                    double l1 = (range - l1Delay)/L1_WAVELENGTH + l1Ambiguity[prn] + random.nextGaussian()*0.005;
+                    double l2 = (range - l2Delay)/L2_WAVELENGTH + l2Ambiguity[prn] + random.nextGaussian()*0.005;
+
+                    line.setLength(0);
+                    appendObservation(line, l1, '7');
+                    appendObservation(line, l2, '7');
+                    appendObservation(line, p1, ' ');
+                    appendObservation(line, p2, ' ');
+                    appendObservation(line, c1, ' ');
+                    // Drop the trailing blanks like receivers do
+                    int length = line.length();
+                    while (length > 0 && line.charAt(length-1) == ' ') {
+                        length--;
+                    }
+                    line.setLength(length);
+                    line.append('\n');
+                    writer.append(line);
+                }
+                written += count;
+            }
+        } finally {
+            writer.close();
+        }
+
+        return written;
+    }
+
+    /**
+     * Writes the navigation file
+     *
+     * @param file where to write
+     * @return the number of ephemerides written
+     * @throws IOException if the file can't be written
+     */
+    public int writeNavigationFile(File file) throws IOException {
+        makeEphemerides();
+
+        Writer writer = new BufferedWriter(new FileWriter(file), 1 << 16);
+        try {
+            writeHeaderLine(writer, "     2.11           N: GPS NAV DATA", "RINEX VERSION / TYPE");
+            writeHeaderLine(writer, "SyntheticRinex      MIT Haystack        18-MAY-15 00:00", "PGM / RUN BY / DATE");
+            writeHeaderLine(writer, "", "END OF HEADER");
+
+            for (int i = 0; i < orbits.length; i++) {
+                double[] o = orbits[i];
+                int prn = (int) o[0];
+                setTime((int) o[1]);
+
+                StringBuilder line = new StringBuilder(80);
+                line.append(String.format(Locale.US, "%2d %02d %2d %2d %2d %2d%5.1f", prn,
+                        utc.get(Calendar.YEAR) % 100, utc.get(Calendar.MONTH) + 1,
+                        utc.get(Calendar.DAY_OF_MONTH), utc.get(Calendar.HOUR_OF_DAY),
+                        utc.get(Calendar.MINUTE), (double) utc.get(Calendar.SECOND)));
+                // Clock bias, drift and drift rate
+                appendOrbitValue(line, 1.0E-5*prn);
+                appendOrbitValue(line, 1.0E-12);
+                appendOrbitValue(line, 0);
+                writer.write(line.append('\n').toString());
+
+                // IODE, Crs, delta n, M0
+                writeOrbitLine(writer, i % 256, o[2], o[3], o[4]);
+                // Cuc, e, Cus, sqrt(A)
+                writeOrbitLine(writer, o[5], o[6], o[7], o[8]);
+                // Toe, Cic, OMEGA, Cis
+                writeOrbitLine(writer, o[9], o[10], o[11], o[12]);
+                // i0, Crc, omega, OMEGA DOT
+                writeOrbitLine(writer, o[13], o[14], o[15], o[16]);
+                // IDOT, codes on L2, GPS week, L2 P data flag
+                writeOrbitLine(writer, o[17], 1, 1845, 0);
+                // SV accuracy, SV health, TGD, IODC
+                writeOrbitLine(writer, 2, 0, -1.0E-8, i % 256);
+                // Transmission time, fit interval
+                writeOrbitLine(writer, o[9] - 3600, 4, 0, 0);
+            }
+        } finally {
+            writer.close();
+        }
+
+        return orbits.length;
+    }
+
+    /**
+     * Writes the header of an IONEX file with the satellite differential code biases
+     *
+     * There are no maps in the file, the biases are all the TEC computation reads
+     *
+     * @param file where to write
+     * @return the number of satellite biases written
+     * @throws IOException if the file can't be written
+     */
+    public int writeIonexFile(File file) throws IOException {
+        double[] satelliteBiases = satelliteBiases();
+
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            writeHeaderLine(writer, "     1.0            IONOSPHERE MAPS     GPS", "IONEX VERSION / TYPE");
+            writeHeaderLine(writer, "SyntheticRinex      MIT Haystack        18-MAY-15 00:00", "PGM / RUN BY / DATE");
+            writeHeaderLine(writer, String.format(Locale.US, "%6d%6d%6d%6d%6d%6d",
+                    START_YEAR, START_MONTH, START_DAY, 0, 0, 0), "EPOCH OF FIRST MAP");
+            writeHeaderLine(writer, "     0", "# OF MAPS IN FILE");
+            writeHeaderLine(writer, "     DIFFERENTIAL CODE BIASES", "START OF AUX DATA");
+            for (int prn = 1; prn <= satellites; prn++) {
+                writeHeaderLine(writer, String.format(Locale.US, "   G%02d%10.3f%10.3f",
+                        prn, satelliteBiases[prn], 0.01), "PRN / BIAS / RMS");
+            }
+            writeHeaderLine(writer, "     DIFFERENTIAL CODE BIASES", "END OF AUX DATA");
+            writeHeaderLine(writer, "", "END OF HEADER");
+        } finally {
+            writer.close();
+        }
+
+        return satellites;
+    }
+
+    /**
+     * Makes an ephemeris for every satellite every EPHEMERIS_INTERVAL seconds, covering the whole
+     * observation file
+     *
+     * The satellites are spread over six orbital planes and each ephemeris continues the orbit of the
+     * one before it
+     */
+    private void makeEphemerides() {
+        if (ephemerides != null) {
+            return;
+        }
+
+        int broadcasts = durationSeconds / EPHEMERIS_INTERVAL + 2;
+        orbits = new double[broadcasts*satellites][];
+        ephemerides = new GPSEphemeris[orbits.length];
+
+        double n = Math.sqrt(MU/Math.pow(SQRT_A*SQRT_A, 3)) + DELTA_N;
+
+        int index = 0;
+        for (int broadcast = 0; broadcast < broadcasts; broadcast++) {
+            int t = broadcast*EPHEMERIS_INTERVAL;
+            setTime(t);
+            // Seconds into the GPS week, the way GPSEphemeris counts them
+            double toe = (utc.get(Calendar.DAY_OF_WEEK) - 1)*SECONDS_PER_DAY +
+                    utc.get(Calendar.HOUR_OF_DAY)*3600 + utc.get(Calendar.MINUTE)*60 + utc.get(Calendar.SECOND);
+
+            for (int prn = 1; prn <= satellites; prn++) {
+                int plane = (prn - 1) % 6;
+                int slot = (prn - 1) / 6;
+
+                double m0 = wrap(slot*Math.PI/3 + plane*0.7 + n*t);
+                double e = 0.004 + 0.0015*slot;
+                double OMEGA = wrap(plane*Math.PI/3 + OMEGA_DOT*t);
+                double omega = wrap(0.4*plane - 1.0);
+
+                double[] o = new double[] {prn, t,
+                        -25.0 + prn, DELTA_N, m0,
+                        -1.2E-6, e, 8.5E-6, SQRT_A,
+                        toe, 5.0E-8, OMEGA, -3.0E-8,
+                        INCLINATION + 0.002*plane, 220.0 + prn, omega, OMEGA_DOT,
+                        1.0E-10};
+                orbits[index] = o;
+
+                ephemerides[index] = new GPSEphemeris((short) utc.get(Calendar.YEAR),
+                        (byte) (utc.get(Calendar.MONTH) + 1), (byte) utc.get(Calendar.DAY_OF_MONTH),
+                        (byte) utc.get(Calendar.HOUR_OF_DAY), (byte) utc.get(Calendar.MINUTE),
+                        (byte) utc.get(Calendar.SECOND), (byte) prn, o[9], o[8], o[6], o[13], o[11], o[15],
+                        o[4], o[17], o[16], o[3], o[5], o[7], o[14], o[2], o[10], o[12]);
+                index++;
+            }
+        }
+    }
+
+    /**
+     * @return made up satellite biases in nanoseconds, indexed by PRN
+     */
+    private double[] satelliteBiases() {
+        Random random = new Random(seed ^ 0x5DEECE66DL);
+        double[] biases = new double[satellites + 1];
+        for (int prn = 1; prn <= satellites; prn++) {
+            biases[prn] = random.nextGaussian()*3.0;
+        }
+        return biases;
+    }
+
+    /**
+     * @return the index of the ephemeris broadcast closest to t for this satellite
+     */
+    private int ephemerisIndex(int prn, int t) {
+        int broadcast = (t + EPHEMERIS_INTERVAL/2) / EPHEMERIS_INTERVAL;
+        return broadcast*satellites + prn - 1;
+    }
+
+    /**
+     * Points the UTC calendar at t seconds after the start
+     *
+     * @return the same time as a Date, which is what the parsers make since they read times as UTC
+     */
+    private Date setTime(int t) {
+        utc.setTimeInMillis(startMillis + t*1000L);
+        return utc.getTime();
+    }
+
+    /**
+     * @return the receiver's local up direction
+     */
+    private static double[] getKVector() {
+        double[] geodetic = GPSEphemeris.getLatLongAltFromXYZ(RECEIVER_X, RECEIVER_Y, RECEIVER_Z);
+        double latitude = Math.toRadians(geodetic[0]);
+        double longitude = Math.toRadians(geodetic[1]);
+
+        return new double[] {Math.cos(latitude)*Math.cos(longitude),
+                Math.cos(latitude)*Math.sin(longitude),
+                Math.sin(latitude)};
+    }
+
+    /**
+     * Finds the range and elevation from the receiver to a satellite
+     *
+     * @param result set to the range in meters and the elevation in degrees in result[0] and result[3]
+     */
+    private static void getPosition(GPSEphemeris ephemeris, Date time, double[] k, double[] result) {
+        double[] satellite = ephemeris.getSatelliteXYZ(time);
+        double x = satellite[0] - RECEIVER_X;
+        double y = satellite[1] - RECEIVER_Y;
+        double z = satellite[2] - RECEIVER_Z;
+        double range = Math.sqrt(x*x + y*y + z*z);
+
+        result[0] = range;
+        result[3] = 90.0 - Math.toDegrees(Math.acos((x*k[0] + y*k[1] + z*k[2])/range));
+    }
+
+    /**
+     * @return vertical TEC in TECu, lowest before dawn and highest in the afternoon
+     */
+    private static double getVerticalTEC(int t) {
+        double dayFraction = (t % SECONDS_PER_DAY) / (double) SECONDS_PER_DAY;
+        return 12.0 + 8.0*Math.sin(2*Math.PI*(dayFraction - 0.375));
+    }
+
+    /**
+     * The same mapping function TECComputer uses
+     */
+    private static double getOneOverMappingFunction(double elevation) {
+        double cos = 0.95*Math.cos(Math.toRadians(elevation));
+        return Math.sqrt(1.0 - cos*cos);
+    }
+
+    private static double wrap(double angle) {
+        angle %= 2*Math.PI;
+        if (angle > Math.PI) {
+            angle -= 2*Math.PI;
+        } else if (angle < -Math.PI) {
+            angle += 2*Math.PI;
+        }
+        return angle;
+    }
+
+    private void writeEpochLines(Writer writer, StringBuilder line, int count, byte[] prns) throws IOException {
+        line.setLength(0);
+        line.append(String.format(Locale.US, " %02d %2d %2d %2d %2d%11.7f  0%3d",
+                utc.get(Calendar.YEAR) % 100, utc.get(Calendar.MONTH) + 1, utc.get(Calendar.DAY_OF_MONTH),
+                utc.get(Calendar.HOUR_OF_DAY), utc.get(Calendar.MINUTE), (double) utc.get(Calendar.SECOND),
+                count));
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && i % PRNS_PER_LINE == 0) {
+                // The rest of the PRNs go on continuation lines
+                line.append('\n');
+                for (int j = 0; j < 32; j++) {
+                    line.append(' ');
+                }
+            }
+            line.append('G');
+            if (prns[i] < 10) {
+                line.append('0');
+            }
+            line.append(prns[i]);
+        }
+        line.append('\n');
+        writer.append(line);
+    }
+
+    /**
+     * Appends an observation in the F14.3 format followed by a blank loss of lock indicator and the
+     * signal strength
+     *
+     * Formatted by hand because String.format is most of the time spent writing a multi-day file
+     */
+    private static void appendObservation(StringBuilder line, double value, char strength) {
+        long scaled = Math.round(Math.abs(value)*1000);
+        boolean negative = value < 0 && scaled != 0;
+
+        char[] field = new char[14];
+        int position = field.length;
+        for (int i = 0; i < 3; i++) {
+            field[--position] = (char) ('0' + scaled % 10);
+            scaled /= 10;
+        }
+        field[--position] = '.';
+        do {
+            field[--position] = (char) ('0' + scaled % 10);
+            scaled /= 10;
+        } while (scaled > 0 && position > 0);
+        if (negative && position > 0) {
+            field[--position] = '-';
+        }
+        while (position > 0) {
+            field[--position] = ' ';
+        }
+
+        line.append(field).append(' ').append(strength);
+    }
+
+    private static void writeOrbitLine(Writer writer, double a, double b, double c, double d) throws IOException {
+        StringBuilder line = new StringBuilder(80);
+        line.append("   ");
+        appendOrbitValue(line, a);
+        appendOrbitValue(line, b);
+        appendOrbitValue(line, c);
+        appendOrbitValue(line, d);
+        writer.write(line.append('\n').toString());
+    }
+
+    /**
+     * Appends a value in the D19.12 format navigation files use
+     */
+    private static void appendOrbitValue(StringBuilder line, double value) {
+        line.append(String.format(Locale.US, "%19.12E", value).replace('E', 'D'));
+    }
+
+    private static void writeHeaderLine(Writer writer, String contents, String label) throws IOException {
+        writer.write(String.format(Locale.US, "%-60s%s\n", contents, label));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,716 @@
+package edu.mit.haystack.mahalirelayapp.computation;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import edu.mit.haystack.mahalirelayapp.MahaliData;
+import edu.mit.haystack.mahalirelayapp.rinex.GPSEphemeris;
+import edu.mit.haystack.mahalirelayapp.rinex.GPSObservation;
+import edu.mit.haystack.mahalirelayapp.rinex.IonexParser;
+import edu.mit.haystack.mahalirelayapp.rinex.MahaliObservation;
+import edu.mit.haystack.mahalirelayapp.rinex.ObservationStore;
+import edu.mit.haystack.mahalirelayapp.rinex.RinexNavigationParser;
+
+import edu.mit.haystack.mcheetah.PipelinedComputer;
+import edu.mit.haystack.mcheetah.TunableComputer;
+import edu.mit.haystack.mcheetah.metrics.Tracer;
+import edu.mit.haystack.mcheetah.utils.ParserUtils;
+
+/**
+ * @author David Mascharka
+ *
+ * Handles the computation of TEC from GPS observation data
+ *
+ * NOTE: WHEN THIS IS FIRST CREATED IN YOUR ACTIVITY, CALL setEphemerides AND setReceiverPosition
+ * BEFORE ADDING THE DataProcessFragment THAT USES THIS CLASS
+ *
+ * Elevation is computed in computePartial while the rest of the files are still parsing. Everything
+ * else needs the whole day of data (the receiver bias especially) so it waits for compute
+ *
+ * compute starts by resetting the TEC values of every observation, so observations reused from an
+ * earlier run (see DataProcessEngine.setReuseParsedData) are computed from scratch. Elevation only
+ * depends on the ephemerides so it's kept
+ *
+ * The number of compute threads and the batch size used when converting to vertical TEC can be
+ * tuned with the Autotuner
+ */
+public class TECComputer implements PipelinedComputer<GPSObservation>, TunableComputer<GPSObservation> {
+
+    /**
+     * The coefficient of the time gap - a difference of more than the median timestep * GAP indicates a gap
+     */
+    private static final byte GAP = 3;
+
+    /**
+     * The max difference between consecutive TEC values to indicate a gap, probably due to a loss of lock
+     */
+    private static final byte MAX_DIFFERENCE_TEC_VALUE = 1;
+
+    /**
+     * Satellite biases are read from here if no IONEX file was set
+     */
+    private static final String DEFAULT_IONEX_FILE = "/sdcard/mahali/ionex/jplg1380.15i";
+
+    /**
+     * Number of observations each task converts to vertical TEC if no batch size is set
+     */
+    public static final int DEFAULT_BATCH_SIZE = 4;
+
+    private int computeThreads = 1;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Sorted by PRN then time - may be set from a background thread, see setEphemerides(File)
+     */
+    private volatile List<GPSEphemeris> ephemerides;
+
+    private IonexParser ionexParser;
+
+    public void setEphemerides(List<GPSEphemeris> e) {
+        // Sort before publishing so computePartial never sees an unsorted list
+        if (e != null) {
+            Collections.sort(e);
+        }
+        ephemerides = e;
+    }
+
+    public void setEphemerides(final File navigationFile) {
+        (new Thread(new Runnable() {
+            @Override
+            public void run() {
+                RinexNavigationParser p = new RinexNavigationParser();
+                setEphemerides(p.parse(navigationFile, 1));
+            }
+        })).start();
+    }
+
+    public void parseIonexFile(File file) {
+        ionexParser = new IonexParser();
+        ionexParser.parse(file);
+    }
+
+    public void setIonexFile(File ionexFile) {
+        parseIonexFile(ionexFile);
+    }
+
+    @Override
+    public void setComputeThreads(int numThreads) {
+        computeThreads = Math.max(1, numThreads);
+    }
+
+    @Override
+    public int getComputeThreads() {
+        return computeThreads;
+    }
+
+    @Override
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Computes TEC for every observation
+     *
+     * An ObservationStore is computed in place: it's sorted by PRN and time and its TEC columns
+     * are filled in. Any other list keeps its order, and its observations are copied into a store,
+     * computed, and have their results copied back
+     *
+     * @param data the parsed observations
+     * @return true
+     */
+    @Override
+    public boolean compute(List<GPSObservation> data) {
+        MahaliObservation observation = new MahaliObservation();
+
+        // TODO get rid of these allocations, or make them not hardcoded at least
+        if (ionexParser == null) {
+            parseIonexFile(new File(DEFAULT_IONEX_FILE));
+        }
+
+        List<GPSObservation> sorted = null;
+        if (data instanceof ObservationStore) {
+            observation.observations = (ObservationStore) data;
+        } else {
+            sorted = new ArrayList<GPSObservation>(data);
+            Collections.sort(sorted);
+            observation.observations = new ObservationStore(sorted);
+        }
+
+        // Observations may be reused from an earlier run, and the bias removal below isn't repeatable
+        ObservationStore store = observation.observations;
+        int size = store.size();
+        Arrays.fill(store.slantTEC, 0, size, Integer.MAX_VALUE);
+        Arrays.fill(store.tecError, 0, size, Integer.MAX_VALUE);
+        Arrays.fill(store.verticalTEC, 0, size, Integer.MAX_VALUE);
+
+        observation.receiverX = MahaliData.mahaliX;
+        observation.receiverY = MahaliData.mahaliY;
+        observation.receiverZ = MahaliData.mahaliZ;
+
+        calculateEverythingAndConvert(observation, ephemerides, ionexParser, batchSize, computeThreads);
+
+        if (sorted != null) {
+            // The store is in the same order as the sorted list, calculateTEC found it already sorted
+            GPSObservation o;
+            for (int i = 0; i < size; i++) {
+                o = sorted.get(i);
+                o.elevation = store.elevation[i];
+                o.slantTEC = store.slantTEC[i];
+                o.tecError = store.tecError[i];
+                o.verticalTEC = store.verticalTEC[i];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the elevation of each observation while parsing continues
+     *
+     * If the ephemerides haven't finished loading yet this does nothing and convertSlantToVerticalTEC
+     * computes elevation for these observations later
+     *
+     * An ObservationStore is skipped too. It's a piece that has already been copied into the data
+     * object, so elevations written to it would be lost, and get only returns copies to write to.
+     * convertSlantToVerticalTEC computes them in the data object's columns instead
+     *
+     * @param partialData observations that have just been parsed
+     */
+    @Override
+    public void computePartial(List<GPSObservation> partialData) {
+        List<GPSEphemeris> e = ephemerides;
+        if (e == null || partialData instanceof ObservationStore) {
+            return;
+        }
+
+        double[] k = getKVector(MahaliData.mahaliX, MahaliData.mahaliY, MahaliData.mahaliZ);
+
+        GPSObservation o;
+        GPSEphemeris closest;
+        int size = partialData.size();
+        for (int i = 0; i < size; i++) {
+            o = partialData.get(i);
+            // Already computed on an earlier run
+            if (o.elevation != Integer.MAX_VALUE) {
+                continue;
+            }
+            closest = getClosestEphemeris(o, e);
+            // No ephemeris for this satellite - leave it for convertSlantToVerticalTEC to throw away
+            if (closest != null) {
+                o.elevation = computeElevation(o.time.getTime(), closest, MahaliData.mahaliX,
+                        MahaliData.mahaliY, MahaliData.mahaliZ, k);
+            }
+        }
+    }
+
+    /**
+     * Very handy if you just want to do everything all at once
+     *
+     * Sets the slant TEC of the input observation to the correct TEC, adjusted for satellite and receiver bias
+     *
+     * Observations TEC can't be found for (single points, satellites with too little data) are left
+     * with a slant TEC of Integer.MAX_VALUE and skipped by every later step
+     *
+     * Note: Do NOT call this on the UI thread. Performs way too much computation and will crash the app
+     *
+     * @param mahaliObservation contains the set of observations
+     * @param ionex contains satellite biases
+     */
+    public static void calculateEverything(MahaliObservation mahaliObservation, IonexParser ionex) {
+        ObservationStore observations = mahaliObservation.observations;
+
+        // First, calculate line-of-sight TEC
+        Tracer.beginSection("calculateTEC");
+        try {
+            calculateTEC(observations);
+        } finally {
+            Tracer.endSection();
+        }
+
+        // Next, remove satellite biases
+        Tracer.beginSection("removeSatelliteBiases");
+        try {
+            removeSatelliteBiases(ionex, observations);
+        } finally {
+            Tracer.endSection();
+        }
+
+        // Get the receiver bias
+        Tracer.beginSection("estimateReceiverBias");
+        try {
+            double bias = estimateReceiverBiasZeroTEC(observations);
+            MahaliData.mahaliReceiverBias = bias;
+
+            // Subtract the bias from the slant TEC
+            double[] slantTEC = observations.slantTEC;
+            int size = observations.size();
+            for (int i = 0; i < size; i++) {
+                if (slantTEC[i] != Integer.MAX_VALUE) {
+                    slantTEC[i] -= bias;
+                }
+            }
+        } finally {
+            Tracer.endSection();
+        }
+    }
+
+    /**
+     * Very handy for calculating absolutely everything at once
+     *
+     * Sets the vertical TEC of the input observation to the correct value
+     *
+     * Note: Do NOT call this on the UI thread. Performs way too much computation and will crash the app
+     *
+     * @param mahaliObservation contains the set of observations
+     * @param ephemerides satellite ephemerides for the day the observations were taken
+     * @param ionex contains satellite biases
+     * @param batchSize the number of observations each conversion task handles
+     * @param numThreads the number of threads converting to vertical TEC
+     */
+    public static void calculateEverythingAndConvert(MahaliObservation mahaliObservation, List<GPSEphemeris> ephemerides,
+                                                     IonexParser ionex, int batchSize, int numThreads) {
+        calculateEverything(mahaliObservation, ionex);
+
+        if (ephemerides != null) {
+            Tracer.beginSection("convertSlantToVerticalTEC");
+            try {
+                convertSlantToVerticalTEC(mahaliObservation, ephemerides, batchSize, numThreads);
+            } finally {
+                Tracer.endSection();
+            }
+        }
+    }
+
+    /**
+     * Converts line-of-sight TEC to vertical TEC
+     *
+     * @param mahaliObservation set of GPS observation data
+     * @param ephemerides set of satellite ephemeris data
+     * @param batchSize the number of observations each task converts
+     * @param poolSize the number of threads converting batches in parallel
+     */
+    public static void convertSlantToVerticalTEC(MahaliObservation mahaliObservation, List<GPSEphemeris> ephemerides,
+                                                 int batchSize, int poolSize) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, poolSize));
+        Collections.sort(ephemerides);
+
+        double[] kVector = getKVector(mahaliObservation.receiverX, mahaliObservation.receiverY, mahaliObservation.receiverZ);
+
+        int size = mahaliObservation.observations.size();
+        for (int i = 0; i < size; i += batchSize) {
+            convertObservations(pool, mahaliObservation.observations, i, Math.min(i + batchSize, size), ephemerides,
+                    mahaliObservation.receiverX, mahaliObservation.receiverY, mahaliObservation.receiverZ, kVector);
+        }
+
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Converts observations start to end (exclusive) of the store. Batches never overlap, so each
+     * task writes to its own part of the elevation and vertical TEC columns
+     */
+    private static void convertObservations(ExecutorService pool, final ObservationStore obs, final int start,
+                                            final int end, final List<GPSEphemeris> ephemerides, final double x,
+                                            final double y, final double z, final double[] kVector) {
+        pool.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = start; i < end; i++) {
+                        if (obs.slantTEC[i] == Integer.MAX_VALUE) {
+                            // No TEC to convert
+                            continue;
+                        }
+                        // Elevation may already be set by computePartial
+                        if (obs.elevation[i] == Integer.MAX_VALUE) {
+                            GPSEphemeris e = getClosestEphemeris(obs.prn[i], obs.timeMillis[i], ephemerides);
+                            obs.elevation[i] = computeElevation(obs.timeMillis[i], e, x, y, z, kVector);
+                        }
+                        applyMappingFunction(obs, i);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    for (int i = start; i < end; i++) {
+                        // throw away the batch
+                        obs.verticalTEC[i] = Integer.MAX_VALUE;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies the mapping function for a given observation
+     * Make sure that the slant TEC and elevation are already set before calling this function
+     * If elevation isn't set, call convertSlantToVerticalTEC instead
+     *
+     * @param observation the observation to apply the mapping function to
+     */
+    public static void applyMappingFunction(GPSObservation observation) {
+        observation.verticalTEC = observation.slantTEC * getOneOverMappingFunction(observation.elevation);
+    }
+
+    /**
+     * Same as applyMappingFunction(GPSObservation), for observation i of a store
+     */
+    public static void applyMappingFunction(ObservationStore observations, int i) {
+        observations.verticalTEC[i] = observations.slantTEC[i] * getOneOverMappingFunction(observations.elevation[i]);
+    }
+
+    /**
+     * Removes satellite biases from the data
+     *
+     * @param ionexParser contains satellite bias information
+     * @param observations set of observations
+     */
+    public static void removeSatelliteBiases(IonexParser ionexParser, ObservationStore observations) {
+        byte[] prn = observations.prn;
+        double[] slantTEC = observations.slantTEC;
+        int size = observations.size();
+        for (int i = 0; i < size; i++) {
+            if (slantTEC[i] != Integer.MAX_VALUE) {
+                slantTEC[i] -= ionexParser.getBias(prn[i]);
+            }
+        }
+    }
+
+    /**
+     * Estimates receiver bias assuming that at some point the TEC = 0
+     *
+     * Checks for outliers by insisting the lowest point is within 1 TECu of 99% lowest point
+     *
+     * Returns estimated receiver bias in TEC units, 0 if no observation has TEC
+     */
+    public static double estimateReceiverBiasZeroTEC(ObservationStore observations) {
+        double[] slantTEC = observations.slantTEC;
+        int size = observations.size();
+        double[] tecList = new double[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (slantTEC[i] != Integer.MAX_VALUE) {
+                tecList[count++] = slantTEC[i];
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        Arrays.sort(tecList, 0, count);
+        double lowestTEC = tecList[0];
+        double ninetyNineTEC = tecList[(int) ((count-1)*0.01)];
+        if (ninetyNineTEC - lowestTEC > 1.0) {
+            return ninetyNineTEC;
+        } else {
+            return lowestTEC;
+        }
+    }
+
+    /**
+     * Computes the local up direction for a receiver
+     *
+     * @param receiverX receiver x coordinate in ECEF
+     * @param receiverY receiver y coordinate in ECEF
+     * @param receiverZ receiver z coordinate in ECEF
+     * @return the k vector in the local North-East-Up system
+     */
+    private static double[] getKVector(double receiverX, double receiverY, double receiverZ) {
+        double[] receiverGeodetic = GPSEphemeris.getLatLongAltFromXYZ(receiverX, receiverY, receiverZ);
+        double latGeo = ParserUtils.DEGREES_TO_RADIANS*(receiverGeodetic[0]);
+        double longGeo = ParserUtils.DEGREES_TO_RADIANS*(receiverGeodetic[1]);
+
+        return new double[] {Math.cos(latGeo)*Math.cos(longGeo),
+                Math.cos(latGeo)*Math.sin(longGeo),
+                Math.sin(latGeo)};
+    }
+
+    /**
+     * Calculates the elevation from a receiver to a satellite
+     *
+     * Adapted from GPSTk from the Applied Research Laboratory at the University of Texas at Austin
+     * http://www.gpstk.org/bin/view/Documentation/WebHome
+     *
+     * @param timeMillis the time of the observation
+     * @param ephemeris the satellite ephemeris data
+     * @param receiverX receiver x coordinate in ECEF
+     * @param receiverY receiver y coordinate in ECEF
+     * @param receiverZ receiver z coordinate in ECEF
+     * @param k the receiver's local up direction from getKVector
+     * @return the elevation in degrees
+     */
+    private static double computeElevation(long timeMillis, final GPSEphemeris ephemeris, double receiverX,
+                                           double receiverY, double receiverZ, double[] k) {
+        // Compute the satellite's position in ECEF
+        double[] satelliteXYZ = ephemeris.getSatelliteXYZ(timeMillis);
+
+        // Get the vector from the satellite to the receiver
+        double x = satelliteXYZ[0] - receiverX;
+        double y = satelliteXYZ[1] - receiverY;
+        double z = satelliteXYZ[2] - receiverZ;
+
+        // get the up coordinate in local north-east-up coordinate system
+        double localUp = x*k[0]+y*k[1]+z*k[2];
+
+        // cos(z), z is angle with respect to local vertical
+        double cosUp = localUp/Math.sqrt(x*x+y*y+z*z);
+
+        return 90.0 - ParserUtils.RADIANS_TO_DEGREES*Math.acos(cosUp);
+    }
+
+    /**
+     * Finds the closest satellite ephemeris broadcast to this observation
+     * Ensure when calling this that the ephemerides list is sorted
+     * This assumes a sorted list to save work
+     *
+     * @param observation the observation
+     * @param ephemerides list of satellite ephemerides
+     */
+    public static GPSEphemeris getClosestEphemeris(final GPSObservation observation, final List<GPSEphemeris> ephemerides) {
+        return getClosestEphemeris(observation.prn, observation.time.getTime(), ephemerides);
+    }
+
+    /**
+     * Same as getClosestEphemeris(GPSObservation, List), for an observation in an ObservationStore
+     *
+     * @param prn the satellite
+     * @param timeMillis the time of the observation
+     * @param ephemerides sorted list of satellite ephemerides
+     */
+    public static GPSEphemeris getClosestEphemeris(byte prn, long timeMillis, final List<GPSEphemeris> ephemerides) {
+        GPSEphemeris ephemeris = null;
+        long closestDifference = Long.MAX_VALUE;
+        long thisDifference;
+
+        GPSEphemeris e;
+        // We'll never get more than 32,000 ephemeris readings per day. At most we'll have ~1500
+        // They broadcast once every half hour for each day from 32 satellites at most
+        short size = (short) ephemerides.size();
+        for (short i = 0; i < size; i++) {
+            e = ephemerides.get(i);
+            // If this ephemeris is for a different satellite, keep going
+            if (e.prn != prn) {
+                // If we've already found an ephemeris that's close for this satellite, we're done because the list is sorted
+                // so all PRNs after this will not match
+                if (ephemeris != null) {
+                    break;
+                }
+                continue;
+            }
+
+            thisDifference = Math.abs(timeMillis - e.timeMillis);
+            if (thisDifference < closestDifference) {
+                closestDifference = thisDifference;
+                ephemeris = e;
+            } else {
+                // sorted by time and prn so if we're getting farther away we've found the best one already
+                break;
+            }
+        }
+
+        return ephemeris;
+    }
+
+    /**
+     * Returns 1/(the mapping function) given elevation in degrees and fitting parameter
+     *
+     * Mapping function:
+     *                     1
+     *     z = ---------------------------
+     *         sqrt(1.0 - (fit*cos(el))^2)
+     *
+     * We return 1/z because this way we just multiply and save some work dividing
+     *
+     * @param elevation the angle of elevation from the receiver to the satellite, in degrees
+     * @return the function to map slant to vertical TEC
+     */
+    private static double getOneOverMappingFunction(double elevation) {
+        return Math.sqrt(1.0 - Math.pow(0.95 * Math.cos(ParserUtils.DEGREES_TO_RADIANS*elevation), 2.0));
+    }
+
+    /**
+     * Computes the total electron content for the set of GPS observations
+     *
+     * Sorts the observations by PRN and time. Observations without TEC keep a slant TEC of
+     * Integer.MAX_VALUE, ObservationStore.retainSlantTECBelow can take them out
+     *
+     * @param observations the observation data
+     */
+    public static void calculateTEC(ObservationStore observations) {
+        observations.sort();
+
+        int[] timePeriods;
+        // At this point, the observations are sorted by PRN and time
+        for (byte i = 1; i <= 32; i++) { // there are 32 PRNs, definitely fits in a byte
+            timePeriods = analyzeData(observations, observations.prnStart(i), observations.prnEnd(i));
+
+            if (timePeriods == null) {
+                // no data for this satellite
+                continue;
+            }
+
+            for (int j = 0; j < timePeriods.length; j += 2) {
+                getRawTEC(timePeriods[j], timePeriods[j + 1], observations);
+            }
+        }
+    }
+
+    /**
+     * Calculates the raw TEC value, ignoring satellite bias
+     *
+     * @param startIndex the first point in a contiguous time period
+     * @param endIndex the end point in a contiguous time period
+     * @param observations the GPS observations
+     */
+    private static void getRawTEC(int startIndex, int endIndex, ObservationStore observations) {
+        if (startIndex+1 >= endIndex) { // if there's only 1 point, just return
+            return;
+        }
+
+        double[] phase = observations.phase;
+        double[] differentialRange = observations.differentialRange;
+        double[] differentialList = new double[endIndex-startIndex];
+
+        // Find the median difference between the phase and the differential range
+        for (int i = startIndex; i < endIndex; i++) {
+            differentialList[i-startIndex] = (phase[i] - differentialRange[i]);
+        }
+
+        Arrays.sort(differentialList);
+        double medianDifference = differentialList[(differentialList.length/2)];
+        double distributionWidth = differentialList[((int) (differentialList.length*0.75))] -
+                differentialList[((int) (differentialList.length*0.25))];
+
+        // If the sample is too small, set a minimum distribution width
+        if (differentialList.length < 6) {
+            if (distributionWidth < 20.0) {
+                distributionWidth = 20.0;
+            }
+        }
+
+        double medianError = distributionWidth / Math.sqrt(endIndex - startIndex);
+
+        // TEC is phase - medianDifference
+        for (int i = startIndex; i < endIndex; i++) {
+            observations.slantTEC[i] = phase[i] - medianDifference;
+            observations.tecError[i] = medianError;
+        }
+    }
+
+    /**
+     * Returns a list of timesteps that are good (don't have gaps)
+     * A gap is a timestep greater than 3 times the median
+     * A gap is also a change in phase TEC of more than one TECu (possibly due to a phase slip)
+     *
+     * @param data the GPS data, sorted by PRN and time
+     * @param firstIndex the first observation of the satellite to look at
+     * @param lastIndex one past the last observation of the satellite
+     * @return a list of time series
+     */
+    private static int[] analyzeData(ObservationStore data, int firstIndex, int lastIndex) {
+        if (firstIndex == lastIndex) {
+            return null; // no data
+        }
+
+        long[] time = data.timeMillis;
+        double[] phase = data.phase;
+
+        long prevTime = -1;
+        long thisTime;
+        int i;
+
+        long[] timeStepList = new long[lastIndex-firstIndex];
+        for (i = firstIndex; i < lastIndex; i++) {
+            if (prevTime == -1) {
+                firstIndex = i;
+                prevTime = time[i];
+                continue;
+            }
+
+            thisTime = time[i];
+            timeStepList[i-firstIndex] = (thisTime - prevTime);
+
+            prevTime = thisTime;
+        }
+
+        if (timeStepList.length < 3) {
+            return null; // not enough data
+        }
+
+        // sort the timesteps
+        Arrays.sort(timeStepList);
+
+        long medianTimeStep = timeStepList[(timeStepList.length / 2)];
+
+        // break into time periods - the list here stores startIndex, endIndex, startIndex, endIndex, startIndex, ...
+        // Every gap adds an end and a start, so count them first to size the list
+        int gaps = 0;
+        for (i = firstIndex; i < lastIndex - 1; i++) {
+            if (isGap(time, phase, i, medianTimeStep)) {
+                gaps++;
+            }
+        }
+
+        int[] timePeriodList = new int[2 + 2*gaps];
+        int next = 0;
+        timePeriodList[next++] = firstIndex;
+        for (i = firstIndex; i < lastIndex - 1; i++) {
+            if (isGap(time, phase, i, medianTimeStep)) {
+                timePeriodList[next++] = i+1;
+                timePeriodList[next++] = i+1;
+            }
+        }
+        timePeriodList[next] = lastIndex;
+
+        return timePeriodList;
+    }
+
+    /**
+     * @return true if there's a gap between observation i and the one after it, in time or in phase
+     * (probably due to a loss of lock)
+     */
+    private static boolean isGap(long[] time, double[] phase, int i, long medianTimeStep) {
+        return time[i+1] - time[i] > medianTimeStep * GAP
+                || Math.abs(phase[i+1] - phase[i]) > MAX_DIFFERENCE_TEC_VALUE;
+    }
+}
\ No newline at end of file
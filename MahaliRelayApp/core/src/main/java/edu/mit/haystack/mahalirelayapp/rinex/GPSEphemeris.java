@@ -25,7 +25,6 @@ package edu.mit.haystack.mahalirelayapp.rinex;
  * THE SOFTWARE.
  */
 
-import java.util.Calendar;
 import java.util.Date;
 
 import edu.mit.haystack.mcheetah.utils.ParserUtils;
@@ -39,9 +38,9 @@ import edu.mit.haystack.mcheetah.utils.ParserUtils;
  */
 public class GPSEphemeris implements Comparable<GPSEphemeris> {
     /**
-     * The time this ephemeris was sent
+     * The time this ephemeris was sent, in milliseconds since 1970 (see GpsTime)
      */
-    public Date time;
+    public long timeMillis;
 
     /**
      * The satellite PRN for identification
@@ -134,9 +133,6 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
      */
     private double cis;
 
-    private static Calendar cal;
-    private static double[] xyz;
-
     private static final double mu = 3986005.0E8; // universal gravitational constant
     private static final double OeDOT = 7.2921151467E-5;
 
@@ -191,10 +187,7 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
                         double OMEGA_DOT, double deltaN, double cuc, double cus, double crc, double crs,
                         double cic, double cis) {
         this.prn = prn;
-        cal = Calendar.getInstance();
-        cal.set(year, month-1, day, hour, minute, second);
-        cal.set(Calendar.MILLISECOND, 0);
-        this.time = cal.getTime();
+        this.timeMillis = GpsTime.toMillis(year, month, day, hour, minute, second);
         this.toe = toe;
         this.a = sqrtA*sqrtA;
         this.e = e;
@@ -211,8 +204,6 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
         this.crs = crs;
         this.cic = cic;
         this.cis = cis;
-
-        xyz = new double[3];
     }
 
     /**
@@ -232,7 +223,7 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
     public double getRelativisticDelay(float  gpsTime) {
         double n = Math.sqrt(mu/Math.pow(a, 3)) + deltaN;
 
-        double tk = gpsTime - toe;
+        double tk = GpsTime.wrapWeek(gpsTime - toe);
 
         double Mk = m0 + n*tk;
 
@@ -251,11 +242,22 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
      * Algorithm based on http://web.ics.purdue.edu/~ecalais/teaching/geodesy/EAS_591T_2003_lab_4.htm
      */
     public double[] getSatelliteXYZ(Date time) {
-        int gpsTime = getGpsTime(time);
+        return getSatelliteXYZ(time.getTime());
+    }
+
+    /**
+     * Same as getSatelliteXYZ(Date), for a time in milliseconds since 1970 like ObservationStore holds
+     *
+     * @param timeMillis the time of the observation
+     * @return tuple of satellite position at that time in ECEF coordinates
+     */
+    public double[] getSatelliteXYZ(long timeMillis) {
+        int gpsTime = GpsTime.getSecondsOfWeek(timeMillis);
 
         double n = Math.sqrt(mu/(a*a*a)) + deltaN;
 
-        double tk = gpsTime - toe;
+        // The week may have rolled over between the ephemeris and the observation
+        double tk = GpsTime.wrapWeek(gpsTime - toe);
 
         double Mk = m0 + n*tk;
 
@@ -298,6 +300,7 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
         double R31 = sinomega*sini;
         double R32 = cosomega*sini;
 
+        double[] xyz = new double[3];
         xyz[0] = R11*r*cosVk + R12*r*sinVk; // x
         xyz[1] = R21*r*cosVk + R22*r*sinVk; // y
         xyz[2] = R31*r*cosVk + R32*r*sinVk; // z
@@ -390,23 +393,6 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
         return bestGuess;
     }
 
-    /**
-     * Convert a date to GPS time
-     *
-     * @param time the date
-     * @return GPS time for the given date (Sunday midnight is 0)
-     */
-    private static int getGpsTime(Date time) {
-        cal.setTime(time);
-        int total = 0;
-        total += (cal.get(Calendar.DAY_OF_WEEK)-1)*3600*24;
-        total += cal.get(Calendar.HOUR_OF_DAY)*3600;
-        total += cal.get(Calendar.MINUTE)*60;
-        total += cal.get(Calendar.SECOND);
-
-        return total;
-    }
-
     /**
      * Useful for sorting satellite ephemerides
      *
@@ -425,6 +411,11 @@ public class GPSEphemeris implements Comparable<GPSEphemeris> {
         }
 
         // and by time
-        return this.time.compareTo(another.time);
+        if (this.timeMillis < another.timeMillis) {
+            return -1;
+        } else if (this.timeMillis > another.timeMillis) {
+            return 1;
+        }
+        return 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import edu.mit.haystack.mcheetah.parsing.RecordCodec;
+
+/**
+ * @author David Mascharka
+ *
+ * Stores the fields RinexObservationParser sets on each GPSObservation - time, PRN, differential
+ * range and phase - so parsed observation files can be cached on disk
+ *
+ * Elevation and TEC are computed by TECComputer and aren't stored
+ *
+ * Records are decoded into an ObservationStore, and a store is encoded straight from its arrays
+ */
+public class GPSObservationCodec implements RecordCodec<GPSObservation> {
+
+    /**
+     * Bump this whenever RinexObservationParser or this class changes what's stored
+     *
+     * 2: times are read with GpsTime, as UTC, instead of in the device's time zone
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Time (8 bytes), PRN (1 byte), differential range (8 bytes), phase (8 bytes)
+     */
+    private static final int RECORD_BYTES = 8 + 1 + 8 + 8;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public int getRecordBytes() {
+        return RECORD_BYTES;
+    }
+
+    @Override
+    public void encode(List<GPSObservation> records, ByteBuffer out) {
+        if (records instanceof ObservationStore) {
+            encode((ObservationStore) records, out);
+            return;
+        }
+
+        int size = records.size();
+        for (int i = 0; i < size; i++) {
+            out.putLong(records.get(i).time.getTime());
+        }
+        for (int i = 0; i < size; i++) {
+            out.put(records.get(i).prn);
+        }
+        for (int i = 0; i < size; i++) {
+            out.putDouble(records.get(i).differentialRange);
+        }
+        for (int i = 0; i < size; i++) {
+            out.putDouble(records.get(i).phase);
+        }
+    }
+
+    private void encode(ObservationStore store, ByteBuffer out) {
+        int size = store.size();
+        for (int i = 0; i < size; i++) {
+            out.putLong(store.timeMillis[i]);
+        }
+        out.put(store.prn, 0, size);
+        for (int i = 0; i < size; i++) {
+            out.putDouble(store.differentialRange[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            out.putDouble(store.phase[i]);
+        }
+    }
+
+    /**
+     * @return an ObservationStore holding the records
+     */
+    @Override
+    public List<GPSObservation> decode(ByteBuffer in, int count) {
+        ObservationStore store = new ObservationStore(count);
+        for (int i = 0; i < count; i++) {
+            store.add(in.getLong(), (byte) 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        in.get(store.prn, 0, count);
+        for (int i = 0; i < count; i++) {
+            store.differentialRange[i] = in.getDouble();
+        }
+        for (int i = 0; i < count; i++) {
+            store.phase[i] = in.getDouble();
+        }
+
+        return store;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * Converts between calendar fields, milliseconds since 1970, GPS week and seconds of week with
+ * integer arithmetic, instead of going through Calendar and Date
+ *
+ * Times are kept the way RINEX files write them: the calendar fields are read as UTC, with no time
+ * zone and no leap seconds, so a time means the same thing on every device. GPS time doesn't have
+ * leap seconds either, so the week and seconds of week come straight from the milliseconds
+ *
+ * Months are 1-12, not 0-11 like Calendar
+ */
+public class GpsTime {
+
+    public static final int SECONDS_PER_DAY = 24*3600;
+
+    public static final int SECONDS_PER_WEEK = 7*SECONDS_PER_DAY;
+
+    public static final long MILLIS_PER_DAY = SECONDS_PER_DAY*1000L;
+
+    public static final long MILLIS_PER_WEEK = SECONDS_PER_WEEK*1000L;
+
+    /**
+     * GPS week 0 started at midnight on Sunday, January 6 1980
+     */
+    public static final long GPS_EPOCH_MILLIS = 315964800000L;
+
+    /**
+     * Days from March 1 of year 0 to January 1 1970 - the calendar math starts years in March so
+     * leap days come at the end
+     */
+    private static final int DAYS_TO_1970 = 719468;
+
+    private static final int DAYS_PER_400_YEARS = 146097;
+
+    private GpsTime() {} // static class, don't let other classes instantiate this
+
+    /**
+     * @param year the full year, like 2015
+     * @param month 1-12
+     * @param day day of the month, starting at 1
+     * @param hour 0-23
+     * @param minute 0-59
+     * @param second 0-59
+     * @return milliseconds since midnight on January 1 1970
+     */
+    public static long toMillis(int year, int month, int day, int hour, int minute, int second) {
+        return daysFromCivil(year, month, day)*MILLIS_PER_DAY + (hour*3600 + minute*60 + second)*1000L;
+    }
+
+    /**
+     * @param week full GPS week number, counting from January 6 1980 without rolling over
+     * @param secondsOfWeek seconds since midnight Saturday/Sunday
+     * @return milliseconds since midnight on January 1 1970, to the nearest millisecond
+     */
+    public static long toMillis(int week, double secondsOfWeek) {
+        return GPS_EPOCH_MILLIS + week*MILLIS_PER_WEEK + Math.round(secondsOfWeek*1000);
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return the full GPS week number, counting from January 6 1980 without rolling over
+     */
+    public static int getWeek(long timeMillis) {
+        return (int) floorDiv(timeMillis - GPS_EPOCH_MILLIS, MILLIS_PER_WEEK);
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return whole seconds since midnight Saturday/Sunday, 0 to SECONDS_PER_WEEK - 1
+     */
+    public static int getSecondsOfWeek(long timeMillis) {
+        return (int) (floorMod(timeMillis - GPS_EPOCH_MILLIS, MILLIS_PER_WEEK) / 1000);
+    }
+
+    /**
+     * Brings a difference between two times of week, like t - toe for an ephemeris, into
+     * -SECONDS_PER_WEEK/2 to SECONDS_PER_WEEK/2
+     *
+     * Seconds of week go back to 0 every Sunday, so without this a time just after the week rolls
+     * over looks almost a week away from an ephemeris sent just before it
+     *
+     * @param seconds difference between two times of week
+     * @return the same difference, allowing for the week rolling over between the two
+     */
+    public static double wrapWeek(double seconds) {
+        if (seconds > SECONDS_PER_WEEK/2) {
+            return seconds - SECONDS_PER_WEEK;
+        } else if (seconds < -SECONDS_PER_WEEK/2) {
+            return seconds + SECONDS_PER_WEEK;
+        }
+        return seconds;
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return midnight at the start of the same day, in milliseconds since 1970
+     */
+    public static long getStartOfDay(long timeMillis) {
+        return timeMillis - floorMod(timeMillis, MILLIS_PER_DAY);
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return the full year, like 2015
+     */
+    public static int getYear(long timeMillis) {
+        return (int) (civilFromDays(floorDiv(timeMillis, MILLIS_PER_DAY)) >> 9);
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return the month, 1-12
+     */
+    public static int getMonth(long timeMillis) {
+        return (int) (civilFromDays(floorDiv(timeMillis, MILLIS_PER_DAY)) >> 5) & 0xF;
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return the day of the month, starting at 1
+     */
+    public static int getDay(long timeMillis) {
+        return (int) civilFromDays(floorDiv(timeMillis, MILLIS_PER_DAY)) & 0x1F;
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return the hour of the day, 0-23
+     */
+    public static int getHour(long timeMillis) {
+        return (int) (floorMod(timeMillis, MILLIS_PER_DAY) / 3600000);
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return the minute of the hour, 0-59
+     */
+    public static int getMinute(long timeMillis) {
+        return (int) (floorMod(timeMillis, 3600000) / 60000);
+    }
+
+    /**
+     * @param timeMillis milliseconds since 1970
+     * @return the second of the minute, 0-59
+     */
+    public static int getSecond(long timeMillis) {
+        return (int) (floorMod(timeMillis, 60000) / 1000);
+    }
+
+    /**
+     * Days since January 1 1970 of a date, from Howard Hinnant's days_from_civil
+     * http://howardhinnant.github.io/date_algorithms.html
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        // Count years from March so February's leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era*400;
+        long dayOfYear = (153*(month > 2 ? month - 3 : month + 9) + 2)/5 + day - 1;
+        long dayOfEra = yearOfEra*365 + yearOfEra/4 - yearOfEra/100 + dayOfYear;
+        return era*DAYS_PER_400_YEARS + dayOfEra - DAYS_TO_1970;
+    }
+
+    /**
+     * The reverse of daysFromCivil, packed into one long so nothing is allocated: the year is
+     * above bit 9, the month in bits 5-8 and the day in bits 0-4
+     */
+    private static long civilFromDays(long days) {
+        days += DAYS_TO_1970;
+        long era = floorDiv(days, DAYS_PER_400_YEARS);
+        long dayOfEra = days - era*DAYS_PER_400_YEARS;
+        long yearOfEra = (dayOfEra - dayOfEra/1460 + dayOfEra/36524 - dayOfEra/146096) / 365;
+        long dayOfYear = dayOfEra - (365*yearOfEra + yearOfEra/4 - yearOfEra/100);
+        long shiftedMonth = (5*dayOfYear + 2)/153;
+        long day = dayOfYear - (153*shiftedMonth + 2)/5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era*400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y)*y;
+    }
+}
\ No newline at end of file
@@ -24,8 +24,6 @@ package edu.mit.haystack.mahalirelayapp.rinex;
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-import android.util.SparseArray;
-
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
@@ -37,16 +35,19 @@ import edu.mit.haystack.mcheetah.utils.ParserUtils;
  *
  * Class to parse Ionex files to get satelllite biases in TEC units
  *
- * Biases are loaded then retrieved using a hashmap
+ * Biases are loaded then retrieved by PRN from an array
  *
  * Adapted from Bill Rideout's (MIT Haystack) Python module
  */
 public class IonexParser {
 
-    private static SparseArray<Double> biases;
+    /**
+     * Satellite biases in TECu indexed by PRN - PRNs are stored in a byte so there are at most 128
+     */
+    private double[] biases;
 
     public IonexParser() {
-        biases = new SparseArray<Double>();
+        biases = new double[Byte.MAX_VALUE + 1];
     }
 
     public void parse(File ionexFile) {
@@ -84,7 +85,9 @@ public class IonexParser {
 
                         double bias = ParserUtils.parseDouble(items[1]) * conversionFactor;
 
-                        biases.put(id, bias);
+                        if (id >= 0 && id < biases.length) {
+                            biases[id] = bias;
+                        }
                     } catch (Exception e) {
                         // We'll end up here after we finish reading data
                         return;
@@ -103,10 +106,10 @@ public class IonexParser {
      * @return the satellite's bias in TECu
      */
     public double getBias(byte prn) {
-        if (biases.indexOfKey(prn) == -1) {
+        if (prn < 0) {
             return 0;
         }
 
-        return biases.get(prn);
+        return biases[prn];
     }
 }
\ No newline at end of file
@@ -25,9 +25,6 @@ package edu.mit.haystack.mahalirelayapp.rinex;
  * THE SOFTWARE.
  */
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * @author David Mascharka
  *
@@ -44,9 +41,9 @@ public class MahaliObservation {
     public double receiverY;
     public double receiverZ;
 
-    public List<GPSObservation> observations;
+    public ObservationStore observations;
 
     public MahaliObservation() {
-        observations = new ArrayList<GPSObservation>(); //Collections.synchronizedList(new ArrayList<GPSObservation>());
+        observations = new ObservationStore();
     }
 }
\ No newline at end of file
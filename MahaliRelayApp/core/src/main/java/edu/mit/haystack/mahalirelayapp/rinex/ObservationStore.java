@@ -0,0 +1,585 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * @author David Mascharka
+ *
+ * Holds GPS observations as parallel arrays of primitives instead of a GPSObservation object each
+ *
+ * A day of 1 Hz data is around a million observations. As objects every one of them also has an
+ * object header, a Date and a reference in a list. Here an observation is only its fields, and going
+ * through one field of every observation (all the phases, say) reads memory in order
+ *
+ * Observation i is timeMillis[i], prn[i], phase[i] and so on, the same as the GPSObservation fields
+ * of the same names. The arrays are longer than size() and are replaced when the store grows or is
+ * sorted, so read the fields again after adding or sorting
+ *
+ * This is also a List of GPSObservations so it can go anywhere a list can, like
+ * DataProcessEngine.setDataObject. get makes a new GPSObservation holding a copy of the
+ * observation - changing that object doesn't change the store, use set. addAll copies another store,
+ * or a subList of one, straight from its arrays
+ *
+ * Note that this class is NOT thread safe
+ */
+public class ObservationStore extends AbstractList<GPSObservation> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    public long[] timeMillis;
+    public byte[] prn;
+    public double[] elevation;
+    public double[] differentialRange;
+    public double[] phase;
+    public double[] slantTEC;
+    public double[] tecError;
+    public double[] verticalTEC;
+
+    private int size;
+
+    public ObservationStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity how many observations to make room for
+     */
+    public ObservationStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        timeMillis = new long[capacity];
+        prn = new byte[capacity];
+        elevation = new double[capacity];
+        differentialRange = new double[capacity];
+        phase = new double[capacity];
+        slantTEC = new double[capacity];
+        tecError = new double[capacity];
+        verticalTEC = new double[capacity];
+    }
+
+    /**
+     * @param observations the observations to copy in, in order
+     */
+    public ObservationStore(Collection<? extends GPSObservation> observations) {
+        this(observations.size());
+        addAll(observations);
+    }
+
+    /**
+     * Adds a newly parsed observation, with the fields that are computed later unset the same as
+     * a new GPSObservation
+     *
+     * @param time the time of the observation, in milliseconds since 1970
+     * @param satellite the PRN of the satellite
+     * @param range the differential range in TECu
+     * @param phaseTEC the phase in TECu
+     * @return the index of the new observation
+     */
+    public int add(long time, byte satellite, double range, double phaseTEC) {
+        ensureCapacity(size + 1);
+        int i = size;
+        timeMillis[i] = time;
+        prn[i] = satellite;
+        elevation[i] = Integer.MAX_VALUE;
+        differentialRange[i] = range;
+        phase[i] = phaseTEC;
+        slantTEC[i] = Integer.MAX_VALUE;
+        tecError[i] = Integer.MAX_VALUE;
+        verticalTEC[i] = 0;
+        size++;
+        modCount++;
+        return i;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a new GPSObservation with a copy of observation i
+     */
+    @Override
+    public GPSObservation get(int index) {
+        checkIndex(index, size);
+        GPSObservation o = new GPSObservation();
+        o.time = new Date(timeMillis[index]);
+        o.prn = prn[index];
+        o.elevation = elevation[index];
+        o.differentialRange = differentialRange[index];
+        o.phase = phase[index];
+        o.slantTEC = slantTEC[index];
+        o.tecError = tecError[index];
+        o.verticalTEC = verticalTEC[index];
+        return o;
+    }
+
+    @Override
+    public GPSObservation set(int index, GPSObservation o) {
+        GPSObservation previous = get(index);
+        write(index, o);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, GPSObservation o) {
+        checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+        moveRows(index, index + 1, size - index);
+        size++;
+        write(index, o);
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends GPSObservation> c) {
+        ObservationStore other;
+        int from;
+        int count;
+        if (c instanceof ObservationStore) {
+            other = (ObservationStore) c;
+            from = 0;
+            count = other.size;
+        } else if (c instanceof Rows) {
+            Rows rows = (Rows) c;
+            rows.checkForComodification();
+            other = rows.store;
+            from = rows.offset;
+            count = rows.size;
+        } else {
+            return super.addAll(c);
+        }
+
+        ensureCapacity(size + count);
+        System.arraycopy(other.timeMillis, from, timeMillis, size, count);
+        System.arraycopy(other.prn, from, prn, size, count);
+        System.arraycopy(other.elevation, from, elevation, size, count);
+        System.arraycopy(other.differentialRange, from, differentialRange, size, count);
+        System.arraycopy(other.phase, from, phase, size, count);
+        System.arraycopy(other.slantTEC, from, slantTEC, size, count);
+        System.arraycopy(other.tecError, from, tecError, size, count);
+        System.arraycopy(other.verticalTEC, from, verticalTEC, size, count);
+        size += count;
+        modCount++;
+        return count > 0;
+    }
+
+    /**
+     * A view of observations fromIndex to toIndex, like any List's subList. Adding it to another
+     * store copies the rows straight from this store's arrays
+     */
+    @Override
+    public List<GPSObservation> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+        }
+        return new Rows(this, fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public GPSObservation remove(int index) {
+        GPSObservation previous = get(index);
+        moveRows(index + 1, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        moveRows(toIndex, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Sorts by PRN, then time - the same order as GPSObservation.compareTo, and stable like
+     * Collections.sort
+     *
+     * PRNs are counted into place, then each satellite's observations are sorted by time if they
+     * aren't already. Observations come out of a file in time order, so that's usually nothing
+     */
+    public void sort() {
+        // Where each PRN's observations go, PRNs are bytes so -128 goes first
+        int[] starts = new int[257];
+        for (int i = 0; i < size; i++) {
+            starts[prn[i] + 129]++;
+        }
+        for (int p = 1; p < starts.length; p++) {
+            starts[p] += starts[p-1];
+        }
+
+        int[] order = new int[size];
+        int[] next = Arrays.copyOf(starts, starts.length);
+        for (int i = 0; i < size; i++) {
+            order[next[prn[i] + 128]++] = i;
+        }
+
+        int[] scratch = null;
+        for (int p = 0; p < 256; p++) {
+            int from = starts[p];
+            int to = starts[p+1];
+            for (int i = from + 1; i < to; i++) {
+                if (timeMillis[order[i]] < timeMillis[order[i-1]]) {
+                    if (scratch == null) {
+                        scratch = new int[size];
+                    }
+                    sortByTime(order, scratch, from, to);
+                    break;
+                }
+            }
+        }
+
+        permute(order);
+    }
+
+    /**
+     * Sorts by time only, stable like Collections.sort, so observations from the same epoch stay
+     * in PRN order after sort()
+     */
+    public void sortByTime() {
+        int[] order = new int[size];
+        boolean sorted = true;
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            sorted &= i == 0 || timeMillis[i-1] <= timeMillis[i];
+        }
+        if (sorted) {
+            return;
+        }
+
+        sortByTime(order, new int[size], 0, size);
+        permute(order);
+    }
+
+    /**
+     * Finds the observations whose slant TEC is below a limit, in time order, without changing the
+     * store - so a view of the data doesn't move rows other threads are indexing
+     *
+     * @param limit the lowest slant TEC to leave out
+     * @return the indices of those observations, sorted by time and stable like sortByTime
+     */
+    public int[] rowsByTime(double limit) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (slantTEC[i] < limit) {
+                count++;
+            }
+        }
+
+        int[] rows = new int[count];
+        boolean sorted = true;
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            if (slantTEC[i] < limit) {
+                sorted &= k == 0 || timeMillis[rows[k-1]] <= timeMillis[i];
+                rows[k++] = i;
+            }
+        }
+        if (!sorted) {
+            sortByTime(rows, new int[count], 0, count);
+        }
+        return rows;
+    }
+
+    /**
+     * Merge sorts part of order by the time of the observations it points to
+     */
+    private void sortByTime(int[] order, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByTime(order, scratch, from, middle);
+        sortByTime(order, scratch, middle, to);
+        if (timeMillis[order[middle-1]] <= timeMillis[order[middle]]) {
+            return;
+        }
+
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            // Take from the left on ties to keep the sort stable
+            if (right >= to || (left < middle && timeMillis[scratch[left]] <= timeMillis[scratch[right]])) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * Rearranges every field so observation i is the one that was at order[i]
+     */
+    private void permute(int[] order) {
+        long[] times = new long[timeMillis.length];
+        for (int i = 0; i < size; i++) {
+            times[i] = timeMillis[order[i]];
+        }
+        timeMillis = times;
+
+        byte[] prns = new byte[prn.length];
+        for (int i = 0; i < size; i++) {
+            prns[i] = prn[order[i]];
+        }
+        prn = prns;
+
+        // Each column that's been moved out of is reused for the next one
+        double[][] columns = {elevation, differentialRange, phase, slantTEC, tecError, verticalTEC};
+        double[] spare = new double[phase.length];
+        for (int c = 0; c < columns.length; c++) {
+            double[] column = columns[c];
+            for (int i = 0; i < size; i++) {
+                spare[i] = column[order[i]];
+            }
+            columns[c] = spare;
+            spare = column;
+        }
+        elevation = columns[0];
+        differentialRange = columns[1];
+        phase = columns[2];
+        slantTEC = columns[3];
+        tecError = columns[4];
+        verticalTEC = columns[5];
+    }
+
+    /**
+     * Only works once the store is sorted
+     *
+     * @param satellite the PRN to look for
+     * @return the index of the first observation of the satellite, or where it would be if there
+     * aren't any
+     */
+    public int prnStart(byte satellite) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prn[middle] < satellite) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Only works once the store is sorted
+     *
+     * @param satellite the PRN to look for
+     * @return one past the index of the last observation of the satellite. Equal to prnStart if
+     * there aren't any
+     */
+    public int prnEnd(byte satellite) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prn[middle] <= satellite) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Removes every observation whose slant TEC is limit or more, keeping the rest in order. Slant
+     * TEC is Integer.MAX_VALUE until it's computed, so this can take out observations TEC couldn't
+     * be computed for
+     *
+     * @param limit the lowest slant TEC to remove
+     * @return how many observations were removed
+     */
+    public int retainSlantTECBelow(double limit) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (slantTEC[i] >= limit) {
+                continue;
+            }
+            if (kept != i) {
+                timeMillis[kept] = timeMillis[i];
+                prn[kept] = prn[i];
+                elevation[kept] = elevation[i];
+                differentialRange[kept] = differentialRange[i];
+                phase[kept] = phase[i];
+                slantTEC[kept] = slantTEC[i];
+                tecError[kept] = tecError[i];
+                verticalTEC[kept] = verticalTEC[i];
+            }
+            kept++;
+        }
+
+        int removed = size - kept;
+        if (removed > 0) {
+            size = kept;
+            modCount++;
+        }
+        return removed;
+    }
+
+    /**
+     * Makes sure there's room for some number of observations without growing again
+     *
+     * @param capacity the number of observations
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= timeMillis.length) {
+            return;
+        }
+
+        capacity = Math.max(capacity, timeMillis.length + (timeMillis.length >> 1));
+        timeMillis = Arrays.copyOf(timeMillis, capacity);
+        prn = Arrays.copyOf(prn, capacity);
+        elevation = Arrays.copyOf(elevation, capacity);
+        differentialRange = Arrays.copyOf(differentialRange, capacity);
+        phase = Arrays.copyOf(phase, capacity);
+        slantTEC = Arrays.copyOf(slantTEC, capacity);
+        tecError = Arrays.copyOf(tecError, capacity);
+        verticalTEC = Arrays.copyOf(verticalTEC, capacity);
+    }
+
+    private void moveRows(int from, int to, int count) {
+        System.arraycopy(timeMillis, from, timeMillis, to, count);
+        System.arraycopy(prn, from, prn, to, count);
+        System.arraycopy(elevation, from, elevation, to, count);
+        System.arraycopy(differentialRange, from, differentialRange, to, count);
+        System.arraycopy(phase, from, phase, to, count);
+        System.arraycopy(slantTEC, from, slantTEC, to, count);
+        System.arraycopy(tecError, from, tecError, to, count);
+        System.arraycopy(verticalTEC, from, verticalTEC, to, count);
+    }
+
+    private void write(int index, GPSObservation o) {
+        timeMillis[index] = o.time.getTime();
+        prn[index] = o.prn;
+        elevation[index] = o.elevation;
+        differentialRange[index] = o.differentialRange;
+        phase[index] = o.phase;
+        slantTEC[index] = o.slantTEC;
+        tecError[index] = o.tecError;
+        verticalTEC[index] = o.verticalTEC;
+    }
+
+    /**
+     * @param limit one past the highest index allowed
+     */
+    private void checkIndex(int index, int limit) {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Part of a store, see subList
+     */
+    private static class Rows extends AbstractList<GPSObservation> implements RandomAccess {
+        private final ObservationStore store;
+        private final int offset;
+        private int size;
+
+        /**
+         * The store's modCount as of the last change made through this view
+         */
+        private int expectedModCount;
+
+        Rows(ObservationStore store, int offset, int size) {
+            this.store = store;
+            this.offset = offset;
+            this.size = size;
+            expectedModCount = store.modCount;
+        }
+
+        @Override
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        @Override
+        public GPSObservation get(int index) {
+            checkForComodification();
+            checkIndex(index, size);
+            return store.get(offset + index);
+        }
+
+        @Override
+        public GPSObservation set(int index, GPSObservation o) {
+            checkForComodification();
+            checkIndex(index, size);
+            return store.set(offset + index, o);
+        }
+
+        @Override
+        public void add(int index, GPSObservation o) {
+            checkForComodification();
+            checkIndex(index, size + 1);
+            store.add(offset + index, o);
+            expectedModCount = store.modCount;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public GPSObservation remove(int index) {
+            checkForComodification();
+            checkIndex(index, size);
+            GPSObservation previous = store.remove(offset + index);
+            expectedModCount = store.modCount;
+            size--;
+            modCount++;
+            return previous;
+        }
+
+        private void checkIndex(int index, int limit) {
+            if (index < 0 || index >= limit) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+
+        void checkForComodification() {
+            if (store.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -25,7 +25,6 @@ package edu.mit.haystack.mahalirelayapp.rinex;
  * THE SOFTWARE.
  */
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -34,6 +33,7 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 
 import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.utils.LineReader;
 import edu.mit.haystack.mcheetah.utils.ParserUtils;
 
 public class RinexNavigationParser implements Parser<GPSEphemeris> {
@@ -50,13 +50,9 @@ public class RinexNavigationParser implements Parser<GPSEphemeris> {
         }
 
 
-        InputStreamReader inputReader;
-        BufferedReader fileReader;
+        // Fields are parsed in place in the line, so no Strings are made for them
+        LineReader line = new LineReader(new InputStreamReader(inputStream));
 
-        inputReader = new InputStreamReader(inputStream);
-        fileReader = new BufferedReader(inputReader);
-
-        String line = "";
         byte lineNumber = -1; // only goes to 8
         byte prn = 0;       // range 1-32
         short year = 0;     // 1981-2079
@@ -88,46 +84,46 @@ public class RinexNavigationParser implements Parser<GPSEphemeris> {
         // All the ephemeris information is in the same order and is always the same information
         // File format specified at: ftp://igscb.jpl.nasa.gov/igscb/data/format/rinex210.txt
         try {
-            while ((line = fileReader.readLine()) != null) {
+            while (line.readLine()) {
                 if (lineNumber == -1) {
                     if (line.contains("END OF HEADER")) {
                         lineNumber = 0;
                     }
                 } else if (lineNumber == 0) {
-                    prn = ParserUtils.parseByte(line.substring(0, 2));
-                    year = ParserUtils.parseShort(line.substring(2, 5));
+                    prn = ParserUtils.parseByte(line, 0, 2);
+                    year = ParserUtils.parseShort(line, 2, 3);
                     year += year < 80 ? 2000 : 1900;
-                    month = ParserUtils.parseByte(line.substring(5, 8));
-                    day = ParserUtils.parseByte(line.substring(8, 11));
-                    hour = ParserUtils.parseByte(line.substring(11, 14));
-                    minute = ParserUtils.parseByte(line.substring(14, 17));
-                    second = (byte) ParserUtils.parseDouble(line.substring(17, 22));
+                    month = ParserUtils.parseByte(line, 5, 3);
+                    day = ParserUtils.parseByte(line, 8, 3);
+                    hour = ParserUtils.parseByte(line, 11, 3);
+                    minute = ParserUtils.parseByte(line, 14, 3);
+                    second = (byte) ParserUtils.parseDouble(line, 17, 5);
                     lineNumber = 1;
                 } else if (lineNumber == 1) {
-                    crs = ParserUtils.parseDouble(line.substring(22, 41));
-                    deltaN = ParserUtils.parseDouble(line.substring(41, 60));
-                    m0 = ParserUtils.parseDouble(line.substring(60));
+                    crs = ParserUtils.parseDouble(line, 22, 19);
+                    deltaN = ParserUtils.parseDouble(line, 41, 19);
+                    m0 = ParserUtils.parseDouble(line, 60, line.length() - 60);
                     lineNumber = 2;
                 } else if (lineNumber == 2) {
-                    cuc = ParserUtils.parseDouble(line.substring(0, 22));
-                    e = ParserUtils.parseDouble(line.substring(22, 41));
-                    cus = ParserUtils.parseDouble(line.substring(41, 60));
-                    sqrtA = ParserUtils.parseDouble(line.substring(60));
+                    cuc = ParserUtils.parseDouble(line, 0, 22);
+                    e = ParserUtils.parseDouble(line, 22, 19);
+                    cus = ParserUtils.parseDouble(line, 41, 19);
+                    sqrtA = ParserUtils.parseDouble(line, 60, line.length() - 60);
                     lineNumber = 3;
                 } else if (lineNumber == 3) {
-                    toe = ParserUtils.parseDouble(line.substring(0, 22));
-                    cic = ParserUtils.parseDouble(line.substring(22, 41));
-                    OMEGA = ParserUtils.parseDouble(line.substring(41, 60));
-                    cis = ParserUtils.parseDouble(line.substring(60));
+                    toe = ParserUtils.parseDouble(line, 0, 22);
+                    cic = ParserUtils.parseDouble(line, 22, 19);
+                    OMEGA = ParserUtils.parseDouble(line, 41, 19);
+                    cis = ParserUtils.parseDouble(line, 60, line.length() - 60);
                     lineNumber  = 4;
                 } else if (lineNumber == 4) {
-                    i0 = ParserUtils.parseDouble(line.substring(0, 22));
-                    crc = ParserUtils.parseDouble(line.substring(22, 41));
-                    omega = ParserUtils.parseDouble(line.substring(41, 60));
-                    OMEGA_DOT = ParserUtils.parseDouble(line.substring(60));
+                    i0 = ParserUtils.parseDouble(line, 0, 22);
+                    crc = ParserUtils.parseDouble(line, 22, 19);
+                    omega = ParserUtils.parseDouble(line, 41, 19);
+                    OMEGA_DOT = ParserUtils.parseDouble(line, 60, line.length() - 60);
                     lineNumber = 5;
                 } else if (lineNumber == 5) {
-                    IDOT = ParserUtils.parseDouble(line.substring(0, 22));
+                    IDOT = ParserUtils.parseDouble(line, 0, 22);
                     lineNumber = 6;
                 } else {
                     lineNumber++;
@@ -0,0 +1,723 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import edu.mit.haystack.mahalirelayapp.MahaliData;
+import edu.mit.haystack.mcheetah.parsing.AbstractStreamingParser;
+import edu.mit.haystack.mcheetah.parsing.CollectingSink;
+import edu.mit.haystack.mcheetah.parsing.DataSink;
+import edu.mit.haystack.mcheetah.parsing.EpochSink;
+import edu.mit.haystack.mcheetah.parsing.FileSplit;
+import edu.mit.haystack.mcheetah.parsing.HeaderParser;
+import edu.mit.haystack.mcheetah.parsing.ListSink;
+import edu.mit.haystack.mcheetah.parsing.SplittableParser;
+import edu.mit.haystack.mcheetah.utils.MappedLineReader;
+import edu.mit.haystack.mcheetah.utils.ParserUtils;
+import edu.mit.haystack.mcheetah.utils.RangeInputStream;
+import edu.mit.haystack.mcheetah.utils.Tokenizer;
+
+/**
+ * @author David Mascharka
+ *
+ * Reads in and parses a RINEX observation file
+ *
+ * Observations are passed on as soon as they are read, so a full day of data never has to be held
+ * by the parser at once
+ *
+ * Large files can be split at epoch boundaries so different threads parse different parts of the
+ * same day. The header is read once in split() and shared by every split
+ *
+ * Problems with the file are reported by throwing an IOException with a message that can be shown
+ * to the user
+ */
+public class RinexObservationParser extends AbstractStreamingParser<GPSObservation>
+        implements SplittableParser<GPSObservation>, HeaderParser {
+
+    private static final double L1_VALUE_TO_METERS = 3.0E8/(154.0*10.23E6);
+    private static final double L2_VALUE_TO_METERS = 3.0E8/(120.0*10.23E6);
+    private static final double F2_F1_FACTOR = 1.545727;
+    private static final double METERS_TO_TEC = 6.158;
+
+    /**
+     * Epoch lines are recognized by their first 29 characters
+     */
+    private static final int EPOCH_LINE_CHECK_LENGTH = 29;
+
+    /**
+     * Observation lines hold 5 observation types, each in a 16 character field. The first 14
+     * characters are the value, the last two are the loss of lock and signal strength indicators
+     */
+    private static final int LINE_LENGTH = 80;
+    private static final int TYPES_PER_LINE = 5;
+    private static final int FIELD_SPACING = 16;
+    private static final int FIELD_LENGTH = 14;
+
+    /**
+     * What we need from the header to parse the observations: where the few fields TEC needs are
+     * in an observation. Worked out once per file so the observation loop never looks at the
+     * observation types, and never touches the fields it doesn't use
+     */
+    private static class Header {
+        // Where L1 and L2 start in the record
+        int offsetL1;
+        int offsetL2;
+
+        // The pseudorange pairs to difference, in the order they're tried: P2-P1, P2-C1, then C2-C1.
+        // Each pair is the offset of the second frequency's field then the first's. Only pairs the
+        // file has both fields of are here
+        int[] rangeOffsets;
+
+        // How many columns of each line of an observation have to be copied into the record to
+        // cover the fields above. 0 for lines that have none of them, which are read but not copied
+        int[] lineColumns;
+    }
+
+    /**
+     * Holds the lines of one satellite's observation for easier indexing, so every observation type
+     * is at a fixed offset even when the observation takes up multiple lines
+     *
+     * Kept between files since a parser thread reuses this parser for every file it parses
+     */
+    private byte[] record = new byte[LINE_LENGTH];
+
+    /**
+     * The PRNs of the current epoch, reused for every epoch
+     */
+    private final byte[] prns = new byte[Byte.MAX_VALUE];
+
+    /**
+     * Splits the epoch lines without making any Strings. An 80 character line can't have more
+     * than 40 tokens
+     */
+    private final Tokenizer tokenizer = new Tokenizer(new int[LINE_LENGTH]);
+
+    /**
+     * Reads in and parses a RINEX observation file
+     *
+     * @param obsFile the observation file to parse
+     * @param density the density of data to process (every epoch, every third epoch, every n epochs)
+     * @param sink receives each observation as it is parsed
+     * @throws IOException if the file can't be read or is missing observation types needed for TEC
+     */
+    @Override
+    public void parse(File obsFile, int density, DataSink<GPSObservation> sink) throws IOException {
+        MappedLineReader fileReader = openFile(obsFile);
+
+        try {
+            Header header = readHeader(fileReader, obsFile.getName());
+            parseObservations(fileReader, header, density, sink);
+        } catch (EOFException e) {
+            // This should never happen - the file ended in the middle of an epoch
+            throw new IOException("Unexpected end of file " + obsFile.getName(), e);
+        } finally {
+            fileReader.close();
+        }
+    }
+
+    /**
+     * Reads in and parses a RINEX observation file straight into the columns of a store, without
+     * making an object for each observation or a Date for each epoch
+     *
+     * @param obsFile the observation file to parse
+     * @param density the density of data to process (every epoch, every third epoch, every n epochs)
+     * @param store the observations are added to the end of this
+     * @throws IOException if the file can't be read or is missing observation types needed for TEC
+     */
+    public void parse(File obsFile, int density, ObservationStore store) throws IOException {
+        parse(obsFile, density, new ListSink<GPSObservation>(store));
+    }
+
+    /**
+     * Reads only the header of a RINEX observation file, to set the receiver position in MahaliData
+     * when the observations come from the parsed data cache
+     *
+     * @param obsFile the observation file
+     * @throws IOException if the file can't be read or is missing observation types needed for TEC
+     */
+    @Override
+    public void parseHeader(File obsFile) throws IOException {
+        MappedLineReader fileReader = openFile(obsFile);
+        try {
+            readHeader(fileReader, obsFile.getName());
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of file " + obsFile.getName(), e);
+        } finally {
+            fileReader.close();
+        }
+    }
+
+    /**
+     * Splits a RINEX observation file into pieces that each start at an epoch
+     *
+     * @param obsFile the observation file to split
+     * @param maxSplits the most splits to make
+     * @return the splits, in file order
+     * @throws IOException if the file can't be read or is missing observation types needed for TEC
+     */
+    @Override
+    public List<FileSplit> split(File obsFile, int maxSplits) throws IOException {
+        Header header;
+        MappedLineReader fileReader = openFile(obsFile);
+        try {
+            header = readHeader(fileReader, obsFile.getName());
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of file " + obsFile.getName(), e);
+        } finally {
+            fileReader.close();
+        }
+
+        long length = obsFile.length();
+        long bodyStart = findBodyStart(obsFile);
+        long step = (length - bodyStart) / Math.max(1, maxSplits);
+
+        List<FileSplit> splits = new ArrayList<FileSplit>(maxSplits);
+        long start = bodyStart;
+        for (int i = 1; i < maxSplits && start < length; i++) {
+            // Aim for evenly sized pieces, then move forward to the next epoch
+            long end = findEpochStart(obsFile, Math.max(start + 1, bodyStart + i*step), length);
+            splits.add(new FileSplit(obsFile, start, end, header));
+            start = end;
+        }
+        if (start < length) {
+            splits.add(new FileSplit(obsFile, start, length, header));
+        }
+
+        return splits;
+    }
+
+    /**
+     * Parses one split of a RINEX observation file
+     *
+     * @param split the piece of the file to parse, from split()
+     * @param density the density of data to process (every epoch, every third epoch, every n epochs)
+     * @param sink receives each observation as it is parsed
+     * @throws IOException if the file can't be read
+     */
+    @Override
+    public void parse(FileSplit split, int density, DataSink<GPSObservation> sink) throws IOException {
+        MappedLineReader fileReader = new MappedLineReader(split.file, split.start, split.end);
+
+        try {
+            parseObservations(fileReader, (Header) split.header, density, sink);
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of file " + split.file.getName(), e);
+        } finally {
+            fileReader.close();
+        }
+    }
+
+    /**
+     * Parses one split of a RINEX observation file into the columns of a store
+     *
+     * @param split the piece of the file to parse, from split()
+     * @param density the density of data to process (every epoch, every third epoch, every n epochs)
+     * @param store the observations are added to the end of this
+     * @throws IOException if the file can't be read
+     */
+    public void parse(FileSplit split, int density, ObservationStore store) throws IOException {
+        parse(split, density, new ListSink<GPSObservation>(store));
+    }
+
+    /**
+     * Open a RINEX file for reading
+     *
+     * @param obsFile the file to open
+     * @return a reader at the start of the file
+     * @throws IOException if the file doesn't exist or can't be read
+     */
+    private static MappedLineReader openFile(File obsFile) throws IOException {
+        // Try to read the file. Notify the user if there is an error
+        try {
+            return new MappedLineReader(obsFile);
+        } catch (FileNotFoundException e) {
+            throw new FileNotFoundException("File not found: " + obsFile.getName());
+        }
+    }
+
+    /**
+     * Reads the header, leaving the reader at the first epoch
+     *
+     * Also sets the receiver position in MahaliData if the header has one
+     *
+     * @param fileReader reader at the start of the file
+     * @param fileName the name of the file, for error messages
+     * @return the header information needed to parse observations
+     * @throws IOException if the file is missing observation types needed for TEC
+     */
+    private static Header readHeader(MappedLineReader fileReader, String fileName) throws IOException {
+        String line; // the contents of the line in the file
+        String[] items;
+
+        // how many observation types are in the obs file (won't be > 255, ever)
+        byte numObservationTypes = 0;
+        List<String> obsList = null;
+
+        while (fileReader.readLine()) {
+            // Header lines are only read once per file, so it's fine to make Strings of them
+            line = fileReader.toString();
+
+            // contains is fine, doesn't make a new object
+            if (line.contains("APPROX POSITION XYZ")) {
+                // Read in the position of the receiver
+                // If the receiver does not record position information, this will be (0,0,0) and
+                // will be computed
+                String[] positionStr = ParserUtils.splitSpace(line);
+
+                // In ECEF coordinates
+                MahaliData.mahaliX = ParserUtils.parseDouble(positionStr[0]);
+                MahaliData.mahaliY = ParserUtils.parseDouble(positionStr[1]);
+                MahaliData.mahaliZ = ParserUtils.parseDouble(positionStr[2]);
+            } else if (line.contains("TYPES OF OBSERV")) {
+                items = ParserUtils.splitSpace(line);
+
+                // find how many observation types there are
+                numObservationTypes = ParserUtils.parseByte(items[0]);
+
+                obsList = new ArrayList<String>(numObservationTypes);
+
+                for (byte i = 1; i <= numObservationTypes && i < items.length; i++) {
+                    if (items[i].contains("#")) {
+                        obsList.add(items[i].substring(0, items[i].indexOf("#")));
+                        break;
+                    }
+                    obsList.add(items[i]);
+                }
+
+                if (numObservationTypes > 9) {
+                    // there's another line of observation stuff
+                    nextLine(fileReader);
+                    items = ParserUtils.splitSpace(fileReader.toString());
+
+                    for (byte i = 0; obsList.size() < numObservationTypes && i < items.length; i++) {
+                        obsList.add(items[i]);
+                    }
+                }
+
+                // Make sure the required observations are found
+                if (!obsList.contains("L1") || !obsList.contains("L2")) {
+                    throw new IOException("Missing L1 or L2 in " + fileName);
+                }
+
+                if (!obsList.contains("P1") && !obsList.contains("C1")) {
+                    throw new IOException("Missing P1 and C1 in " + fileName);
+                }
+                if (!obsList.contains("P2") && !obsList.contains("C2")) {
+                    throw new IOException("Missing P2 and C2 in " + fileName);
+                }
+            } else if (line.contains("END OF HEADER")) {
+                if (obsList == null) {
+                    throw new IOException("Missing TYPES OF OBSERV in " + fileName);
+                }
+
+                return compileHeader(numObservationTypes, obsList);
+            }
+        }
+
+        throw new IOException("Missing END OF HEADER in " + fileName);
+    }
+
+    /**
+     * Works out where the fields TEC needs are in an observation
+     *
+     * @param numObservationTypes how many observation types each observation has
+     * @param obsList the observation types, in file order
+     * @return the header, with only the fields that will be parsed
+     */
+    private static Header compileHeader(byte numObservationTypes, List<String> obsList) {
+        Header header = new Header();
+
+        byte indexL1 = (byte) obsList.indexOf("L1");
+        byte indexL2 = (byte) obsList.indexOf("L2");
+        byte indexP1 = (byte) obsList.indexOf("P1");
+        byte indexP2 = (byte) obsList.indexOf("P2");
+        byte indexC1 = (byte) obsList.indexOf("C1");
+        byte indexC2 = (byte) obsList.indexOf("C2");
+
+        header.offsetL1 = fieldOffset(indexL1);
+        header.offsetL2 = fieldOffset(indexL2);
+
+        byte[][] pairs = {{indexP2, indexP1}, {indexP2, indexC1}, {indexC2, indexC1}};
+        int[] rangeOffsets = new int[2*pairs.length];
+        int count = 0;
+        for (byte[] pair : pairs) {
+            if (pair[0] >= 0 && pair[1] >= 0) {
+                rangeOffsets[count++] = fieldOffset(pair[0]);
+                rangeOffsets[count++] = fieldOffset(pair[1]);
+            }
+        }
+        header.rangeOffsets = Arrays.copyOf(rangeOffsets, count);
+
+        int linesPerObservation = (numObservationTypes + TYPES_PER_LINE - 1) / TYPES_PER_LINE;
+        header.lineColumns = new int[linesPerObservation];
+        useField(header.lineColumns, header.offsetL1);
+        useField(header.lineColumns, header.offsetL2);
+        for (int offset : header.rangeOffsets) {
+            useField(header.lineColumns, offset);
+        }
+
+        return header;
+    }
+
+    /**
+     * Marks the columns of a field as needing to be copied into the record
+     */
+    private static void useField(int[] lineColumns, int offset) {
+        int line = offset / LINE_LENGTH;
+        if (line < lineColumns.length) {
+            lineColumns[line] = Math.max(lineColumns[line], offset % LINE_LENGTH + FIELD_LENGTH);
+        }
+    }
+
+    /**
+     * Reads observations until the reader runs out
+     *
+     * Epochs are counted from 0 and epochs 0, density, 2*density, ... are parsed. If the sink is an
+     * EpochSink it picks the epochs instead
+     *
+     * Observation lines are parsed in place in the reader's buffer, so the only objects made per
+     * observation are the observations themselves. If the sink collects into an ObservationStore
+     * (see CollectingSink) observations are added straight to the store's columns, and there are
+     * none at all
+     *
+     * @param fileReader reader positioned at the start of an epoch
+     * @param header the file's header information
+     * @param density the density of data to process (every epoch, every third epoch, every n epochs)
+     * @param sink receives each observation as it is parsed
+     * @throws IOException if the file can't be read
+     */
+    @SuppressWarnings("unchecked")
+    private void parseObservations(MappedLineReader fileReader, Header header, int density,
+                                   DataSink<GPSObservation> sink) throws IOException {
+        int observationNumber = 0;
+
+        EpochSink<GPSObservation> epochSink = sink instanceof EpochSink ? (EpochSink<GPSObservation>) sink : null;
+
+        // The sink's store can change after each observation added to it, so this is only kept to
+        // ask for the store again
+        CollectingSink<GPSObservation> storeSink = null;
+        if (sink instanceof CollectingSink
+                && ((CollectingSink<GPSObservation>) sink).getList() instanceof ObservationStore) {
+            storeSink = (CollectingSink<GPSObservation>) sink;
+        }
+
+        // Cache these from the header to save a bunch of lookups
+        int offsetL1 = header.offsetL1;
+        int offsetL2 = header.offsetL2;
+        int[] rangeOffsets = header.rangeOffsets;
+        int[] lineColumns = header.lineColumns;
+
+        // 5 observations fit on a line so each satellite takes up (numberOfObservationTypes / 5) lines
+        int linesPerObservation = lineColumns.length;
+        if (record.length < linesPerObservation*LINE_LENGTH) {
+            record = new byte[linesPerObservation*LINE_LENGTH];
+        }
+
+        GPSObservation observation; // an observation
+        // Save some space on the date - we know these will fit into these datatypes
+        short year;
+        byte month;
+        byte day;
+        byte hour;
+        byte minute;
+        byte second;
+        int prnStart; // where the string of all the PRNs for the epoch starts
+        int prnEnd;
+
+        int numPRNs;
+        byte numObservationsInEpoch; // there are only 32 GPS satellites so this will be 1-32 (really less but 32 is a max)
+
+        long observationMillis;
+        Date observationTime = null; // observations in an epoch share this
+
+        // Cache these so we're not re-creating them hundreds of thousands of times
+        double diffRange;
+        double phase;
+        boolean diffRangeSet;
+
+        double l1;
+        double l2;
+
+        // Read in the file line-by-line
+        while (fileReader.readLine()) {
+            // Epoch lines have at least 8 items, anything shorter isn't one
+            year = tokenizer.tokenize(fileReader) > 7 ? tokenizer.shortAt(0) : -1;
+            if (year >= 0 && tokenizer.indexOf(7, 'G') >= 0) {
+                // If the year is valid (RINEX uses 80-99 for 1980-1999 and 00-79 for 2000-2079)
+                // and the number of observed satellites is greater than 0 (if == 0 there will be
+                // no index G because G starts a satellite PRN) then we want to store this
+                year += year < 80 ? 2000 : 1900;
+                month = tokenizer.byteAt(1);
+                day = tokenizer.byteAt(2);
+                hour = tokenizer.byteAt(3);
+                minute = tokenizer.byteAt(4);
+                second = (byte) tokenizer.doubleAt(5); // seconds is a decimal, we use a byte
+                observationMillis = GpsTime.toMillis(year, month, day, hour, minute, second);
+                if (storeSink == null) {
+                    observationTime = new Date(observationMillis);
+                }
+
+                // Get the number of satellites from the start of the PRN string. This is followed
+                // immediately by the PRNs of the satellites. For example, 4G12G06G22G17 has 4
+                // satellites followed by the PRNs
+                prnStart = tokenizer.start(7);
+                prnEnd = tokenizer.end(7);
+                numObservationsInEpoch = ParserUtils.parseByte(fileReader, prnStart,
+                        tokenizer.indexOf(7, 'G') - prnStart);
+
+                // Skip this observation epoch according to the data density, or whatever the sink wants
+                boolean skip;
+                if (epochSink != null) {
+                    skip = !epochSink.startEpoch(observationNumber);
+                } else {
+                    skip = observationNumber % density != 0;
+                }
+                observationNumber++;
+                if (skip) {
+                    if (numObservationsInEpoch > 12) {
+                        fileReader.readLine();
+                    }
+
+                    // read lines until we're past the epoch
+                    int linesToSkip = linesPerObservation * numObservationsInEpoch;
+                    for (int i = 0; i < linesToSkip; i++) {
+                        fileReader.readLine();
+                    }
+
+                    continue;
+                }
+
+                numPRNs = ParserUtils.splitPRNs(fileReader, prnStart, prnEnd - prnStart, prns, 0);
+                if (numObservationsInEpoch > 12) {
+                    // 2 lines for the PRN string
+                    nextLine(fileReader);
+                    numPRNs = ParserUtils.splitPRNs(fileReader, 0, fileReader.length(), prns, numPRNs);
+                }
+                for (int i = numPRNs; i < numObservationsInEpoch; i++) {
+                    prns[i] = 0;
+                }
+
+                for (byte i = 0; i < numObservationsInEpoch; i++) {
+                    // Copy the used part of each line of the observation into the record, padded
+                    // with blanks, so every field we need is at a fixed offset. Missing values are blank
+                    for (int line = 0; line < linesPerObservation; line++) {
+                        nextLine(fileReader);
+                        int columns = lineColumns[line];
+                        if (columns == 0) {
+                            continue;
+                        }
+                        int start = line*LINE_LENGTH;
+                        int length = Math.min(fileReader.length(), columns);
+                        System.arraycopy(fileReader.getBuffer(), 0, record, start, length);
+                        Arrays.fill(record, start + length, start + columns, (byte) ' ');
+                    }
+
+                    l1 = ParserUtils.parseDouble(record, offsetL1, FIELD_LENGTH);
+                    if (l1 == 0) {
+                        // Data is bad
+                        continue;
+                    }
+
+                    l2 = ParserUtils.parseDouble(record, offsetL2, FIELD_LENGTH);
+                    if (l2 == 0) {
+                        // Data is bad
+                        continue;
+                    }
+
+                    // Set the differential range from the first pseudorange pair with both values
+                    diffRange = Integer.MAX_VALUE;
+                    diffRangeSet = false;
+                    for (int pair = 0; pair < rangeOffsets.length && !diffRangeSet; pair += 2) {
+                        double secondPseudorange = ParserUtils.parseDouble(record, rangeOffsets[pair], FIELD_LENGTH);
+                        double firstPseudorange = ParserUtils.parseDouble(record, rangeOffsets[pair + 1], FIELD_LENGTH);
+                        diffRange = secondPseudorange - firstPseudorange;
+
+                        diffRangeSet = secondPseudorange != 0 && firstPseudorange != 0;
+                    }
+
+                    if (diffRangeSet) {
+                        // Convert diffRange to TEC
+                        diffRange = diffRange * METERS_TO_TEC * F2_F1_FACTOR;
+
+                        phase = (l1 * L1_VALUE_TO_METERS - l2 * L2_VALUE_TO_METERS)
+                                * F2_F1_FACTOR * METERS_TO_TEC;
+
+                        if (storeSink != null) {
+                            ((ObservationStore) storeSink.getList()).add(observationMillis, prns[i], diffRange, phase);
+                            storeSink.added(1);
+                        } else {
+                            observation = new GPSObservation();
+                            observation.time = observationTime;
+                            observation.prn = prns[i];
+                            observation.differentialRange = diffRange;
+                            observation.phase = phase;
+
+                            sink.accept(observation);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param index the position of an observation type in the TYPES OF OBSERV list, -1 if it's missing
+     * @return where that observation type starts in the record, -1 if it's missing
+     */
+    private static int fieldOffset(byte index) {
+        if (index < 0) {
+            return -1;
+        }
+        return (index / TYPES_PER_LINE)*LINE_LENGTH + (index % TYPES_PER_LINE)*FIELD_SPACING;
+    }
+
+    /**
+     * Reads a line that has to be there
+     *
+     * @param fileReader the reader
+     * @throws EOFException if the file ended in the middle of an epoch
+     */
+    private static void nextLine(MappedLineReader fileReader) throws IOException {
+        if (!fileReader.readLine()) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Finds the position of the first epoch after the header
+     *
+     * @param obsFile the observation file
+     * @return position of the line after END OF HEADER
+     * @throws IOException if the file can't be read
+     */
+    private static long findBodyStart(File obsFile) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(obsFile));
+        try {
+            // Header lines are 80 characters, with the label starting at column 60
+            byte[] line = new byte[128];
+            int length = 0;
+            long offset = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    if (new String(line, 0, length, "US-ASCII").contains("END OF HEADER")) {
+                        return offset;
+                    }
+                    length = 0;
+                } else if (length < line.length) {
+                    line[length++] = (byte) b;
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        throw new IOException("Missing END OF HEADER in " + obsFile.getName());
+    }
+
+    /**
+     * Finds the start of the first epoch line that begins at or after the given position
+     *
+     * @param obsFile the observation file
+     * @param position where to start looking, must be after the header
+     * @param end where to stop looking
+     * @return position of the epoch line, or end if there isn't one
+     * @throws IOException if the file can't be read
+     */
+    private static long findEpochStart(File obsFile, long position, long end) throws IOException {
+        // Start one byte early so we can tell if position is already the start of a line
+        InputStream in = new BufferedInputStream(new RangeInputStream(obsFile, position - 1, end));
+        try {
+            long offset = position - 1;
+            int b;
+
+            // Skip the rest of the line we landed in the middle of
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    break;
+                }
+            }
+
+            byte[] line = new byte[EPOCH_LINE_CHECK_LENGTH];
+            int length = 0;
+            long lineStart = offset;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    if (isEpochLine(line, length)) {
+                        return lineStart;
+                    }
+                    length = 0;
+                    lineStart = offset;
+                } else if (length < line.length) {
+                    line[length++] = (byte) b;
+                }
+            }
+
+            if (isEpochLine(line, length)) {
+                return lineStart;
+            }
+            return end;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Checks whether a line is an epoch header
+     *
+     * RINEX 2 epoch lines look like " 15  5 18  0  0  0.0000000  0 12G01G02..." - the date fields are
+     * separated by spaces at fixed columns, the seconds have a decimal point at column 18, and the
+     * epoch flag is a digit at column 28. Observation lines have their decimal points at columns 10,
+     * 26, 42, ... so they never match
+     *
+     * @param line the start of the line
+     * @param length how many characters of the line are in the array
+     * @return true if this is an epoch line
+     */
+    private static boolean isEpochLine(byte[] line, int length) {
+        if (length < EPOCH_LINE_CHECK_LENGTH) {
+            return false;
+        }
+
+        return line[0] == ' ' && line[3] == ' ' && line[6] == ' ' && line[9] == ' ' && line[12] == ' '
+                && line[18] == '.' && line[26] == ' ' && line[27] == ' '
+                && line[28] >= '0' && line[28] <= '9';
+    }
+}
\ No newline at end of file
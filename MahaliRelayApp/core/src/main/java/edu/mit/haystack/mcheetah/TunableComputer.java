@@ -0,0 +1,65 @@
+package edu.mit.haystack.mcheetah;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * A Computer whose parallelism can be adjusted between runs
+ *
+ * The Autotuner uses these settings along with the number of parser threads and the data density
+ * to find the configuration that processes a data set the fastest
+ *
+ * Neither setter is called while compute() is running
+ */
+public interface TunableComputer<D> extends Computer<D> {
+    /**
+     * Set the number of threads the computation is split across
+     *
+     * @param numThreads the number of compute threads, at least 1
+     */
+    void setComputeThreads(int numThreads);
+
+    /**
+     * @return the number of compute threads
+     */
+    int getComputeThreads();
+
+    /**
+     * Set the number of data points each compute task works on
+     *
+     * Small batches balance the work across threads better, large batches spend less time
+     * handing work off to threads
+     *
+     * @param batchSize the number of data points per task, at least 1
+     */
+    void setBatchSize(int batchSize);
+
+    /**
+     * @return the number of data points per task
+     */
+    int getBatchSize();
+}
\ No newline at end of file
@@ -0,0 +1,365 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.haystack.mcheetah.DataProcessEngine;
+import edu.mit.haystack.mcheetah.TunableComputer;
+import edu.mit.haystack.mcheetah.parsing.ParserFactory;
+
+/**
+ * @author David Mascharka
+ *
+ * This class uses the same DataProcessEngine as DataProcessFragment
+ * Runs computation on different thread configurations to get the best for performance
+ *
+ * tune() searches parser threads, compute threads, batch size and data density together, timing
+ * parsing and computation end to end. Set the values to try for each with the setters before tuning
+ *
+ * Every configuration is timed by a Benchmark, and one configuration only beats another if it is
+ * significantly faster, so noise doesn't change the answer from run to run
+ */
+public class Autotuner<D> {
+
+    /**
+     * The most times tune() sweeps every dimension looking for a better configuration
+     */
+    private static final int MAX_PASSES = 3;
+
+    private int[] parserThreadCandidates = range(1, getNumCores());
+    private int[] computeThreadCandidates = range(1, getNumCores());
+    private int[] batchSizeCandidates = {1, 4, 16, 64, 256};
+    private int[] densityCandidates = {1};
+
+    /**
+     * If positive, tune() looks for the finest data density that can be processed in this long
+     */
+    private long timeBudgetMillis = 0;
+
+    private final Benchmark benchmark = new Benchmark();
+
+    private Measurement bestMeasurement;
+
+    public static int getNumCores() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public static long currentStackSize() {
+        return Runtime.getRuntime().freeMemory();
+    }
+
+    public static long maxStackSize() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Gets the key a tuning result for these files is saved under in a TuningProfileStore
+     *
+     * Results depend on the hardware and the amount of data, so the key is made from the number of
+     * cores, the max heap size in MB, and the total size of the files rounded down to a power of two.
+     * Data sets of about the same size on the same device share a profile
+     *
+     * @param dataFiles the files that will be processed
+     * @return the profile key
+     */
+    public static String getProfileKey(File[] dataFiles) {
+        long totalBytes = 0;
+        for (File f : dataFiles) {
+            totalBytes += f.length();
+        }
+        int sizeBucket = 63 - Long.numberOfLeadingZeros(Math.max(1, totalBytes));
+
+        return "tuning_" + getNumCores() + "_" + (maxStackSize() / (1024*1024)) + "_" + sizeBucket;
+    }
+
+    public void setParserThreadCandidates(int... threads) {
+        parserThreadCandidates = sortedCopy(threads);
+    }
+
+    public void setComputeThreadCandidates(int... threads) {
+        computeThreadCandidates = sortedCopy(threads);
+    }
+
+    public void setBatchSizeCandidates(int... batchSizes) {
+        batchSizeCandidates = sortedCopy(batchSizes);
+    }
+
+    /**
+     * Data densities to try - by default only every point (density 1) is tried
+     *
+     * Coarser densities only win if a time budget is set and the finer ones don't fit in it
+     *
+     * @param densities the densities to try
+     */
+    public void setDensityCandidates(int... densities) {
+        densityCandidates = sortedCopy(densities);
+    }
+
+    /**
+     * @param millis the longest processing should take, 0 to just find the fastest configuration
+     */
+    public void setTimeBudgetMillis(long millis) {
+        timeBudgetMillis = millis;
+    }
+
+    /**
+     * @param repetitions the number of times to time each configuration, at least 3 are needed for
+     * one configuration to ever be significantly faster than another
+     */
+    public void setRepetitions(int repetitions) {
+        benchmark.setIterations(repetitions);
+    }
+
+    /**
+     * @param warmupIterations the number of untimed runs before timing each configuration
+     */
+    public void setWarmupIterations(int warmupIterations) {
+        benchmark.setWarmupIterations(warmupIterations);
+    }
+
+    /**
+     * @return the timings of the configuration returned by the last tune(), null if nothing has been
+     * tuned
+     */
+    public Measurement getBestMeasurement() {
+        return bestMeasurement;
+    }
+
+    /**
+     * @return the median time in milliseconds the configuration returned by the last tune() took, -1
+     * if nothing has been tuned
+     */
+    public long getBestTimeMillis() {
+        return bestMeasurement == null ? -1 : bestMeasurement.getMedian() / 1000000;
+    }
+
+    /**
+     * Finds the configuration that parses and computes the data files the fastest
+     *
+     * The search is coordinate descent: starting from the middle of the thread and batch size
+     * candidates and the finest density, each dimension in turn is swept while the others are held
+     * fixed, keeping any value that is significantly faster than the best so far. Sweeps repeat
+     * until nothing improves. Each configuration is measured once, so this takes far fewer runs than
+     * trying every combination
+     *
+     * If a time budget is set, the finest density whose median time fits in the budget wins over a
+     * faster run at a coarser density
+     *
+     * Do NOT call this on the UI thread
+     *
+     * @param dataFiles the files to process
+     * @param parserFactory creates the custom Parser for the data type
+     * @param computer the computation to tune
+     * @param dataObject the data type list, cleared before every run
+     * @return the best configuration found, or the best so far if interrupted
+     */
+    public TuningConfiguration tune(File[] dataFiles, ParserFactory<D> parserFactory, TunableComputer<D> computer,
+                                    List<D> dataObject) {
+        DataProcessEngine<D> engine = new DataProcessEngine<D>();
+        engine.setParserFactory(parserFactory);
+        engine.setComputer(computer);
+        engine.setDataObject(dataObject);
+
+        int[][] candidates = new int[TuningConfiguration.DIMENSIONS][];
+        candidates[TuningConfiguration.PARSER_THREADS] = parserThreadCandidates;
+        candidates[TuningConfiguration.COMPUTE_THREADS] = computeThreadCandidates;
+        candidates[TuningConfiguration.BATCH_SIZE] = batchSizeCandidates;
+        candidates[TuningConfiguration.DATA_DENSITY] = densityCandidates;
+
+        TuningConfiguration best = new TuningConfiguration(middle(parserThreadCandidates),
+                middle(computeThreadCandidates), middle(batchSizeCandidates), densityCandidates[0]);
+
+        Map<TuningConfiguration, Measurement> measured = new HashMap<>();
+        Measurement bestTime = measure(engine, computer, dataFiles, dataObject, best);
+        if (bestTime == null) {
+            engine.shutdown();
+            bestMeasurement = null;
+            return best;
+        }
+        measured.put(best, bestTime);
+
+        boolean improved = true;
+        for (int pass = 0; pass < MAX_PASSES && improved; pass++) {
+            improved = false;
+            for (int dimension = 0; dimension < TuningConfiguration.DIMENSIONS; dimension++) {
+                for (int value : candidates[dimension]) {
+                    TuningConfiguration c = best.with(dimension, value);
+                    Measurement time = measured.get(c);
+                    if (time == null) {
+                        time = measure(engine, computer, dataFiles, dataObject, c);
+                        if (time == null) {
+                            // Interrupted
+                            engine.shutdown();
+                            bestMeasurement = bestTime;
+                            return best;
+                        }
+                        measured.put(c, time);
+                    }
+
+                    if (isBetter(c, time, best, bestTime)) {
+                        best = c;
+                        bestTime = time;
+                        improved = true;
+                    }
+                }
+            }
+        }
+
+        engine.shutdown();
+        bestMeasurement = bestTime;
+        return best;
+    }
+
+    /**
+     * Times processing the data files with the given configuration
+     *
+     * @return the timings, or null if interrupted
+     */
+    private Measurement measure(final DataProcessEngine<D> engine, TunableComputer<D> computer,
+                                final File[] dataFiles, final List<D> dataObject, final TuningConfiguration c) {
+        engine.setParserThreads(c.parserThreads);
+        computer.setComputeThreads(c.computeThreads);
+        computer.setBatchSize(c.batchSize);
+
+        Measurement m = benchmark.measure(new Benchmark.Trial() {
+            @Override
+            public void setUp() {
+                dataObject.clear();
+            }
+
+            @Override
+            public void run() {
+                engine.process(dataFiles, c.dataDensity);
+            }
+        });
+        dataObject.clear();
+
+        return m;
+    }
+
+    /**
+     * Compares two measured configurations
+     *
+     * A run whose median fits in the time budget beats one that doesn't, among runs that fit the finer
+     * density is better, and otherwise the significantly faster one is better. Without a time budget
+     * every run fits
+     */
+    private boolean isBetter(TuningConfiguration c, Measurement time, TuningConfiguration best, Measurement bestTime) {
+        long budget = timeBudgetMillis > 0 ? timeBudgetMillis*1000000 : Long.MAX_VALUE;
+        boolean fits = time.getMedian() <= budget;
+        boolean bestFits = bestTime.getMedian() <= budget;
+        if (fits != bestFits) {
+            return fits;
+        }
+        if (fits && c.dataDensity != best.dataDensity) {
+            return c.dataDensity < best.dataDensity;
+        }
+        return time.isFasterThan(bestTime);
+    }
+
+    private static int middle(int[] values) {
+        return values[values.length/2];
+    }
+
+    private static int[] range(int min, int max) {
+        int[] values = new int[max-min+1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = min+i;
+        }
+        return values;
+    }
+
+    private static int[] sortedCopy(int[] values) {
+        if (values == null || values.length == 0) {
+            throw new IllegalArgumentException("At least one candidate value is needed");
+        }
+        int[] copy = Arrays.copyOf(values, values.length);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Performs parsing to get the optimal number of threads
+     *
+     * More threads only win if they are significantly faster than fewer threads
+     *
+     * @param dataFiles the files to parse
+     * @param parserFactory creates the custom Parser for the data type
+     * @param dataObject the data type list
+     * @param minCores the minimum number of cores to try
+     * @param maxCores the maximum number of cores to try
+     * @param repetitions the number of repetitions to perform parsing
+     * @return the optimal number of cores for parsing
+     */
+    public int getBestPerformanceThreadsParsing(final File[] dataFiles, ParserFactory<D> parserFactory, final List<D> dataObject,
+                                         int minCores, int maxCores, int repetitions) {
+        if (maxCores < minCores || repetitions == 0 || dataFiles.length == 0) {
+            return 1;
+        }
+
+        int bestCores = -1;
+        Measurement best = null;
+
+        final DataProcessEngine<D> engine = new DataProcessEngine<D>();
+        engine.setParserFactory(parserFactory);
+        engine.setDataObject(dataObject);
+        benchmark.setIterations(repetitions);
+
+        for (int i = minCores; i <= maxCores; i++) {
+            engine.setParserThreads(i);
+
+            Measurement m = benchmark.measure(new Benchmark.Trial() {
+                @Override
+                public void setUp() {
+                    dataObject.clear();
+                }
+
+                @Override
+                public void run() {
+                    engine.parse(dataFiles, 1);
+                }
+            });
+            if (m == null) {
+                // Interrupted
+                break;
+            }
+
+            if (best == null || m.isFasterThan(best)) {
+                best = m;
+                bestCores = i;
+            }
+        }
+
+        engine.shutdown();
+        bestMeasurement = best;
+        return bestCores < 0 ? 1 : bestCores;
+    }
+}
\ No newline at end of file
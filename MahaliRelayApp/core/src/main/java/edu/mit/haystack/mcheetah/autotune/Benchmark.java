@@ -0,0 +1,154 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.Arrays;
+
+/**
+ * @author David Mascharka
+ *
+ * Times a piece of work the same way every time so the Autotuner's results can be trusted
+ *
+ * Each measurement runs the work a few times without timing it so the JIT has compiled the hot
+ * code, then times each iteration with System.nanoTime. Iterations far slower than the median (a
+ * garbage collection or another app getting in the way) are thrown out before the Measurement is made
+ */
+public class Benchmark {
+
+    /**
+     * Work to time
+     *
+     * setUp is not timed and is called before every iteration, including warm-up iterations
+     */
+    public static abstract class Trial {
+        public void setUp() {
+        }
+
+        public abstract void run();
+    }
+
+    /**
+     * Iterations more than this many scaled median absolute deviations slower than the median are outliers
+     */
+    private static final double OUTLIER_DEVIATIONS = 3.0;
+
+    /**
+     * Scales the median absolute deviation to match the standard deviation of normal data
+     */
+    private static final double MAD_SCALE = 1.4826;
+
+    private int warmupIterations = 1;
+
+    private int iterations = 5;
+
+    public void setWarmupIterations(int warmupIterations) {
+        this.warmupIterations = Math.max(0, warmupIterations);
+    }
+
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = Math.max(1, iterations);
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Warms up then times the trial
+     *
+     * If the thread is interrupted, stops early and measures the iterations that finished
+     *
+     * @param trial the work to time
+     * @return the timings, or null if interrupted before any timed iteration finished
+     */
+    public Measurement measure(Trial trial) {
+        for (int i = 0; i < warmupIterations; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            trial.setUp();
+            trial.run();
+        }
+
+        long[] times = new long[iterations];
+        int count = 0;
+        while (count < iterations && !Thread.currentThread().isInterrupted()) {
+            trial.setUp();
+            long startTime = System.nanoTime();
+            trial.run();
+            times[count++] = System.nanoTime() - startTime;
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        return rejectOutliers(Arrays.copyOf(times, count));
+    }
+
+    /**
+     * Removes times more than OUTLIER_DEVIATIONS scaled median absolute deviations above the median
+     *
+     * Only slow times are removed since interference can make an iteration slower but never faster
+     *
+     * @param times the timed iterations
+     * @return the measurement of what's left
+     */
+    private static Measurement rejectOutliers(long[] times) {
+        long median = median(times);
+
+        long[] deviations = new long[times.length];
+        for (int i = 0; i < times.length; i++) {
+            deviations[i] = Math.abs(times[i] - median);
+        }
+        double limit = OUTLIER_DEVIATIONS*MAD_SCALE*median(deviations);
+
+        // If more than half the times are identical there's no spread to judge outliers by
+        if (limit == 0) {
+            return new Measurement(times, 0);
+        }
+
+        long[] kept = new long[times.length];
+        int count = 0;
+        for (long t : times) {
+            if (t - median <= limit) {
+                kept[count++] = t;
+            }
+        }
+
+        return new Measurement(Arrays.copyOf(kept, count), times.length - count);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length/2];
+    }
+}
\ No newline at end of file
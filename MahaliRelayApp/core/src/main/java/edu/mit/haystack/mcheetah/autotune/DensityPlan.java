@@ -0,0 +1,120 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * The data density a DensityPlanner picked for a time budget, along with the cost model it used
+ *
+ * Processing time at density d is modeled as fixed + variable/d for parsing and computation each.
+ * The fixed part is work every point costs no matter what (reading the file), the variable part is
+ * work only the kept points cost. Parsing is split across the parser threads, computation isn't
+ */
+public class DensityPlan {
+
+    private final int density;
+    private final long budgetMillis;
+
+    private final double parseFixedNanos;
+    private final double parseVariableNanos;
+    private final double computeFixedNanos;
+    private final double computeVariableNanos;
+    private final int parallelism;
+
+    DensityPlan(int density, long budgetMillis, double parseFixedNanos, double parseVariableNanos,
+                double computeFixedNanos, double computeVariableNanos, int parallelism) {
+        this.density = density;
+        this.budgetMillis = budgetMillis;
+        this.parseFixedNanos = parseFixedNanos;
+        this.parseVariableNanos = parseVariableNanos;
+        this.computeFixedNanos = computeFixedNanos;
+        this.computeVariableNanos = computeVariableNanos;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @return the density to parse at (every point, every other point, ...)
+     */
+    public int getDensity() {
+        return density;
+    }
+
+    /**
+     * @return the time left for processing once the data was sampled
+     */
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /**
+     * @return the predicted time to process all the data at the chosen density
+     */
+    public long getPredictedMillis() {
+        return predictMillis(density);
+    }
+
+    /**
+     * @param d a data density
+     * @return the predicted time to process all the data at that density
+     */
+    public long predictMillis(int d) {
+        double nanos = (parseFixedNanos + parseVariableNanos/d)/parallelism +
+                computeFixedNanos + computeVariableNanos/d;
+        return (long) (nanos / 1000000);
+    }
+
+    /**
+     * @return whether the chosen density is predicted to fit in the budget, false if even the
+     * coarsest density tried is too slow
+     */
+    public boolean fitsBudget() {
+        return getPredictedMillis() <= budgetMillis;
+    }
+
+    /**
+     * @return the fraction of data points that will be skipped, 0 at density 1
+     */
+    public double getFractionDropped() {
+        return 1.0 - 1.0/density;
+    }
+
+    /**
+     * Expected accuracy loss for anything estimated by averaging over the points, like a fit or a
+     * median bias - the standard error grows with the square root of the density
+     *
+     * @return how many times larger the standard error is than with every point
+     */
+    public double getStandardErrorFactor() {
+        return Math.sqrt(density);
+    }
+
+    @Override
+    public String toString() {
+        return "density=" + density + ", predicted=" + getPredictedMillis() + "ms of " + budgetMillis +
+                "ms, dropped=" + Math.round(getFractionDropped()*100) + "%";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.mit.haystack.mcheetah.Computer;
+import edu.mit.haystack.mcheetah.DataProcessEngine;
+import edu.mit.haystack.mcheetah.parsing.FileSplit;
+import edu.mit.haystack.mcheetah.parsing.ListSink;
+import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.parsing.ParserFactory;
+import edu.mit.haystack.mcheetah.parsing.SplittableParser;
+
+/**
+ * @author David Mascharka
+ *
+ * Picks the data density for a time budget, so the user doesn't have to guess how many points to skip
+ *
+ * About an eighth of the data is parsed and computed at two densities and a cost model is fit to
+ * the times (see DensityPlan). The finest density predicted to fit in the budget is picked. With a
+ * SplittableParser the sample is the start of every file, otherwise it's the smallest whole files
+ *
+ * Sampling counts against the budget, so the plan is for whatever time is left after it
+ *
+ * Do NOT call plan() on the UI thread
+ */
+public class DensityPlanner<D> {
+
+    /**
+     * Roughly 1/SAMPLE_FRACTION of the data is sampled
+     */
+    private static final int SAMPLE_FRACTION = 8;
+
+    /**
+     * The sample is timed at density 1 and at this density
+     */
+    private static final int SAMPLE_DENSITY = 4;
+
+    /**
+     * Densities to choose from, same as the point skip dialog by default
+     */
+    private int[] densities = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+    private int parallelism = 1;
+
+    /**
+     * @param densities the densities to choose from
+     */
+    public void setDensities(int... densities) {
+        if (densities.length == 0) {
+            throw new IllegalArgumentException("At least one density is needed");
+        }
+        this.densities = Arrays.copyOf(densities, densities.length);
+        Arrays.sort(this.densities);
+    }
+
+    /**
+     * @param parserThreads the number of threads the data will be parsed with
+     */
+    public void setParallelism(int parserThreads) {
+        parallelism = Math.max(1, Math.min(parserThreads, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Sample the data and pick a density
+     *
+     * @param dataFiles the files that will be processed
+     * @param parserFactory creates the Parser for the sample
+     * @param computer the computation that will be run, or null to only plan for parsing
+     * @param budgetMillis how long planning and processing may take
+     * @return the plan, with the coarsest density if none fit the budget
+     * @throws Exception if the sample can't be parsed
+     */
+    public DensityPlan plan(File[] dataFiles, ParserFactory<D> parserFactory, Computer<D> computer,
+                            long budgetMillis) throws Exception {
+        long startTime = System.nanoTime();
+        Parser<D> parser = parserFactory.newParser();
+
+        long totalBytes = 0;
+        for (File f : dataFiles) {
+            totalBytes += f.length();
+        }
+
+        List<File> sampleFiles = new ArrayList<File>();
+        List<FileSplit> sampleSplits = new ArrayList<FileSplit>();
+        long sampledBytes = chooseSample(dataFiles, parser, totalBytes, sampleFiles, sampleSplits);
+
+        // Untimed run so the JIT doesn't make the first timing look slow
+        time(parser, computer, sampleFiles, sampleSplits, SAMPLE_DENSITY);
+        long[] fine = time(parser, computer, sampleFiles, sampleSplits, 1);
+        long[] coarse = time(parser, computer, sampleFiles, sampleSplits, SAMPLE_DENSITY);
+
+        double scale = sampledBytes > 0 ? (double) totalBytes / sampledBytes : 1;
+        double[] parse = fit(fine[0]*scale, coarse[0]*scale);
+        double[] compute = fit(fine[1]*scale, coarse[1]*scale);
+
+        long remainingMillis = Math.max(0, budgetMillis - (System.nanoTime() - startTime) / 1000000);
+
+        DensityPlan plan = null;
+        for (int d : densities) {
+            plan = new DensityPlan(d, remainingMillis, parse[0], parse[1], compute[0], compute[1], parallelism);
+            if (plan.fitsBudget()) {
+                break;
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * Pick the part of the data to sample
+     *
+     * @return the number of bytes sampled
+     */
+    private long chooseSample(File[] dataFiles, Parser<D> parser, long totalBytes, List<File> sampleFiles,
+                              List<FileSplit> sampleSplits) throws Exception {
+        long sampledBytes = 0;
+
+        if (parser instanceof SplittableParser) {
+            for (File f : dataFiles) {
+                List<FileSplit> splits = null;
+                if (f.length() >= DataProcessEngine.MIN_SPLIT_BYTES) {
+                    splits = ((SplittableParser<D>) parser).split(f, SAMPLE_FRACTION);
+                }
+
+                if (splits != null && splits.size() > 1) {
+                    sampleSplits.add(splits.get(0));
+                    sampledBytes += splits.get(0).length();
+                } else {
+                    sampleFiles.add(f);
+                    sampledBytes += f.length();
+                }
+            }
+            return sampledBytes;
+        }
+
+        File[] bySize = Arrays.copyOf(dataFiles, dataFiles.length);
+        Arrays.sort(bySize, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.length(), b.length());
+            }
+        });
+        for (File f : bySize) {
+            sampleFiles.add(f);
+            sampledBytes += f.length();
+            if (sampledBytes*SAMPLE_FRACTION >= totalBytes) {
+                break;
+            }
+        }
+        return sampledBytes;
+    }
+
+    /**
+     * Parse and compute the sample at a density
+     *
+     * @return the parse time and the compute time in nanoseconds
+     */
+    private long[] time(Parser<D> parser, Computer<D> computer, List<File> sampleFiles, List<FileSplit> sampleSplits,
+                        int density) throws Exception {
+        List<D> data = new ArrayList<D>();
+
+        long startTime = System.nanoTime();
+        for (File f : sampleFiles) {
+            List<D> parsed = parser.parse(f, density);
+            if (parsed != null) {
+                data.addAll(parsed);
+            }
+        }
+        for (FileSplit split : sampleSplits) {
+            ListSink<D> sink = new ListSink<D>();
+            ((SplittableParser<D>) parser).parse(split, density, sink);
+            data.addAll(sink.getData());
+        }
+        long parsedTime = System.nanoTime();
+
+        if (computer != null && !data.isEmpty()) {
+            computer.compute(data);
+        }
+
+        return new long[] {parsedTime - startTime, System.nanoTime() - parsedTime};
+    }
+
+    /**
+     * Fit fixed + variable/d through the times at density 1 and SAMPLE_DENSITY
+     *
+     * @return the fixed and variable parts
+     */
+    private static double[] fit(double fine, double coarse) {
+        double variable = (fine - coarse) / (1.0 - 1.0/SAMPLE_DENSITY);
+        // Noise can make the coarse run look slower, then nothing measurably scales with density
+        if (variable < 0) {
+            return new double[] {fine, 0};
+        }
+
+        double fixed = fine - variable;
+        if (fixed < 0) {
+            return new double[] {0, fine};
+        }
+        return new double[] {fixed, variable};
+    }
+}
\ No newline at end of file
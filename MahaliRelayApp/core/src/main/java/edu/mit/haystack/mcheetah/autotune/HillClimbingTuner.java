@@ -0,0 +1,126 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * Adjusts a thread count while real work is running, based on how fast the work is getting done
+ *
+ * Finished work is recorded in windows. At the end of each window the thread count moves one step.
+ * If the window's throughput beat the last window's, the next step goes the same way, otherwise it
+ * turns around. The count keeps probing either side of the best value, so it follows the best value
+ * if it moves, like when the device heats up and throttles its cores
+ *
+ * There's no separate benchmarking, so the only cost is the time spent one step away from the best
+ * thread count
+ *
+ * Not thread safe - record from a single thread
+ */
+public class HillClimbingTuner {
+
+    /**
+     * Throughput has to beat the last window by this fraction to count as better, so noise alone
+     * turns the climb around instead of pushing it further
+     */
+    private static final double MIN_IMPROVEMENT = 0.05;
+
+    private final int minThreads;
+    private final int maxThreads;
+
+    /**
+     * The number of records in each window
+     */
+    private final int windowSize;
+
+    private int threads;
+
+    /**
+     * +1 or -1, the way the next step goes
+     */
+    private int direction = 1;
+
+    /**
+     * Work per nanosecond in the last window, negative before the first window is done
+     */
+    private double lastThroughput = -1;
+
+    private long windowWork;
+    private long windowNanos;
+    private int windowCount;
+
+    /**
+     * @param minThreads the fewest threads to use
+     * @param maxThreads the most threads to use
+     * @param startThreads the thread count to start from
+     * @param windowSize the number of records to take before each step
+     */
+    public HillClimbingTuner(int minThreads, int maxThreads, int startThreads, int windowSize) {
+        this.minThreads = Math.max(1, minThreads);
+        this.maxThreads = Math.max(this.minThreads, maxThreads);
+        this.threads = Math.min(this.maxThreads, Math.max(this.minThreads, startThreads));
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Record a finished piece of work
+     *
+     * @param work how much work was done, in any unit as long as it's always the same (data points, bytes, ...)
+     * @param elapsedNanos how long it took, or the time since the last record
+     * @return the number of threads to use from now on
+     */
+    public int record(long work, long elapsedNanos) {
+        windowWork += work;
+        windowNanos += elapsedNanos;
+        windowCount++;
+        if (windowCount < windowSize || minThreads == maxThreads) {
+            return threads;
+        }
+
+        double throughput = windowNanos > 0 ? (double) windowWork / windowNanos : 0;
+        windowWork = 0;
+        windowNanos = 0;
+        windowCount = 0;
+
+        if (lastThroughput >= 0 && throughput < lastThroughput*(1 + MIN_IMPROVEMENT)) {
+            direction = -direction;
+        }
+        lastThroughput = throughput;
+
+        int next = threads + direction;
+        if (next < minThreads || next > maxThreads) {
+            direction = -direction;
+            next = threads + direction;
+        }
+        threads = next;
+
+        return threads;
+    }
+}
\ No newline at end of file
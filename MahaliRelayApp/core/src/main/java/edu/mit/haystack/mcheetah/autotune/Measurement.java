@@ -0,0 +1,150 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.Arrays;
+
+/**
+ * @author David Mascharka
+ *
+ * The timings of one configuration from a Benchmark
+ *
+ * Run times are skewed by things like garbage collection and other apps, so the median is used
+ * instead of the mean and comparisons use a rank test instead of comparing two numbers. A
+ * configuration is only faster than another if the difference is larger than the noise
+ */
+public class Measurement {
+
+    /**
+     * z value for a 95% confidence level
+     */
+    private static final double Z_95 = 1.96;
+
+    /**
+     * z value for a one-sided test at the 5% level
+     */
+    private static final double Z_ONE_SIDED_95 = 1.645;
+
+    /**
+     * Sorted run times in nanoseconds, with outliers removed
+     */
+    private final long[] samples;
+
+    /**
+     * The number of samples thrown away as outliers
+     */
+    private final int outliers;
+
+    /**
+     * @param samples run times in nanoseconds, at least one
+     * @param outliers the number of run times already thrown away as outliers
+     */
+    public Measurement(long[] samples, int outliers) {
+        if (samples.length == 0) {
+            throw new IllegalArgumentException("A measurement needs at least one sample");
+        }
+        this.samples = Arrays.copyOf(samples, samples.length);
+        Arrays.sort(this.samples);
+        this.outliers = outliers;
+    }
+
+    public int getSampleCount() {
+        return samples.length;
+    }
+
+    public int getOutlierCount() {
+        return outliers;
+    }
+
+    /**
+     * @return the median run time in nanoseconds
+     */
+    public long getMedian() {
+        int n = samples.length;
+        if (n % 2 == 1) {
+            return samples[n/2];
+        }
+        return (samples[n/2 - 1] + samples[n/2]) / 2;
+    }
+
+    /**
+     * @return the lower end of the 95% confidence interval of the median in nanoseconds
+     */
+    public long getLowerBound() {
+        int n = samples.length;
+        int rank = (int) Math.floor(n/2.0 - Z_95*Math.sqrt(n)/2.0);
+        return samples[Math.max(0, rank)];
+    }
+
+    /**
+     * @return the upper end of the 95% confidence interval of the median in nanoseconds
+     */
+    public long getUpperBound() {
+        int n = samples.length;
+        int rank = (int) Math.ceil(n/2.0 + Z_95*Math.sqrt(n)/2.0);
+        return samples[Math.min(n-1, rank)];
+    }
+
+    /**
+     * Whether this is faster than other by more than the noise in the run times
+     *
+     * Uses a one-sided Mann-Whitney U test at the 5% level, which doesn't assume run times are
+     * normally distributed. With two or fewer samples each nothing is ever significant
+     *
+     * @param other the measurement to compare with
+     * @return true if this is significantly faster
+     */
+    public boolean isFasterThan(Measurement other) {
+        if (getMedian() >= other.getMedian()) {
+            return false;
+        }
+
+        // Count the pairs where this run beat the other, ties count as half
+        double u = 0;
+        for (long a : samples) {
+            for (long b : other.samples) {
+                if (a < b) {
+                    u += 1;
+                } else if (a == b) {
+                    u += 0.5;
+                }
+            }
+        }
+
+        double n1 = samples.length;
+        double n2 = other.samples.length;
+        double mean = n1*n2/2.0;
+        double deviation = Math.sqrt(n1*n2*(n1+n2+1)/12.0);
+
+        return (u - mean)/deviation > Z_ONE_SIDED_95;
+    }
+
+    @Override
+    public String toString() {
+        return "median=" + getMedian()/1000000.0 + "ms [" + getLowerBound()/1000000.0 + ", " +
+                getUpperBound()/1000000.0 + "] n=" + samples.length + " outliers=" + outliers;
+    }
+}
\ No newline at end of file
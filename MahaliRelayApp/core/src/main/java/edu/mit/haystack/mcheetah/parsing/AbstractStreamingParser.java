@@ -0,0 +1,64 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * Base class for streaming parsers
+ *
+ * Implements the list-returning parse on top of the streaming one by collecting everything the
+ * parser emits into a list, so a streaming parser can still be used anywhere a Parser is expected
+ */
+public abstract class AbstractStreamingParser<D> implements StreamingParser<D> {
+
+    /**
+     * Parse function
+     *
+     * Reads in a file and returns a list of data objects
+     *
+     * @param file the file to parse
+     * @param dataDensity the density of data to process (every point, every third point, every n points)
+     * @return the data objects in the file, or null if the file couldn't be parsed
+     */
+    @Override
+    public List<D> parse(File file, int dataDensity) {
+        ListSink<D> sink = new ListSink<D>();
+
+        try {
+            parse(file, dataDensity, sink);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        return sink.getData();
+    }
+}
\ No newline at end of file
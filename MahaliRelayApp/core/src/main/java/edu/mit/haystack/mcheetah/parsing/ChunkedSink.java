@@ -0,0 +1,152 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * Sink that moves parsed data into a shared list a chunk at a time
+ *
+ * Each parser thread gets its own ChunkedSink pointing at the same target list. Data objects are
+ * held locally until a chunk fills up, then the whole chunk is added to the target while holding
+ * its lock. This way the parser never holds more than one chunk of data on its own, and we only
+ * take the lock once per chunk instead of once per data object
+ *
+ * Call flush() when the parser is finished to hand off whatever is left in the last chunk
+ */
+public class ChunkedSink<D> implements CollectingSink<D> {
+
+    /**
+     * Number of data objects held before they are moved to the target list
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /**
+     * The shared list everything ends up in - all access to it is synchronized on the list itself
+     */
+    private final List<D> target;
+
+    /**
+     * How many data objects to hold before moving them to the target list
+     */
+    private final int chunkSize;
+
+    /**
+     * Makes each chunk
+     */
+    private final DataListFactory<D> lists;
+
+    /**
+     * Data objects that have been parsed but not yet moved to the target list
+     */
+    private List<D> chunk;
+
+    /**
+     * Number of data objects moved to the target list so far
+     */
+    private long moved;
+
+    public ChunkedSink(List<D> target) {
+        this(target, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedSink(List<D> target, int chunkSize) {
+        this(target, chunkSize, new ArrayListFactory<D>());
+    }
+
+    /**
+     * @param target the shared list everything ends up in
+     * @param chunkSize how many data objects to hold before moving them to the target list
+     * @param lists makes each chunk, ideally the same kind of list as the target so moving a chunk
+     *              is a bulk copy
+     */
+    public ChunkedSink(List<D> target, int chunkSize, DataListFactory<D> lists) {
+        this.target = target;
+        this.chunkSize = chunkSize;
+        this.lists = lists;
+        chunk = lists.newList(chunkSize);
+    }
+
+    @Override
+    public void accept(D data) {
+        chunk.add(data);
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * @return the current chunk, which is replaced once it's full
+     */
+    @Override
+    public List<D> getList() {
+        return chunk;
+    }
+
+    @Override
+    public void added(int count) {
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Move everything held in the current chunk to the target list
+     */
+    public void flush() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        moved += chunk.size();
+        merge(chunk);
+        // The old chunk is handed off rather than cleared so merge() can hold on to it
+        chunk = lists.newList(chunkSize);
+    }
+
+    /**
+     * @return the number of data objects moved to the target list so far
+     */
+    public long getMovedCount() {
+        return moved;
+    }
+
+    /**
+     * Add one full chunk to the target list
+     *
+     * Override to do something else with each chunk once it's been added. The sink never touches
+     * a chunk again after passing it here, so it's safe to keep a reference to it
+     *
+     * @param fullChunk the data objects parsed since the last flush
+     */
+    protected void merge(List<D> fullChunk) {
+        synchronized (target) {
+            target.addAll(fullChunk);
+        }
+    }
+}
\ No newline at end of file
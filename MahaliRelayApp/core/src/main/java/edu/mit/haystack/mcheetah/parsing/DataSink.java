@@ -0,0 +1,47 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * Receives data objects from a StreamingParser as soon as they are read from a file
+ *
+ * This lets a parser hand off every data object it creates instead of building up a list holding
+ * the whole file. What happens to the data is up to the sink - it can be collected into a list,
+ * forwarded to the shared data list in chunks, or consumed right away
+ *
+ * A sink is only used by the thread running the parser it was passed to, so implementations don't
+ * need to be thread-safe unless they share state with other sinks
+ */
+public interface DataSink<D> {
+    /**
+     * Accept a single data object from the parser
+     *
+     * @param data the data object that was just parsed
+     */
+    void accept(D data);
+}
\ No newline at end of file
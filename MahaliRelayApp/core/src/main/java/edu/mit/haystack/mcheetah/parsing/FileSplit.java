@@ -0,0 +1,74 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+
+/**
+ * @author David Mascharka
+ *
+ * Basically a struct describing one piece of a data file that can be parsed on its own
+ *
+ * Made by a SplittableParser so a single large file can be parsed on more than one thread. The byte
+ * range always starts at the beginning of a record (an epoch for RINEX files) so every split can be
+ * parsed without looking at the ones around it
+ */
+public class FileSplit {
+    /**
+     * The file this is part of
+     */
+    public final File file;
+
+    /**
+     * Position of the first byte of this split in the file
+     */
+    public final long start;
+
+    /**
+     * Position one past the last byte of this split in the file
+     */
+    public final long end;
+
+    /**
+     * Whatever the parser read from the file header, shared by every split of the file so the
+     * header is only parsed once
+     */
+    public final Object header;
+
+    public FileSplit(File file, long start, long end, Object header) {
+        this.file = file;
+        this.start = start;
+        this.end = end;
+        this.header = header;
+    }
+
+    /**
+     * @return the number of bytes in this split
+     */
+    public long length() {
+        return end - start;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,575 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author David Mascharka
+ *
+ * Keeps parsed data in memory so changing the data density doesn't mean parsing files again
+ *
+ * Data is kept per file and per epoch (see EpochSink). Asking for a density the cache already has
+ * every epoch for just picks those epochs out of memory. Otherwise the file is read again and only
+ * the missing epochs are parsed - going from density 10 to density 1 parses the 90% of epochs that
+ * were skipped before, and going back to any density after that doesn't touch the file at all. If
+ * the parser is a HeaderParser, only the file's header is read again
+ *
+ * A file that has changed since it was cached (different length or modification time) is parsed
+ * from scratch. If the parser doesn't know about epochs nothing is cached and the file is parsed
+ * normally every time
+ *
+ * The same data objects are handed out every time, so anything that changes them in place changes
+ * them for later requests too
+ *
+ * Each file's data is kept in lists from the DataListFactory, ArrayLists unless another factory is
+ * set. With a factory that makes the same kind of list as the data object, what's handed out can be
+ * copied into the data object in bulk
+ *
+ * Given a directory and a RecordCodec, the cache is also kept on disk so it lasts between runs of
+ * the app. Each data file gets one binary cache file holding its epochs and the encoded records,
+ * which is rewritten whenever new epochs are parsed. The first time a file is asked for, its cache
+ * file is memory mapped and decoded instead of parsing the text - as long as the data file's path,
+ * length and modification time and the codec version all still match
+ *
+ * Safe to use from multiple threads. Requests for the same file wait for each other
+ */
+public class ParsedFileCache<D> {
+
+    /**
+     * Every cache file starts with this, "MCPC"
+     */
+    private static final int MAGIC = 0x4D435043;
+
+    /**
+     * Change this whenever the layout of cache files changes
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String CACHE_FILE_SUFFIX = ".parsed";
+
+    private final Map<File, Entry<D>> entries = new HashMap<File, Entry<D>>();
+
+    /**
+     * Where cache files are kept, null if the cache is only in memory
+     */
+    private final File directory;
+
+    private final RecordCodec<D> codec;
+
+    /**
+     * Makes the lists data is kept and handed out in
+     */
+    private DataListFactory<D> lists = new ArrayListFactory<D>();
+
+    /**
+     * Make a cache that only keeps data in memory
+     */
+    public ParsedFileCache() {
+        this(null, null);
+    }
+
+    /**
+     * Make a cache that also keeps data on disk
+     *
+     * @param directory where to keep cache files, created when the first one is written
+     * @param codec writes and reads the data objects
+     */
+    public ParsedFileCache(File directory, RecordCodec<D> codec) {
+        if (directory != null && codec == null) {
+            throw new IllegalArgumentException("A codec is needed to keep parsed data on disk");
+        }
+        this.directory = directory;
+        this.codec = codec;
+    }
+
+    /**
+     * Set how the lists data is kept and handed out in are made. Data already cached stays in the
+     * lists it's in
+     *
+     * Don't call this while parsing is running
+     *
+     * @param factory makes the lists
+     */
+    public void setListFactory(DataListFactory<D> factory) {
+        lists = factory;
+    }
+
+    /**
+     * Get a file's data at a density, parsing only the epochs that aren't cached yet
+     *
+     * @param file the file to parse
+     * @param density the density of data to return (every epoch, every other epoch, ...)
+     * @param parser the parser for the file
+     * @return the file's data at that density, in file order, in a new list the caller may change
+     * @throws IOException if the file can't be parsed
+     */
+    public List<D> parse(File file, int density, StreamingParser<D> parser) throws IOException {
+        Entry<D> entry;
+        synchronized (entries) {
+            entry = entries.get(file);
+            if (entry == null || entry.isStale(file)) {
+                entry = new Entry<D>(file);
+                entries.put(file, entry);
+            }
+        }
+
+        synchronized (entry) {
+            if (directory != null && !entry.diskChecked) {
+                entry.diskChecked = true;
+                load(file, entry);
+            }
+
+            List<D> data = entry.parse(file, Math.max(1, density), parser, lists);
+
+            if (directory != null && entry.changed) {
+                entry.changed = false;
+                save(file, entry);
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Forget a file's data, on disk too
+     *
+     * @param file the file
+     */
+    public void remove(File file) {
+        synchronized (entries) {
+            entries.remove(file);
+        }
+        if (directory != null) {
+            cacheFile(file).delete();
+        }
+    }
+
+    /**
+     * Forget all cached data, on disk too
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+
+        File[] cacheFiles = directory == null ? null : directory.listFiles();
+        if (cacheFiles != null) {
+            for (File f : cacheFiles) {
+                if (f.getName().endsWith(CACHE_FILE_SUFFIX)) {
+                    f.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param file a data file
+     * @return where that file's data is kept on disk
+     */
+    private File cacheFile(File file) {
+        String path = file.getAbsolutePath();
+        return new File(directory, file.getName() + "-" + Integer.toHexString(path.hashCode()) + CACHE_FILE_SUFFIX);
+    }
+
+    /**
+     * Fill an empty entry from its cache file, if there's a valid one
+     *
+     * An out of date or unreadable cache file is deleted
+     */
+    private void load(File file, Entry<D> entry) {
+        File cacheFile = cacheFile(file);
+        if (!cacheFile.exists()) {
+            return;
+        }
+
+        boolean valid = false;
+        RandomAccessFile in = null;
+        try {
+            in = new RandomAccessFile(cacheFile, "r");
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            valid = entry.read(buffer, file.getAbsolutePath(), codec);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (RuntimeException e) {
+            // A truncated or corrupt file runs off the end of the buffer
+            e.printStackTrace();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        if (!valid) {
+            cacheFile.delete();
+        }
+    }
+
+    /**
+     * Write an entry to its cache file
+     *
+     * The file is written under another name first so a half written file is never read
+     */
+    private void save(File file, Entry<D> entry) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+
+        File cacheFile = cacheFile(file);
+        File tempFile = new File(directory, cacheFile.getName() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            ByteBuffer buffer = entry.write(file.getAbsolutePath(), codec);
+            out = new FileOutputStream(tempFile);
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            out.close();
+            out = null;
+
+            if (!tempFile.renameTo(cacheFile)) {
+                tempFile.delete();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            tempFile.delete();
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Everything parsed from one file
+     */
+    private static class Entry<D> {
+        private final long length;
+        private final long lastModified;
+
+        /**
+         * Every data object parsed so far, in file order
+         */
+        private List<D> data = new ArrayList<D>();
+
+        /**
+         * The data for epoch i is data[epochStart[i], epochStart[i+1]), empty if it hasn't been parsed
+         */
+        private int[] epochStart = {0};
+
+        /**
+         * Which epochs have been parsed - an epoch can be parsed and have no data
+         */
+        private final BitSet parsed = new BitSet();
+
+        /**
+         * The number of epochs in the file, only known once the whole file has been read
+         */
+        private int epochCount;
+        private boolean epochCountKnown;
+
+        /**
+         * Whether the cache file has been looked at yet
+         */
+        boolean diskChecked;
+
+        /**
+         * Set when epochs are added, so the cache file needs writing
+         */
+        boolean changed;
+
+        Entry(File file) {
+            length = file.length();
+            lastModified = file.lastModified();
+        }
+
+        boolean isStale(File file) {
+            return file.length() != length || file.lastModified() != lastModified;
+        }
+
+        List<D> parse(File file, int density, StreamingParser<D> parser, DataListFactory<D> lists)
+                throws IOException {
+            if (!covers(density)) {
+                EpochCollector<D> collector = new EpochCollector<D>(density, parsed, lists.newList(0));
+                parser.parse(file, density, collector);
+
+                if (collector.unsupported || !collector.started) {
+                    // The parser used the density itself, so this is already the right data
+                    return collector.added;
+                }
+                merge(collector, lists);
+            } else if (parser instanceof HeaderParser) {
+                // The file isn't read for its data, but the header may set more than the data
+                ((HeaderParser) parser).parseHeader(file);
+            }
+
+            return select(density, lists);
+        }
+
+        /**
+         * @return whether every epoch needed for density is parsed
+         */
+        private boolean covers(int density) {
+            if (!epochCountKnown) {
+                return false;
+            }
+            for (int i = 0; i < epochCount; i += density) {
+                if (!parsed.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private List<D> select(int density, DataListFactory<D> lists) {
+            List<D> selected = lists.newList(data.size() / density + 1);
+            for (int i = 0; i < epochCount; i += density) {
+                selected.addAll(data.subList(epochStart[i], epochStart[i+1]));
+            }
+            return selected;
+        }
+
+        /**
+         * Merge newly parsed epochs in with the ones already cached, keeping file order
+         */
+        private void merge(EpochCollector<D> collector, DataListFactory<D> lists) {
+            int count = Math.max(epochCount, collector.epochsSeen);
+            List<D> merged = lists.newList(data.size() + collector.added.size());
+            int[] starts = new int[count + 1];
+
+            int next = 0;
+            for (int i = 0; i < count; i++) {
+                starts[i] = merged.size();
+                if (next < collector.newEpochCount && collector.newEpochs[next] == i) {
+                    int from = collector.newStarts[next];
+                    int to = next + 1 < collector.newEpochCount ? collector.newStarts[next+1] : collector.added.size();
+                    merged.addAll(collector.added.subList(from, to));
+                    parsed.set(i);
+                    next++;
+                } else if (i < epochCount) {
+                    merged.addAll(data.subList(epochStart[i], epochStart[i+1]));
+                }
+            }
+            starts[count] = merged.size();
+
+            data = merged;
+            epochStart = starts;
+            epochCount = count;
+            epochCountKnown = true;
+            changed = true;
+        }
+
+        /**
+         * Encode this entry for its cache file
+         *
+         * The layout is a header (magic, versions, the data file's length, modification time and
+         * path), the epoch count, where each epoch starts, a byte per epoch saying whether it's
+         * parsed, the record count, then the records in columns
+         *
+         * @param path the data file's absolute path
+         * @param codec encodes the records
+         * @return the encoded entry, ready to read from
+         * @throws IOException if the path can't be encoded
+         */
+        ByteBuffer write(String path, RecordCodec<D> codec) throws IOException {
+            byte[] pathBytes = path.getBytes("UTF-8");
+            int records = data.size();
+            ByteBuffer out = ByteBuffer.allocate(4*4 + 8*2 + pathBytes.length + 4 + 4*(epochCount + 1)
+                    + epochCount + 4 + records*codec.getRecordBytes());
+
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putInt(codec.getVersion());
+            out.putLong(length);
+            out.putLong(lastModified);
+            out.putInt(pathBytes.length);
+            out.put(pathBytes);
+
+            out.putInt(epochCount);
+            for (int i = 0; i <= epochCount; i++) {
+                out.putInt(epochStart[i]);
+            }
+            for (int i = 0; i < epochCount; i++) {
+                out.put(parsed.get(i) ? (byte) 1 : (byte) 0);
+            }
+
+            out.putInt(records);
+            codec.encode(data, out);
+
+            out.flip();
+            return out;
+        }
+
+        /**
+         * Fill this entry from a cache file
+         *
+         * Nothing is changed unless the whole file is valid for this data file
+         *
+         * @param in the cache file's contents
+         * @param path the data file's absolute path
+         * @param codec decodes the records
+         * @return false if the cache file is out of date or damaged
+         * @throws IOException if the path can't be decoded
+         */
+        boolean read(ByteBuffer in, String path, RecordCodec<D> codec) throws IOException {
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION || in.getInt() != codec.getVersion()
+                    || in.getLong() != length || in.getLong() != lastModified) {
+                return false;
+            }
+            byte[] pathBytes = new byte[in.getInt()];
+            in.get(pathBytes);
+            if (!path.equals(new String(pathBytes, "UTF-8"))) {
+                // Another file with the same name and hash
+                return false;
+            }
+
+            int count = in.getInt();
+            int[] starts = new int[count + 1];
+            for (int i = 0; i <= count; i++) {
+                starts[i] = in.getInt();
+            }
+            BitSet parsedEpochs = new BitSet(count);
+            for (int i = 0; i < count; i++) {
+                if (in.get() != 0) {
+                    parsedEpochs.set(i);
+                }
+            }
+
+            int records = in.getInt();
+            if (starts[count] != records || in.remaining() != records*codec.getRecordBytes()) {
+                return false;
+            }
+            List<D> decoded = codec.decode(in, records);
+
+            data = decoded;
+            epochStart = starts;
+            parsed.clear();
+            parsed.or(parsedEpochs);
+            epochCount = count;
+            epochCountKnown = true;
+            return true;
+        }
+    }
+
+    /**
+     * Collects the epochs a density needs that aren't parsed yet
+     */
+    private static class EpochCollector<D> implements EpochSink<D>, CollectingSink<D> {
+        private final int density;
+        private final BitSet alreadyParsed;
+
+        /**
+         * Data from the newly parsed epochs, in file order
+         */
+        final List<D> added;
+
+        /**
+         * The newly parsed epochs and where each one's data starts in added
+         */
+        int[] newEpochs = new int[64];
+        int[] newStarts = new int[64];
+        int newEpochCount;
+
+        /**
+         * One more than the highest epoch number the parser reached
+         */
+        int epochsSeen;
+
+        /**
+         * Set if the parser handed over data without starting an epoch
+         */
+        boolean unsupported;
+
+        /**
+         * Set once the parser starts an epoch
+         */
+        boolean started;
+
+        EpochCollector(int density, BitSet alreadyParsed, List<D> added) {
+            this.density = density;
+            this.alreadyParsed = alreadyParsed;
+            this.added = added;
+        }
+
+        @Override
+        public boolean startEpoch(int epoch) {
+            started = true;
+            epochsSeen = Math.max(epochsSeen, epoch + 1);
+            if (epoch % density != 0 || alreadyParsed.get(epoch)) {
+                return false;
+            }
+
+            if (newEpochCount == newEpochs.length) {
+                newEpochs = Arrays.copyOf(newEpochs, newEpochCount*2);
+                newStarts = Arrays.copyOf(newStarts, newEpochCount*2);
+            }
+            newEpochs[newEpochCount] = epoch;
+            newStarts[newEpochCount] = added.size();
+            newEpochCount++;
+            return true;
+        }
+
+        @Override
+        public void accept(D data) {
+            if (!started) {
+                unsupported = true;
+            }
+            added.add(data);
+        }
+
+        @Override
+        public List<D> getList() {
+            return added;
+        }
+
+        @Override
+        public void added(int count) {
+            if (!started && count > 0) {
+                unsupported = true;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author David Mascharka
+ *
+ * A Parser that pushes data objects to a DataSink as it reads them, instead of returning a list
+ * of everything in the file at the end
+ *
+ * With the list-returning parse, every data object in a file is alive at once before the
+ * DataProcessFragment can touch any of it, and then it gets copied into the shared data list.
+ * For large files (a full day of 1 Hz RINEX data, for example) that doubles the memory needed.
+ * Streaming lets the caller decide how much data is held at any point
+ *
+ * Extend AbstractStreamingParser to get the list-returning parse for free
+ *
+ * Parsers for files made of epochs should also support EpochSink, so data already parsed at one
+ * density can be reused at another
+ *
+ * The same threading notes as Parser apply here
+ */
+public interface StreamingParser<D> extends Parser<D> {
+    /**
+     * Streaming parse function
+     *
+     * Reads in a file and passes each data object to the sink as soon as it is parsed
+     *
+     * @param file the file to parse
+     * @param dataDensity the density of data to process (every point, every third point, every n points)
+     * @param sink receives every parsed data object, in the order they appear in the file
+     * @throws IOException if the file can't be read or doesn't contain the data we need
+     */
+    void parse(File file, int dataDensity, DataSink<D> sink) throws IOException;
+}
\ No newline at end of file
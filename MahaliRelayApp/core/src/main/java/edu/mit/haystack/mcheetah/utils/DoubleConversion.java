@@ -0,0 +1,225 @@
+package edu.mit.haystack.mcheetah.utils;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.math.BigInteger;
+
+/**
+ * @author David Mascharka
+ *
+ * Turns a decimal mantissa and power of ten into the closest double, the same double
+ * Double.parseDouble would give
+ *
+ * Most RINEX values have few enough digits that they are exactly representable and a single
+ * multiplication or division gives the right answer (Clinger's fast path). The rest go through the
+ * Eisel-Lemire algorithm, which uses a table of 128-bit approximations of powers of ten and can tell
+ * when the approximation isn't good enough to round correctly. When it can't, NaN is returned and
+ * the caller falls back to Double.parseDouble
+ *
+ * See Daniel Lemire, "Number Parsing at a Gigabyte per Second", Software: Practice and Experience 2021
+ */
+final class DoubleConversion {
+
+    /**
+     * Integers up to 2^53 are exact as doubles
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten that are exact as doubles
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The range of powers of ten in the table. Anything outside it is zero or infinity, or close
+     * enough that Double.parseDouble can deal with it
+     */
+    private static final int MIN_EXPONENT = -348;
+    private static final int MAX_EXPONENT = 347;
+
+    private DoubleConversion() {} // static class, don't let other classes instantiate this
+
+    /**
+     * The 128-bit powers of ten, made the first time Eisel-Lemire is needed so parsers that only see
+     * short values never pay for them
+     */
+    private static final class PowersOfTen {
+        /**
+         * High then low 64 bits of each power of ten from MIN_EXPONENT, shifted so the top bit is set
+         * and rounded down
+         */
+        static final long[] TABLE = makeTable();
+
+        private static long[] makeTable() {
+            long[] table = new long[(MAX_EXPONENT - MIN_EXPONENT + 1)*2];
+            BigInteger ten = BigInteger.TEN;
+            for (int exponent = MIN_EXPONENT; exponent <= MAX_EXPONENT; exponent++) {
+                BigInteger power = ten.pow(Math.abs(exponent));
+                BigInteger value;
+                if (exponent >= 0) {
+                    int shift = power.bitLength() - 128;
+                    value = shift > 0 ? power.shiftRight(shift) : power.shiftLeft(-shift);
+                } else {
+                    // 2^(bits + 127) / 10^-exponent is between 2^127 and 2^128
+                    value = BigInteger.ONE.shiftLeft(power.bitLength() + 127).divide(power);
+                }
+
+                int index = (exponent - MIN_EXPONENT)*2;
+                table[index] = value.shiftRight(64).longValue();
+                table[index + 1] = value.longValue();
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Finds the double closest to mantissa * 10^exponent
+     *
+     * @param mantissa the decimal digits, as an unsigned number of at most 19 digits
+     * @param exponent the power of ten
+     * @param negative whether the number is negative
+     * @param truncated whether there were more digits that didn't fit in the mantissa
+     * @return the correctly rounded double, or NaN if Double.parseDouble has to decide
+     */
+    static double toDouble(long mantissa, int exponent, boolean negative, boolean truncated) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+
+        if (!truncated && mantissa > 0 && mantissa <= MAX_EXACT_MANTISSA &&
+                exponent >= -22 && exponent <= 22) {
+            // Both numbers are exact so the one operation rounds correctly
+            double value = mantissa;
+            if (exponent < 0) {
+                value /= EXACT_POWERS_OF_TEN[-exponent];
+            } else {
+                value *= EXACT_POWERS_OF_TEN[exponent];
+            }
+            return negative ? -value : value;
+        }
+
+        double value = eiselLemire(mantissa, exponent, negative);
+        if (truncated && value == value) {
+            // The real mantissa is somewhere between mantissa and mantissa + 1
+            if (eiselLemire(mantissa + 1, exponent, negative) != value) {
+                return Double.NaN;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * The Eisel-Lemire algorithm, following the Go standard library's version
+     *
+     * @return the correctly rounded double, or NaN if it can't be sure of the rounding
+     */
+    private static double eiselLemire(long mantissa, int exponent, boolean negative) {
+        if (exponent < MIN_EXPONENT || exponent > MAX_EXPONENT) {
+            return Double.NaN;
+        }
+
+        // Normalize so the top bit is set
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        mantissa <<= leadingZeros;
+        // 217706 / 2^16 is log2(10)
+        long exponent2 = ((217706L*exponent) >> 16) + 64 + 1023 - leadingZeros;
+
+        int index = (exponent - MIN_EXPONENT)*2;
+        long[] table = PowersOfTen.TABLE;
+        long high = multiplyHigh(mantissa, table[index]);
+        long low = mantissa*table[index];
+
+        // If the bits that get rounded off are all ones, the low half of the power of ten matters
+        if ((high & 0x1FF) == 0x1FF && unsignedLess(low + mantissa, mantissa)) {
+            long lowHigh = multiplyHigh(mantissa, table[index + 1]);
+            long lowLow = mantissa*table[index + 1];
+            long mergedHigh = high;
+            long mergedLow = low + lowHigh;
+            if (unsignedLess(mergedLow, low)) {
+                mergedHigh++;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0 && unsignedLess(lowLow + mantissa, mantissa)) {
+                return Double.NaN;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+
+        // Shift down to 54 bits
+        long topBit = high >>> 63;
+        long result = high >>> (topBit + 9);
+        exponent2 -= 1 ^ topBit;
+
+        // Exactly half way between two doubles - can't tell which way to round
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+            return Double.NaN;
+        }
+
+        // Round to 53 bits
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            exponent2++;
+        }
+
+        // Subnormal, infinite or overflowed
+        if (exponent2 <= 0 || exponent2 >= 0x7FF) {
+            return Double.NaN;
+        }
+
+        long bits = (exponent2 << 52) | (result & 0x000FFFFFFFFFFFFFL);
+        if (negative) {
+            bits |= Long.MIN_VALUE;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * @return the high 64 bits of the unsigned 128-bit product of a and b
+     */
+    private static long multiplyHigh(long a, long b) {
+        long aLow = a & 0xFFFFFFFFL;
+        long aHigh = a >>> 32;
+        long bLow = b & 0xFFFFFFFFL;
+        long bHigh = b >>> 32;
+
+        long lowLow = aLow*bLow;
+        long highLow = aHigh*bLow;
+        long lowHigh = aLow*bHigh;
+        long highHigh = aHigh*bHigh;
+
+        long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + lowHigh;
+        return (highLow >>> 32) + (cross >>> 32) + highHigh;
+    }
+
+    private static boolean unsignedLess(long a, long b) {
+        return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+    }
+}
\ No newline at end of file
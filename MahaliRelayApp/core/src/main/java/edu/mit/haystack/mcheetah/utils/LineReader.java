@@ -0,0 +1,197 @@
+package edu.mit.haystack.mcheetah.utils;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * @author David Mascharka
+ *
+ * Reads a file line by line into the same character buffer, instead of making a new String for
+ * every line like BufferedReader.readLine
+ *
+ * The current line is this CharSequence, so it can be handed straight to the ParserUtils methods
+ * that parse part of a CharSequence or char array. It changes on every call to readLine, so copy
+ * anything that needs to be kept with toString
+ *
+ * Lines end at "\n", "\r" or "\r\n", the same as BufferedReader
+ *
+ * Note that this class is NOT thread safe
+ */
+public class LineReader implements CharSequence {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int DEFAULT_LINE_LENGTH = 128;
+
+    private final Reader reader;
+
+    private final char[] input;
+    private int inputPosition;
+    private int inputLength;
+
+    private char[] line;
+    private int length;
+
+    /**
+     * Set when a line ended with '\r', so a '\n' right after it isn't read as an empty line
+     */
+    private boolean skipNewline;
+
+    public LineReader(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param reader where to read from
+     * @param bufferSize how many characters to read from the reader at once
+     */
+    public LineReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        input = new char[Math.max(1, bufferSize)];
+        line = new char[DEFAULT_LINE_LENGTH];
+    }
+
+    /**
+     * Reads the next line, without the line terminator
+     *
+     * @return false if there are no more lines
+     * @throws IOException if the reader fails
+     */
+    public boolean readLine() throws IOException {
+        length = 0;
+        boolean read = false;
+
+        while (true) {
+            if (inputPosition >= inputLength) {
+                inputLength = reader.read(input, 0, input.length);
+                inputPosition = 0;
+                if (inputLength <= 0) {
+                    inputLength = 0;
+                    // The last line doesn't need a line terminator
+                    return read;
+                }
+            }
+
+            if (skipNewline) {
+                skipNewline = false;
+                if (input[inputPosition] == '\n') {
+                    inputPosition++;
+                    continue;
+                }
+            }
+
+            read = true;
+
+            // Copy up to the end of the line or the end of what's been read, whichever is first
+            int start = inputPosition;
+            int end = start;
+            while (end < inputLength && input[end] != '\n' && input[end] != '\r') {
+                end++;
+            }
+            append(start, end - start);
+
+            if (end < inputLength) {
+                skipNewline = input[end] == '\r';
+                inputPosition = end + 1;
+                return true;
+            }
+            inputPosition = end;
+        }
+    }
+
+    private void append(int start, int count) {
+        if (length + count > line.length) {
+            char[] bigger = new char[Math.max(line.length*2, length + count)];
+            System.arraycopy(line, 0, bigger, 0, length);
+            line = bigger;
+        }
+        System.arraycopy(input, start, line, length, count);
+        length += count;
+    }
+
+    /**
+     * @return the buffer holding the current line, from index 0 to length(). Only valid until the
+     * next call to readLine
+     */
+    public char[] getBuffer() {
+        return line;
+    }
+
+    /**
+     * Checks whether the current line contains some text, like String.contains without making a String
+     *
+     * @param text what to look for
+     * @return true if the line contains the text
+     */
+    public boolean contains(String text) {
+        int count = text.length();
+        int last = length - count;
+        for (int i = 0; i <= last; i++) {
+            int j = 0;
+            while (j < count && line[i + j] == text.charAt(j)) {
+                j++;
+            }
+            if (j == count) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return line[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new String(line, start, end - start);
+    }
+
+    /**
+     * @return a copy of the current line
+     */
+    @Override
+    public String toString() {
+        return new String(line, 0, length);
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+}
\ No newline at end of file
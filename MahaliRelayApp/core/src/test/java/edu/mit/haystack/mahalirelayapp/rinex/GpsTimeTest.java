@@ -0,0 +1,201 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David Mascharka
+ *
+ * GpsTime against the Calendar conversion it replaced, across week rollovers and leap days
+ */
+public class GpsTimeTest {
+
+    /**
+     * Epoch lines like receivers write them, covering both week number rollovers, leap days and
+     * the 1999/2000 change in two-digit years
+     */
+    private static final String[] EPOCH_LINES = {
+            " 99  8 21 23 59 50.0000000  0  1G01",
+            " 99  8 22  0  0  0.0000000  0  1G01",
+            " 99 12 31 23 59 59.0000000  0  1G01",
+            " 00  1  1  0  0  0.0000000  0  1G01",
+            " 00  2 29 12 30 30.0000000  0  1G01",
+            " 15  5 18  0  0  0.0000000  0  1G01",
+            " 15  5 18 17 41 20.0000000  0  1G01",
+            " 16  2 28 23 59 59.0000000  0  1G01",
+            " 16  2 29  0  0  0.0000000  0  1G01",
+            " 16  3  1  0  0  0.0000000  0  1G01",
+            " 19  4  6 23 59 59.0000000  0  1G01",
+            " 19  4  7  0  0  0.0000000  0  1G01",
+            " 79 12 31 23 59 59.0000000  0  1G01",
+            " 80  1  6  0  0  0.0000000  0  1G01"
+    };
+
+    @Test
+    public void weekRollovers() {
+        long rollover1999 = GpsTime.toMillis(1999, 8, 22, 0, 0, 0);
+        assertEquals(1024, GpsTime.getWeek(rollover1999));
+        assertEquals(0, GpsTime.getSecondsOfWeek(rollover1999));
+        assertEquals(1023, GpsTime.getWeek(rollover1999 - 1000));
+        assertEquals(GpsTime.SECONDS_PER_WEEK - 1, GpsTime.getSecondsOfWeek(rollover1999 - 1000));
+
+        long rollover2019 = GpsTime.toMillis(2019, 4, 7, 0, 0, 0);
+        assertEquals(2048, GpsTime.getWeek(rollover2019));
+        assertEquals(0, GpsTime.getSecondsOfWeek(rollover2019));
+        assertEquals(2047, GpsTime.getWeek(rollover2019 - 1000));
+        assertEquals(GpsTime.SECONDS_PER_WEEK - 1, GpsTime.getSecondsOfWeek(rollover2019 - 1000));
+
+        assertEquals(GpsTime.GPS_EPOCH_MILLIS, GpsTime.toMillis(1980, 1, 6, 0, 0, 0));
+        assertEquals(rollover1999, GpsTime.toMillis(1024, 0));
+        assertEquals(rollover2019 - 1000, GpsTime.toMillis(2047, GpsTime.SECONDS_PER_WEEK - 1));
+        assertEquals(rollover2019 + 1500, GpsTime.toMillis(2048, 1.5));
+    }
+
+    @Test
+    public void wrapWeek() {
+        // Just after the rollover against an ephemeris from just before it
+        assertEquals(7230, GpsTime.wrapWeek(30 - 597600), 0);
+        assertEquals(-7230, GpsTime.wrapWeek(597600 - 30), 0);
+        assertEquals(-3600, GpsTime.wrapWeek(-3600), 0);
+        assertEquals(GpsTime.SECONDS_PER_WEEK/2, GpsTime.wrapWeek(GpsTime.SECONDS_PER_WEEK/2), 0);
+    }
+
+    @Test
+    public void leapDays() {
+        assertDate(2016, 2, 29, GpsTime.toMillis(2016, 2, 29, 12, 0, 0));
+        assertDate(2016, 3, 1, GpsTime.toMillis(2016, 2, 29, 0, 0, 0) + GpsTime.MILLIS_PER_DAY);
+        assertDate(2000, 2, 29, GpsTime.toMillis(2000, 2, 28, 23, 0, 0) + 3600000);
+        assertDate(2000, 12, 31, GpsTime.toMillis(2000, 1, 1, 0, 0, 0) + 365*GpsTime.MILLIS_PER_DAY);
+        // 1900 and 2100 aren't leap years
+        assertDate(1900, 3, 1, GpsTime.toMillis(1900, 2, 28, 0, 0, 0) + GpsTime.MILLIS_PER_DAY);
+        assertDate(2100, 3, 1, GpsTime.toMillis(2100, 2, 28, 0, 0, 0) + GpsTime.MILLIS_PER_DAY);
+        assertEquals(GpsTime.toMillis(2016, 3, 1, 0, 0, 0), GpsTime.toMillis(2016, 2, 30, 0, 0, 0));
+    }
+
+    @Test
+    public void fieldsMatchCalendar() {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.US);
+        for (long t = GpsTime.toMillis(1969, 12, 1, 0, 0, 0); t < GpsTime.toMillis(2030, 1, 1, 0, 0, 0); t += 7777777L*1000) {
+            utc.setTimeInMillis(t);
+            assertDate(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH) + 1, utc.get(Calendar.DAY_OF_MONTH), t);
+            assertEquals(utc.get(Calendar.HOUR_OF_DAY), GpsTime.getHour(t));
+            assertEquals(utc.get(Calendar.MINUTE), GpsTime.getMinute(t));
+            assertEquals(utc.get(Calendar.SECOND), GpsTime.getSecond(t));
+            assertEquals(oldSecondsOfWeek(utc), GpsTime.getSecondsOfWeek(t));
+            assertEquals(t - utc.get(Calendar.HOUR_OF_DAY)*3600000L - utc.get(Calendar.MINUTE)*60000L
+                    - utc.get(Calendar.SECOND)*1000L - utc.get(Calendar.MILLISECOND), GpsTime.getStartOfDay(t));
+        }
+    }
+
+    @Test
+    public void parsedEpochsMatchCalendar() throws IOException {
+        File file = File.createTempFile("epochs", ".15o");
+        try {
+            writeEpochs(file);
+            List<GPSObservation> parsed = new RinexObservationParser().parse(file, 1);
+            assertEquals(EPOCH_LINES.length, parsed.size());
+
+            // What the parser used to do, in UTC rather than the device's time zone
+            Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.US);
+            for (int i = 0; i < EPOCH_LINES.length; i++) {
+                String[] fields = EPOCH_LINES[i].trim().split(" +");
+                int year = Integer.parseInt(fields[0]);
+                year += year < 80 ? 2000 : 1900;
+                cal.set(year, Integer.parseInt(fields[1]) - 1, Integer.parseInt(fields[2]),
+                        Integer.parseInt(fields[3]), Integer.parseInt(fields[4]),
+                        (int) Double.parseDouble(fields[5]));
+                cal.set(Calendar.MILLISECOND, 0);
+
+                long millis = parsed.get(i).time.getTime();
+                assertEquals(EPOCH_LINES[i], cal.getTimeInMillis(), millis);
+                assertEquals(EPOCH_LINES[i], oldSecondsOfWeek(cal), GpsTime.getSecondsOfWeek(millis));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void ephemerisIsContinuousOverTheRollover() {
+        // Sent Saturday 22:00 before the 2019 rollover
+        GPSEphemeris ephemeris = new GPSEphemeris((short) 2019, (byte) 4, (byte) 6, (byte) 22, (byte) 0,
+                (byte) 0, (byte) 1, 597600, 5153.65, 0.0058, 0.96, -1.1, 0.7, 2.1, 1.0e-10, -8.0e-9,
+                4.5e-9, 1.0e-6, 8.0e-6, 200.0, 20.0, 1.0e-7, -1.0e-7);
+
+        long rollover = GpsTime.toMillis(2019, 4, 7, 0, 0, 0);
+        double[] before = ephemeris.getSatelliteXYZ(rollover - 1000);
+        double[] after = ephemeris.getSatelliteXYZ(rollover);
+
+        // GPS satellites move about 4 km/s
+        double dx = after[0] - before[0];
+        double dy = after[1] - before[1];
+        double dz = after[2] - before[2];
+        double distance = Math.sqrt(dx*dx + dy*dy + dz*dz);
+        assertTrue("moved " + distance + " m in one second", distance > 1000 && distance < 6000);
+    }
+
+    /**
+     * The seconds of week formula GPSEphemeris used before GpsTime
+     */
+    private static int oldSecondsOfWeek(Calendar cal) {
+        return (cal.get(Calendar.DAY_OF_WEEK) - 1)*3600*24 + cal.get(Calendar.HOUR_OF_DAY)*3600
+                + cal.get(Calendar.MINUTE)*60 + cal.get(Calendar.SECOND);
+    }
+
+    private static void assertDate(int year, int month, int day, long timeMillis) {
+        assertEquals(year, GpsTime.getYear(timeMillis));
+        assertEquals(month, GpsTime.getMonth(timeMillis));
+        assertEquals(day, GpsTime.getDay(timeMillis));
+    }
+
+    private static void writeEpochs(File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            writer.write(String.format(Locale.US, "%-60s%s\n", "     2.11           OBSERVATION DATA    G (GPS)", "RINEX VERSION / TYPE"));
+            writer.write(String.format(Locale.US, "%-60s%s\n", "     5    L1    L2    P1    P2    C1", "# / TYPES OF OBSERV"));
+            writer.write(String.format(Locale.US, "%-60s%s\n", "", "END OF HEADER"));
+            for (String line : EPOCH_LINES) {
+                writer.write(line + "\n");
+                writer.write("  114956207.214 7  89576245.162 7  21875632.281 7  21875637.422 7  21875631.907 7\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
\ No newline at end of file
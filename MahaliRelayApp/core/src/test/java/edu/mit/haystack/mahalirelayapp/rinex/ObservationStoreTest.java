@@ -0,0 +1,247 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David Mascharka
+ *
+ * ObservationStore's sorts must put observations in the same order Collections.sort did when the
+ * data was a list of GPSObservations
+ */
+public class ObservationStoreTest {
+
+    /**
+     * PRNs at both ends of a byte as well as the usual 1-32
+     */
+    private static final byte[] EDGE_PRNS = {-128, -127, -1, 0, 1, 2, 31, 32, 126, 127};
+
+    @Test
+    public void sortMatchesCollectionsSort() {
+        Random random = new Random(24);
+        for (int round = 0; round < 200; round++) {
+            ObservationStore store = randomStore(random, random.nextInt(2000), round % 2 == 0);
+            List<GPSObservation> expected = copy(store);
+            Collections.sort(expected);
+
+            store.sort();
+            assertSameRows(expected, store);
+        }
+    }
+
+    @Test
+    public void sortByTimeMatchesCollectionsSort() {
+        Random random = new Random(25);
+        for (int round = 0; round < 200; round++) {
+            ObservationStore store = randomStore(random, random.nextInt(2000), round % 2 == 0);
+            // Sorted by PRN first, as TECComputer leaves it
+            store.sort();
+            List<GPSObservation> expected = copy(store);
+            Collections.sort(expected, new Comparator<GPSObservation>() {
+                @Override
+                public int compare(GPSObservation lhs, GPSObservation rhs) {
+                    return lhs.time.compareTo(rhs.time);
+                }
+            });
+
+            store.sortByTime();
+            assertSameRows(expected, store);
+        }
+    }
+
+    @Test
+    public void rowsByTimeLeavesTheStoreAlone() {
+        Random random = new Random(27);
+        for (int round = 0; round < 100; round++) {
+            ObservationStore store = randomStore(random, random.nextInt(2000), round % 2 == 0);
+            store.sort();
+            List<GPSObservation> before = copy(store);
+
+            int[] rows = store.rowsByTime(0.5);
+            assertSameRows(before, store);
+
+            ObservationStore expected = new ObservationStore(before);
+            expected.retainSlantTECBelow(0.5);
+            expected.sortByTime();
+            assertEquals(expected.size(), rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                assertEquals(expected.get(i).phase, store.phase[rows[i]], 0);
+            }
+        }
+    }
+
+    @Test
+    public void subListsCopyAndWriteThrough() {
+        Random random = new Random(28);
+        ObservationStore store = randomStore(random, 300, true);
+        List<GPSObservation> expected = copy(store);
+
+        ObservationStore copied = new ObservationStore();
+        copied.addAll(store.subList(0, 0));
+        copied.addAll(store.subList(10, 150));
+        copied.addAll(store.subList(150, 300));
+        assertSameRows(expected.subList(10, 300), copied);
+
+        List<GPSObservation> rows = store.subList(100, 110);
+        GPSObservation o = rows.get(3);
+        o.phase = -1;
+        rows.set(3, o);
+        assertEquals(-1, store.phase[103], 0);
+
+        rows.remove(0);
+        rows.add(9, o);
+        assertEquals(10, rows.size());
+        assertEquals(300, store.size());
+        assertEquals(-1, store.phase[109], 0);
+        assertEquals(expected.get(101).phase, store.phase[100], 0);
+
+        store.add(0, (byte) 1, 0, 0);
+        try {
+            rows.size();
+            fail("the store changed under the view");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void sortsInFileOrder() {
+        // Epochs in time order with satellites in PRN order, like a RINEX file
+        ObservationStore store = new ObservationStore();
+        for (int epoch = 0; epoch < 100; epoch++) {
+            for (byte prn : EDGE_PRNS) {
+                if ((epoch + prn) % 3 != 0) {
+                    store.add(epoch*10000L, prn, epoch, store.size());
+                }
+            }
+        }
+        List<GPSObservation> expected = copy(store);
+        Collections.sort(expected);
+
+        store.sort();
+        assertSameRows(expected, store);
+
+        // And back again
+        store.sortByTime();
+        Collections.sort(expected, new Comparator<GPSObservation>() {
+            @Override
+            public int compare(GPSObservation lhs, GPSObservation rhs) {
+                return lhs.time.compareTo(rhs.time);
+            }
+        });
+        assertSameRows(expected, store);
+    }
+
+    @Test
+    public void sortsEmptyAndSingleStores() {
+        ObservationStore store = new ObservationStore();
+        store.sort();
+        store.sortByTime();
+        assertEquals(0, store.size());
+
+        store.add(5, (byte) 127, 1, 2);
+        store.sort();
+        store.sortByTime();
+        assertEquals(1, store.size());
+        assertEquals(127, store.prn[0]);
+        assertEquals(5, store.timeMillis[0]);
+    }
+
+    @Test
+    public void prnRangesFollowTheSort() {
+        Random random = new Random(26);
+        for (int round = 0; round < 50; round++) {
+            ObservationStore store = randomStore(random, random.nextInt(500), true);
+            store.sort();
+            for (int p = Byte.MIN_VALUE; p <= Byte.MAX_VALUE; p++) {
+                byte prn = (byte) p;
+                int start = store.prnStart(prn);
+                int end = store.prnEnd(prn);
+                for (int i = 0; i < store.size(); i++) {
+                    assertEquals(i >= start && i < end, store.prn[i] == prn);
+                }
+                assertTrue(start <= end);
+                assertTrue(start == store.size() || store.prn[start] >= prn);
+            }
+        }
+    }
+
+    /**
+     * Random observations with lots of ties in PRN and time. Phase holds the row the observation
+     * was added as, so a sort that isn't stable shows up
+     *
+     * @param edges whether to use PRNs at the ends of a byte or only 1-32
+     */
+    private static ObservationStore randomStore(Random random, int size, boolean edges) {
+        ObservationStore store = new ObservationStore();
+        for (int i = 0; i < size; i++) {
+            byte prn = edges ? EDGE_PRNS[random.nextInt(EDGE_PRNS.length)] : (byte) (1 + random.nextInt(32));
+            int row = store.add(random.nextInt(50)*10000L, prn, random.nextGaussian(), i);
+            store.elevation[row] = random.nextDouble();
+            store.slantTEC[row] = random.nextDouble();
+            store.tecError[row] = random.nextDouble();
+            store.verticalTEC[row] = random.nextDouble();
+        }
+        return store;
+    }
+
+    /**
+     * @return separate GPSObservations for every row, which don't change when the store does
+     */
+    private static List<GPSObservation> copy(ObservationStore store) {
+        List<GPSObservation> copies = new ArrayList<GPSObservation>(store.size());
+        for (GPSObservation o : store) {
+            copies.add(o);
+        }
+        return copies;
+    }
+
+    private static void assertSameRows(List<GPSObservation> expected, ObservationStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            GPSObservation e = expected.get(i);
+            assertEquals(e.time, new Date(actual.timeMillis[i]));
+            assertEquals(e.prn, actual.prn[i]);
+            assertEquals(e.phase, actual.phase[i], 0);
+            assertEquals(e.elevation, actual.elevation[i], 0);
+            assertEquals(e.differentialRange, actual.differentialRange[i], 0);
+            assertEquals(e.slantTEC, actual.slantTEC[i], 0);
+            assertEquals(e.tecError, actual.tecError[i], 0);
+            assertEquals(e.verticalTEC, actual.verticalTEC[i], 0);
+        }
+    }
+}
\ No newline at end of file
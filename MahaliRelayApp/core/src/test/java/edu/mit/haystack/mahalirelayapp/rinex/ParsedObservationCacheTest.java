@@ -0,0 +1,188 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mit.haystack.mahalirelayapp.MahaliData;
+import edu.mit.haystack.mcheetah.parsing.ParsedFileCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David Mascharka
+ *
+ * Which epochs each density keeps, and that parsing only the epochs the cache is missing gives the
+ * same data as parsing the file from scratch
+ */
+public class ParsedObservationCacheTest {
+
+    private static File obsFile;
+
+    @BeforeClass
+    public static void writeFile() throws IOException {
+        obsFile = File.createTempFile("cache", ".15o");
+        RinexTestFiles.writeObservationFile(obsFile, 503, 7);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        obsFile.delete();
+    }
+
+    @Test
+    public void densityKeepsEveryNthEpochFromTheFirst() {
+        List<Long> all = epochTimes(new RinexObservationParser().parse(obsFile, 1));
+        // Every epoch in the test file has data
+        assertEquals(503, all.size());
+
+        for (int density : new int[] {2, 3, 10}) {
+            List<Long> expected = new ArrayList<Long>();
+            for (int i = 0; i < all.size(); i += density) {
+                expected.add(all.get(i));
+            }
+            assertEquals("density " + density, expected,
+                    epochTimes(new RinexObservationParser().parse(obsFile, density)));
+        }
+    }
+
+    @Test
+    public void filledInDensityMatchesAFreshParse() throws IOException {
+        ParsedFileCache<GPSObservation> cache = new ParsedFileCache<GPSObservation>();
+        RinexObservationParser parser = new RinexObservationParser();
+
+        RinexObservationParserTest.assertSameObservations(fresh(10), cache.parse(obsFile, 10, parser));
+        RinexObservationParserTest.assertSameObservations(fresh(1), cache.parse(obsFile, 1, parser));
+        RinexObservationParserTest.assertSameObservations(fresh(3), cache.parse(obsFile, 3, parser));
+        RinexObservationParserTest.assertSameObservations(fresh(10), cache.parse(obsFile, 10, parser));
+    }
+
+    @Test
+    public void cacheOnDiskMatchesAFreshParse() throws IOException {
+        File directory = Files.createTempDirectory("parsed").toFile();
+        try {
+            ParsedFileCache<GPSObservation> cache =
+                    new ParsedFileCache<GPSObservation>(directory, new GPSObservationCodec());
+            RinexObservationParser parser = new RinexObservationParser();
+            cache.parse(obsFile, 10, parser);
+            cache.parse(obsFile, 4, parser);
+            assertEquals(1, directory.list().length);
+
+            // A new cache only has what was written to disk: epochs 0, 4, 8, 10, 12, ...
+            ParsedFileCache<GPSObservation> reopened =
+                    new ParsedFileCache<GPSObservation>(directory, new GPSObservationCodec());
+            RinexObservationParserTest.assertSameObservations(fresh(2), reopened.parse(obsFile, 2, parser));
+            RinexObservationParserTest.assertSameObservations(fresh(1), reopened.parse(obsFile, 1, parser));
+        } finally {
+            for (File f : directory.listFiles()) {
+                f.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void cacheOnDiskSetsTheReceiverPosition() throws IOException {
+        File directory = Files.createTempDirectory("parsed").toFile();
+        try {
+            RinexObservationParser parser = new RinexObservationParser();
+            new ParsedFileCache<GPSObservation>(directory, new GPSObservationCodec()).parse(obsFile, 1, parser);
+
+            // The reopened cache has every epoch on disk, so it never parses the observations
+            MahaliData.mahaliX = Double.MAX_VALUE;
+            MahaliData.mahaliY = Double.MAX_VALUE;
+            MahaliData.mahaliZ = Double.MAX_VALUE;
+            ParsedFileCache<GPSObservation> reopened =
+                    new ParsedFileCache<GPSObservation>(directory, new GPSObservationCodec());
+            List<GPSObservation> cached = reopened.parse(obsFile, 2, parser);
+
+            assertEquals(RinexTestFiles.RECEIVER_X, MahaliData.mahaliX, 1e-9);
+            assertEquals(RinexTestFiles.RECEIVER_Y, MahaliData.mahaliY, 1e-9);
+            assertEquals(RinexTestFiles.RECEIVER_Z, MahaliData.mahaliZ, 1e-9);
+            RinexObservationParserTest.assertSameObservations(fresh(2), cached);
+        } finally {
+            for (File f : directory.listFiles()) {
+                f.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void storesMatchAFreshParse() throws IOException {
+        File directory = Files.createTempDirectory("parsed").toFile();
+        try {
+            ParsedFileCache<GPSObservation> cache =
+                    new ParsedFileCache<GPSObservation>(directory, new GPSObservationCodec());
+            cache.setListFactory(RinexTestFiles.STORES);
+            RinexObservationParser parser = new RinexObservationParser();
+
+            List<GPSObservation> parsed = cache.parse(obsFile, 10, parser);
+            assertTrue(parsed instanceof ObservationStore);
+            RinexObservationParserTest.assertSameObservations(fresh(10), parsed);
+            RinexObservationParserTest.assertSameObservations(fresh(1), cache.parse(obsFile, 1, parser));
+            RinexObservationParserTest.assertSameObservations(fresh(3), cache.parse(obsFile, 3, parser));
+
+            ParsedFileCache<GPSObservation> reopened =
+                    new ParsedFileCache<GPSObservation>(directory, new GPSObservationCodec());
+            reopened.setListFactory(RinexTestFiles.STORES);
+            parsed = reopened.parse(obsFile, 2, parser);
+            assertTrue(parsed instanceof ObservationStore);
+            RinexObservationParserTest.assertSameObservations(fresh(2), parsed);
+        } finally {
+            for (File f : directory.listFiles()) {
+                f.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static List<GPSObservation> fresh(int density) {
+        return new RinexObservationParser().parse(obsFile, density);
+    }
+
+    /**
+     * @return the time of each epoch in the observations, in order
+     */
+    private static List<Long> epochTimes(List<GPSObservation> observations) {
+        List<Long> times = new ArrayList<Long>();
+        for (GPSObservation o : observations) {
+            long time = o.time.getTime();
+            if (times.isEmpty() || times.get(times.size() - 1) != time) {
+                times.add(time);
+            }
+        }
+        return times;
+    }
+}
\ No newline at end of file
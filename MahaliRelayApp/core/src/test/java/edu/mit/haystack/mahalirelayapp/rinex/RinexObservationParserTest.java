@@ -0,0 +1,156 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mit.haystack.mcheetah.DataProcessEngine;
+import edu.mit.haystack.mcheetah.parsing.FileSplit;
+import edu.mit.haystack.mcheetah.parsing.ListSink;
+import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.parsing.ParserFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David Mascharka
+ *
+ * Splitting a file across parser threads must not change what's parsed, at any density
+ */
+public class RinexObservationParserTest {
+
+    private static File obsFile;
+
+    @BeforeClass
+    public static void writeFile() throws IOException {
+        obsFile = File.createTempFile("split", ".15o");
+        RinexTestFiles.writeObservationFile(obsFile, 2003, 5);
+        assertTrue(obsFile.length() >= DataProcessEngine.MIN_SPLIT_BYTES);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        obsFile.delete();
+    }
+
+    @Test
+    public void splitsJoinToTheWholeFile() throws IOException {
+        List<GPSObservation> whole = new RinexObservationParser().parse(obsFile, 1);
+
+        RinexObservationParser parser = new RinexObservationParser();
+        List<FileSplit> splits = parser.split(obsFile, 4);
+        assertEquals(4, splits.size());
+
+        List<GPSObservation> joined = new ArrayList<GPSObservation>();
+        for (FileSplit split : splits) {
+            ListSink<GPSObservation> sink = new ListSink<GPSObservation>();
+            new RinexObservationParser().parse(split, 1, sink);
+            joined.addAll(sink.getData());
+        }
+
+        assertSameObservations(whole, joined);
+    }
+
+    @Test
+    public void parserThreadsDontChangeTheData() {
+        for (int density : new int[] {1, 3, 10}) {
+            List<GPSObservation> whole = new RinexObservationParser().parse(obsFile, density);
+            for (int threads : new int[] {1, 2, 4, 8}) {
+                assertSameObservations(whole, parseWithEngine(density, threads, false, false));
+            }
+        }
+    }
+
+    @Test
+    public void parsingIntoStoresMatchesObjects() throws IOException {
+        for (int density : new int[] {1, 3, 10}) {
+            List<GPSObservation> whole = new RinexObservationParser().parse(obsFile, density);
+
+            ObservationStore store = new ObservationStore();
+            new RinexObservationParser().parse(obsFile, density, store);
+            assertSameObservations(whole, store);
+
+            for (int threads : new int[] {1, 2, 4, 8}) {
+                assertSameObservations(whole, parseWithEngine(density, threads, true, false));
+                assertSameObservations(whole, parseWithEngine(density, threads, true, true));
+            }
+        }
+    }
+
+    /**
+     * @param stores whether to parse into ObservationStores all the way through, like the app
+     * @param cached whether to parse through a parsed data cache
+     */
+    private static List<GPSObservation> parseWithEngine(int density, int threads, boolean stores, boolean cached) {
+        DataProcessEngine<GPSObservation> engine = new DataProcessEngine<GPSObservation>();
+        engine.setParserFactory(new ParserFactory<GPSObservation>() {
+            @Override
+            public Parser<GPSObservation> newParser() {
+                return new RinexObservationParser();
+            }
+        });
+        engine.setParserThreads(threads);
+        engine.setOnlineTuning(false);
+        engine.setReuseParsedData(cached);
+        List<GPSObservation> data;
+        if (stores) {
+            data = new ObservationStore();
+            engine.setDataListFactory(RinexTestFiles.STORES);
+        } else {
+            data = new ArrayList<GPSObservation>();
+        }
+        engine.setDataObject(data);
+        try {
+            assertEquals(0, engine.parse(new File[] {obsFile}, density));
+        } finally {
+            engine.shutdown();
+        }
+        return data;
+    }
+
+    /**
+     * Checks the parsed fields of two lists of observations are exactly the same, in the same order
+     */
+    static void assertSameObservations(List<GPSObservation> expected, List<GPSObservation> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            GPSObservation e = expected.get(i);
+            GPSObservation a = actual.get(i);
+            assertEquals("time of " + i, e.time.getTime(), a.time.getTime());
+            assertEquals("prn of " + i, e.prn, a.prn);
+            assertEquals("range of " + i, Double.doubleToLongBits(e.differentialRange),
+                    Double.doubleToLongBits(a.differentialRange));
+            assertEquals("phase of " + i, Double.doubleToLongBits(e.phase), Double.doubleToLongBits(a.phase));
+        }
+    }
+}
\ No newline at end of file
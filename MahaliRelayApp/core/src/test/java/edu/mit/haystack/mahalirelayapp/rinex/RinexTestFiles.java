@@ -0,0 +1,144 @@
+package edu.mit.haystack.mahalirelayapp.rinex;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import edu.mit.haystack.mcheetah.parsing.DataListFactory;
+
+/**
+ * @author David Mascharka
+ *
+ * Writes small RINEX observation files for tests
+ *
+ * The values aren't physical, they only need to parse. Each epoch has a random set of satellites,
+ * sometimes more than fit on the epoch line, and some observations are missing L2 so they're
+ * dropped. The first satellite of every epoch is always good, so every epoch has data
+ */
+class RinexTestFiles {
+
+    static final int START_YEAR = 2015;
+    static final int START_MONTH = 5;
+    static final int START_DAY = 18;
+
+    static final int INTERVAL_SECONDS = 10;
+
+    /**
+     * The APPROX POSITION XYZ in the header, in ECEF coordinates
+     */
+    static final double RECEIVER_X = 1492206.366;
+    static final double RECEIVER_Y = -4457297.248;
+    static final double RECEIVER_Z = 4296835.74;
+
+    /**
+     * Makes ObservationStores, the way the app sets up the engine
+     */
+    static final DataListFactory<GPSObservation> STORES = new DataListFactory<GPSObservation>() {
+        @Override
+        public List<GPSObservation> newList(int capacity) {
+            return new ObservationStore(capacity);
+        }
+    };
+
+    private RinexTestFiles() {}
+
+    /**
+     * @param file where to write
+     * @param epochs how many epochs to write
+     * @param seed seed for the satellites and values
+     */
+    static void writeObservationFile(File file, int epochs, long seed) throws IOException {
+        Random random = new Random(seed);
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            writeHeaderLine(writer, "     2.11           OBSERVATION DATA    G (GPS)", "RINEX VERSION / TYPE");
+            writeHeaderLine(writer, String.format(Locale.US, "%14.4f%14.4f%14.4f", RECEIVER_X, RECEIVER_Y,
+                    RECEIVER_Z), "APPROX POSITION XYZ");
+            writeHeaderLine(writer, "     5    L1    L2    P1    P2    C1", "# / TYPES OF OBSERV");
+            writeHeaderLine(writer, String.format(Locale.US, "%10.3f", (double) INTERVAL_SECONDS), "INTERVAL");
+            writeHeaderLine(writer, "", "END OF HEADER");
+
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                List<Integer> prns = new ArrayList<Integer>();
+                for (int prn = 1; prn <= 32; prn++) {
+                    if (random.nextInt(3) == 0) {
+                        prns.add(prn);
+                    }
+                }
+                if (prns.isEmpty()) {
+                    prns.add(1 + random.nextInt(32));
+                }
+
+                int seconds = epoch*INTERVAL_SECONDS;
+                StringBuilder line = new StringBuilder(String.format(Locale.US,
+                        " %02d %2d %2d %2d %2d%11.7f  0%3d", START_YEAR % 100, START_MONTH,
+                        START_DAY + seconds/86400, seconds/3600 % 24, seconds/60 % 60,
+                        (double) (seconds % 60), prns.size()));
+                for (int i = 0; i < prns.size(); i++) {
+                    if (i > 0 && i % 12 == 0) {
+                        line.append("\n                                ");
+                    }
+                    line.append(String.format(Locale.US, "G%02d", prns.get(i)));
+                }
+                writer.write(line.append('\n').toString());
+
+                for (int i = 0; i < prns.size(); i++) {
+                    double range = 2.0e7 + random.nextDouble()*5.0e6;
+                    boolean bad = i > 0 && random.nextInt(20) == 0;
+                    line.setLength(0);
+                    appendObservation(line, range/0.19 + random.nextInt(1000000));
+                    if (bad) {
+                        line.append("                ");
+                    } else {
+                        appendObservation(line, range/0.244 + random.nextInt(1000000));
+                    }
+                    appendObservation(line, range + random.nextGaussian());
+                    appendObservation(line, range + 5 + random.nextGaussian());
+                    appendObservation(line, range + random.nextGaussian());
+                    writer.write(line.append('\n').toString());
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void appendObservation(StringBuilder line, double value) {
+        line.append(String.format(Locale.US, "%14.3f 7", value));
+    }
+
+    private static void writeHeaderLine(Writer writer, String content, String label) throws IOException {
+        writer.write(String.format(Locale.US, "%-60s%s\n", content, label));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package edu.mit.haystack.mcheetah;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.mit.haystack.mcheetah.parsing.DataSink;
+import edu.mit.haystack.mcheetah.parsing.FileSplit;
+import edu.mit.haystack.mcheetah.parsing.ListSink;
+import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.parsing.ParserFactory;
+import edu.mit.haystack.mcheetah.parsing.SplittableParser;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David Mascharka
+ *
+ * A file that fails to parse counts as one failure and adds none of its data, however it was parsed
+ */
+public class DataProcessEngineTest {
+
+    /**
+     * Every record is one fixed width line, so files can be split anywhere on a record boundary
+     */
+    private static final int RECORD_BYTES = 8;
+
+    /**
+     * Enough records that the files are big enough to split
+     */
+    private static final int RECORDS = (int) (DataProcessEngine.MIN_SPLIT_BYTES / RECORD_BYTES) + 1000;
+
+    private static File goodFile;
+    private static File halfBadFile;
+    private static File badFile;
+
+    @BeforeClass
+    public static void writeFiles() throws IOException {
+        goodFile = File.createTempFile("good", ".txt");
+        writeRecords(goodFile, -1, -1);
+        // Only the last split of this file fails
+        halfBadFile = File.createTempFile("halfbad", ".txt");
+        writeRecords(halfBadFile, RECORDS - 10, -1);
+        // One bad record near each end, so every split of the file fails
+        badFile = File.createTempFile("bad", ".txt");
+        writeRecords(badFile, 10, RECORDS - 10);
+    }
+
+    @AfterClass
+    public static void deleteFiles() {
+        goodFile.delete();
+        halfBadFile.delete();
+        badFile.delete();
+    }
+
+    @Test
+    public void failedSplitsCountTheFileOnce() {
+        List<Integer> data = new ArrayList<Integer>();
+        List<File> errors = Collections.synchronizedList(new ArrayList<File>());
+        DataProcessEngine<Integer> engine = engine(data, errors);
+        // Three files on six threads, so each file is split in two
+        engine.setParserThreads(6);
+        try {
+            assertEquals(2, engine.parse(new File[] {goodFile, halfBadFile, badFile}, 1));
+        } finally {
+            engine.shutdown();
+        }
+
+        assertEquals(2, errors.size());
+        assertTrue(errors.contains(halfBadFile));
+        assertTrue(errors.contains(badFile));
+        // Nothing from the split that worked in the half bad file
+        assertEquals(RECORDS, data.size());
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(i, (int) data.get(i));
+        }
+    }
+
+    @Test
+    public void failedStreamingParseAddsNothing() {
+        List<Integer> data = new ArrayList<Integer>();
+        List<File> errors = Collections.synchronizedList(new ArrayList<File>());
+        DataProcessEngine<Integer> engine = engine(data, errors);
+        // One thread so nothing is split, and a budget smaller than one file
+        engine.setParserThreads(1);
+        engine.setRecordBudget(RECORDS / 10);
+        try {
+            // The half bad file fails after most of its chunks have parsed
+            assertEquals(1, engine.parse(new File[] {halfBadFile, goodFile}, 1));
+        } finally {
+            engine.shutdown();
+        }
+
+        assertEquals(Collections.singletonList(halfBadFile), errors);
+        assertEquals(RECORDS, data.size());
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(i, (int) data.get(i));
+        }
+    }
+
+    private static DataProcessEngine<Integer> engine(List<Integer> data, final List<File> errors) {
+        DataProcessEngine<Integer> engine = new DataProcessEngine<Integer>();
+        engine.setDataObject(data);
+        engine.setParserFactory(new ParserFactory<Integer>() {
+            @Override
+            public Parser<Integer> newParser() {
+                return new RecordParser();
+            }
+        });
+        engine.setErrorListener(new DataProcessEngine.ErrorListener() {
+            @Override
+            public void onParseError(File file, Exception e) {
+                errors.add(file);
+            }
+        });
+        return engine;
+    }
+
+    /**
+     * Write records 0, 1, 2, ... with "bad" in place of the records at the given indices
+     */
+    private static void writeRecords(File file, int badIndex, int otherBadIndex) throws IOException {
+        Writer out = Files.newBufferedWriter(file.toPath(), Charset.forName("US-ASCII"));
+        try {
+            for (int i = 0; i < RECORDS; i++) {
+                out.write(i == badIndex || i == otherBadIndex ? "    bad\n" : String.format("%7d\n", i));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Parses one integer per line and throws on any line that isn't one
+     */
+    private static class RecordParser implements SplittableParser<Integer> {
+
+        @Override
+        public List<Integer> parse(File file, int dataDensity) {
+            ListSink<Integer> sink = new ListSink<Integer>(new ArrayList<Integer>());
+            try {
+                parse(file, dataDensity, sink);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return sink.getData();
+        }
+
+        @Override
+        public void parse(File file, int dataDensity, DataSink<Integer> sink) throws IOException {
+            parse(new FileSplit(file, 0, file.length(), null), dataDensity, sink);
+        }
+
+        @Override
+        public List<FileSplit> split(File file, int maxSplits) {
+            long records = file.length() / RECORD_BYTES;
+            long perSplit = (records + maxSplits - 1) / maxSplits;
+
+            List<FileSplit> splits = new ArrayList<FileSplit>();
+            for (long start = 0; start < records; start += perSplit) {
+                long end = Math.min(records, start + perSplit);
+                splits.add(new FileSplit(file, start*RECORD_BYTES, end*RECORD_BYTES, null));
+            }
+            return splits;
+        }
+
+        @Override
+        public void parse(FileSplit split, int dataDensity, DataSink<Integer> sink) throws IOException {
+            byte[] bytes = new byte[(int) split.length()];
+            RandomAccessFile in = new RandomAccessFile(split.file, "r");
+            try {
+                in.seek(split.start);
+                in.readFully(bytes);
+            } finally {
+                in.close();
+            }
+
+            for (int i = 0; i < bytes.length; i += RECORD_BYTES) {
+                String line = new String(bytes, i, RECORD_BYTES - 1, "US-ASCII").trim();
+                try {
+                    sink.accept(Integer.parseInt(line));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Not a record: " + line);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David Mascharka
+ *
+ * Every submitted task is collected exactly once, even if waiting for one is interrupted
+ */
+public class CompletionCollectorTest {
+
+    @Test
+    public void interruptedWaitLeavesTheTaskPending() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            List<Integer> target = new ArrayList<Integer>();
+            CompletionCollector<Integer> collector = new CompletionCollector<Integer>(executor, target);
+            collector.submit(new Callable<List<Integer>>() {
+                @Override
+                public List<Integer> call() throws Exception {
+                    release.await();
+                    return Arrays.asList(1, 2, 3);
+                }
+            });
+
+            Thread.currentThread().interrupt();
+            try {
+                collector.awaitAll();
+                fail("awaitAll should have been interrupted");
+            } catch (InterruptedException e) {
+                // expected, the task hasn't finished
+            }
+
+            release.countDown();
+            assertEquals(0, collector.awaitAll());
+            assertEquals(Arrays.asList(1, 2, 3), target);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedTasksAreCountedOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Integer> target = new ArrayList<Integer>();
+            CompletionCollector<Integer> collector = new CompletionCollector<Integer>(executor, target);
+            collector.setMaxPending(1);
+            collector.submit(new Callable<List<Integer>>() {
+                @Override
+                public List<Integer> call() {
+                    throw new IllegalStateException("parse failed");
+                }
+            });
+            collector.submit(new Callable<List<Integer>>() {
+                @Override
+                public List<Integer> call() {
+                    return null;
+                }
+            });
+            collector.submit(new Callable<List<Integer>>() {
+                @Override
+                public List<Integer> call() {
+                    return Arrays.asList(4);
+                }
+            });
+
+            assertEquals(2, collector.awaitAll());
+            assertEquals(Arrays.asList(4), target);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
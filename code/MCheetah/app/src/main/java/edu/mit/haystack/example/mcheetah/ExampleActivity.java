@@ -64,6 +64,7 @@ public class ExampleActivity extends AppCompatActivity {
                 extras.putInt(DataProcessFragment.DATA_DENSITY_KEY, 1);
                 extras.putInt(DataProcessFragment.PARSER_THREAD_KEY, 3);
                 extras.putString(DataProcessFragment.SHARED_PREFERENCES_KEY, "ExamplePrefs");
+                extras.putBoolean(DataProcessFragment.ONLINE_TUNING_KEY, true);
                 Intent intent = new Intent(getApplicationContext(), ExampleDataViewActivity.class);
                 intent.putExtras(extras);
                 startActivity(intent);
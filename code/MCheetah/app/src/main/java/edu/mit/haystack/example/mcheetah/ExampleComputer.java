@@ -28,8 +28,9 @@ package edu.mit.haystack.example.mcheetah;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
-import edu.mit.haystack.mcheetah.Computer;
+import edu.mit.haystack.mcheetah.TunableComputer;
 
 /**
  * @author David Mascharka
@@ -37,48 +38,49 @@ import edu.mit.haystack.mcheetah.Computer;
  * Simple Computer class that squares the y coordinate and subtracts 1 from the x coordinate
  *
  * Parallelized to show the ease of parallelism in MCheetah
+ *
+ * Both the number of threads and the batch size can be tuned by the Autotuner
  */
-public class ExampleComputer implements Computer<ExampleData> {
+public class ExampleComputer implements TunableComputer<ExampleData> {
 
     /**
-     * We'll perform computation in batches of 20 ExampleData objects
+     * By default we'll perform computation in batches of 20 ExampleData objects
      */
-    private static final int BATCH_SIZE = 20;
+    private int batchSize = 20;
+
     /**
-     * Pool for running computation on batches of ExampleData objects
+     * If the number of compute threads isn't set, default to 2 threads
      */
-    private ExecutorService computePool;
+    private int computeThreads = 2;
 
     @Override
     public boolean compute(List<ExampleData> data) {
-        // If the number of compute threads wasn't set, default to 2 threads
-        if (computePool == null) {
-            computePool = Executors.newFixedThreadPool(2);
-        }
+        // Pool for running computation on batches of ExampleData objects
+        ExecutorService computePool = Executors.newFixedThreadPool(computeThreads);
 
         // Loop through all the data, pull batches of points, and submit them for computation
         int size = data.size();
-        for (int i = 0; i < size; i += BATCH_SIZE) {
-            ExampleData[] theDataPoints = new ExampleData[BATCH_SIZE];
-            for (int j = 0; j < BATCH_SIZE; j++) {
+        for (int i = 0; i < size; i += batchSize) {
+            ExampleData[] theDataPoints = new ExampleData[batchSize];
+            for (int j = 0; j < batchSize; j++) {
                 if (i + j >= size) {
                     break;
                 }
 
                 theDataPoints[j] = data.get(i+j);
             }
-            performComputationOnBatch(theDataPoints);
+            performComputationOnBatch(computePool, theDataPoints);
         }
 
         // Calling shutdown stops jobs from being submitted
         computePool.shutdown();
         // Until all batches are finished, just wait
-        while (!computePool.isTerminated()) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        try {
+            computePool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            computePool.shutdownNow();
+            Thread.currentThread().interrupt();
+            return false;
         }
 
         return true;
@@ -89,9 +91,10 @@ public class ExampleComputer implements Computer<ExampleData> {
      *
      * Square the y coordinate and subtract 1 from the x coordinate of each point
      *
+     * @param computePool the pool to run the computation on
      * @param points the batch of points
      */
-    private void performComputationOnBatch(final ExampleData[] points) {
+    private void performComputationOnBatch(ExecutorService computePool, final ExampleData[] points) {
         computePool.submit(new Runnable() {
             @Override
             public void run() {
@@ -112,7 +115,28 @@ public class ExampleComputer implements Computer<ExampleData> {
      *
      * @param threads the number of threads to use for computation
      */
+    @Override
     public void setComputeThreads(int threads) {
-        computePool = Executors.newFixedThreadPool(threads);
+        computeThreads = Math.max(1, threads);
+    }
+
+    @Override
+    public int getComputeThreads() {
+        return computeThreads;
+    }
+
+    /**
+     * Set the number of points each computation task works on
+     *
+     * @param batchSize the number of points per batch
+     */
+    @Override
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
     }
 }
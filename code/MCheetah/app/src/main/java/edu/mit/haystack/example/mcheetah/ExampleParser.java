@@ -35,10 +35,10 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
 
-import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.parsing.AbstractStreamingParser;
+import edu.mit.haystack.mcheetah.parsing.DataSink;
+import edu.mit.haystack.mcheetah.parsing.EpochSink;
 
 /**
  * @author David Mascharka
@@ -54,7 +54,7 @@ import edu.mit.haystack.mcheetah.parsing.Parser;
  *     7    22
  *     ....
  */
-public class ExampleParser implements Parser<ExampleData> {
+public class ExampleParser extends AbstractStreamingParser<ExampleData> {
 
     /**
      * The parent holding this parser
@@ -69,39 +69,49 @@ public class ExampleParser implements Parser<ExampleData> {
      * Takes a file that contains a list of integer pairs, separated by newlines
      * Very simple data type to parse
      *
+     * Each point is handed to the sink as soon as it's read. AbstractStreamingParser gives us the
+     * list-returning parse method for free
+     *
+     * Every line is an epoch. If the sink is an EpochSink it picks the lines to parse instead of the
+     * data density
+     *
      * @param dataFile the file to parse
      * @param dataDensity the density of data to process (every point, every third point, every n points)
-     * @return a list of ExampleData type
+     * @param sink receives each ExampleData point as it's parsed
+     * @throws IOException if the file can't be read
      */
-    public List<ExampleData> parse(File dataFile, int dataDensity) {
-        ArrayList<ExampleData> theDataList = new ArrayList<ExampleData>();
-
+    @Override
+    @SuppressWarnings("unchecked")
+    public void parse(File dataFile, int dataDensity, DataSink<ExampleData> sink) throws IOException {
         BufferedReader fileReader = null;
         FileInputStream inputStream = null;
         int observationNumber = 0;
+        EpochSink<ExampleData> epochSink = sink instanceof EpochSink ? (EpochSink<ExampleData>) sink : null;
 
         // Create a FileInputStream from the given data file
         try {
             inputStream = new FileInputStream(dataFile);
         } catch (FileNotFoundException e) {
-            e.printStackTrace();
             Toast.makeText(context, "The input file was not found", Toast.LENGTH_SHORT).show();
-            return null;
+            throw e;
         }
 
         // Create a reader to go through the file
-        try {
-            fileReader = new BufferedReader(new InputStreamReader(inputStream));
-        } catch (NullPointerException e) {
-            e.printStackTrace();
-            return null;
-        }
+        fileReader = new BufferedReader(new InputStreamReader(inputStream));
 
         String line = "";
         try {
             // Read in the file line-by-line
             while ((line = fileReader.readLine()) != null) {
-                if (observationNumber % dataDensity != 0) {
+                // Count every line so skipping works for any data density
+                boolean skip;
+                if (epochSink != null) {
+                    skip = !epochSink.startEpoch(observationNumber);
+                } else {
+                    skip = observationNumber % dataDensity != 0;
+                }
+                observationNumber++;
+                if (skip) {
                     continue;
                 }
 
@@ -110,15 +120,11 @@ public class ExampleParser implements Parser<ExampleData> {
                 int x = Integer.parseInt(parts[0]);
                 int y = Integer.parseInt(parts[1]);
 
-                // Make a new ExampleData point and add it to the list
-                theDataList.add(new ExampleData(x, y));
-                observationNumber++;
+                // Make a new ExampleData point and hand it off
+                sink.accept(new ExampleData(x, y));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
+        } finally {
+            fileReader.close();
         }
-
-        return theDataList;
     }
 }
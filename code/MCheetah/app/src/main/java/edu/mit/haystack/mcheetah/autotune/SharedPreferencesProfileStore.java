@@ -0,0 +1,71 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import android.content.SharedPreferences;
+
+/**
+ * @author David Mascharka
+ *
+ * Saves tuning results in the app's SharedPreferences so they survive restarts
+ *
+ * Each dimension of a configuration is stored as an int under the profile key plus a suffix
+ */
+public class SharedPreferencesProfileStore implements TuningProfileStore {
+
+    private static final String PARSER_THREADS_SUFFIX = "_parser_threads";
+    private static final String COMPUTE_THREADS_SUFFIX = "_compute_threads";
+    private static final String BATCH_SIZE_SUFFIX = "_batch_size";
+    private static final String DATA_DENSITY_SUFFIX = "_data_density";
+
+    private final SharedPreferences prefs;
+
+    public SharedPreferencesProfileStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    @Override
+    public TuningConfiguration load(String key) {
+        if (!prefs.contains(key + PARSER_THREADS_SUFFIX)) {
+            return null;
+        }
+
+        return new TuningConfiguration(prefs.getInt(key + PARSER_THREADS_SUFFIX, 1),
+                prefs.getInt(key + COMPUTE_THREADS_SUFFIX, 1),
+                prefs.getInt(key + BATCH_SIZE_SUFFIX, 1),
+                prefs.getInt(key + DATA_DENSITY_SUFFIX, 1));
+    }
+
+    @Override
+    public void save(String key, TuningConfiguration configuration) {
+        prefs.edit()
+                .putInt(key + PARSER_THREADS_SUFFIX, configuration.parserThreads)
+                .putInt(key + COMPUTE_THREADS_SUFFIX, configuration.computeThreads)
+                .putInt(key + BATCH_SIZE_SUFFIX, configuration.batchSize)
+                .putInt(key + DATA_DENSITY_SUFFIX, configuration.dataDensity)
+                .apply();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package edu.mit.haystack.mcheetah.benchmarks;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.mit.haystack.mcheetah.utils.ParserUtils;
+
+/**
+ * @author David Mascharka
+ *
+ * Compares ParserUtils' number parsing with the JDK's on RINEX fields
+ *
+ * Scores are nanoseconds per value. The JDK versions trim each field first (and swap the D exponent
+ * for an E) since that's what a parser using them has to do with fixed width fields
+ *
+ * The Substring and InPlace versions read the same fields out of one long line, like a parser does:
+ * either cutting out each field first or parsing it where it is. InPlaceBytes parses the ASCII bytes
+ * of the line, the way a MappedLineReader hands them over
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(RinexCorpus.SIZE)
+public class NumberParsingBenchmark {
+
+    private static final int PHASE_WIDTH = 14;
+    private static final int NAVIGATION_WIDTH = 19;
+
+    private String[] phaseValues;
+    private String[] navigationValues;
+    private String[] epochFields;
+    private String[] integerFields;
+
+    // The phase and navigation values laid end to end, as they are in a line of a RINEX file
+    private String phaseLine;
+    private char[] phaseChars;
+    private byte[] phaseBytes;
+    private char[] navigationChars;
+
+    @Setup
+    public void setUp() {
+        phaseValues = RinexCorpus.phaseValues(RinexCorpus.SIZE, RinexCorpus.SEED);
+        navigationValues = RinexCorpus.navigationValues(RinexCorpus.SIZE, RinexCorpus.SEED);
+        epochFields = RinexCorpus.epochFields(RinexCorpus.SIZE, RinexCorpus.SEED);
+        integerFields = RinexCorpus.integerFields(RinexCorpus.SIZE, RinexCorpus.SEED);
+
+        phaseLine = join(phaseValues);
+        phaseChars = phaseLine.toCharArray();
+        phaseBytes = new byte[phaseChars.length];
+        for (int i = 0; i < phaseChars.length; i++) {
+            phaseBytes[i] = (byte) phaseChars[i];
+        }
+        navigationChars = join(navigationValues).toCharArray();
+    }
+
+    private static String join(String[] values) {
+        StringBuilder line = new StringBuilder();
+        for (String value : values) {
+            line.append(value);
+        }
+        return line.toString();
+    }
+
+    @Benchmark
+    public double parserUtilsPhase() {
+        double sum = 0;
+        for (String value : phaseValues) {
+            sum += ParserUtils.parseDouble(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parserUtilsPhaseSubstring() {
+        double sum = 0;
+        for (int i = 0; i < RinexCorpus.SIZE; i++) {
+            sum += ParserUtils.parseDouble(phaseLine.substring(i*PHASE_WIDTH, (i + 1)*PHASE_WIDTH));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parserUtilsPhaseInPlace() {
+        double sum = 0;
+        for (int i = 0; i < RinexCorpus.SIZE; i++) {
+            sum += ParserUtils.parseDouble(phaseChars, i*PHASE_WIDTH, PHASE_WIDTH);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parserUtilsPhaseInPlaceBytes() {
+        double sum = 0;
+        for (int i = 0; i < RinexCorpus.SIZE; i++) {
+            sum += ParserUtils.parseDouble(phaseBytes, i*PHASE_WIDTH, PHASE_WIDTH);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double jdkPhase() {
+        double sum = 0;
+        for (String value : phaseValues) {
+            sum += Double.parseDouble(value.trim());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parserUtilsNavigation() {
+        double sum = 0;
+        for (String value : navigationValues) {
+            sum += ParserUtils.parseDouble(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parserUtilsNavigationInPlace() {
+        double sum = 0;
+        for (int i = 0; i < RinexCorpus.SIZE; i++) {
+            sum += ParserUtils.parseDouble(navigationChars, i*NAVIGATION_WIDTH, NAVIGATION_WIDTH);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double jdkNavigation() {
+        double sum = 0;
+        for (String value : navigationValues) {
+            sum += Double.parseDouble(value.trim().replace('D', 'E'));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int parserUtilsInt() {
+        int sum = 0;
+        for (String value : integerFields) {
+            sum += ParserUtils.parseInt(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int jdkInt() {
+        int sum = 0;
+        for (String value : integerFields) {
+            sum += Integer.parseInt(value.trim());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int parserUtilsShort() {
+        int sum = 0;
+        for (String value : epochFields) {
+            sum += ParserUtils.parseShort(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int jdkShort() {
+        int sum = 0;
+        for (String value : epochFields) {
+            sum += Short.parseShort(value.trim());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int parserUtilsByte() {
+        int sum = 0;
+        for (String value : epochFields) {
+            sum += ParserUtils.parseByte(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int jdkByte() {
+        int sum = 0;
+        for (String value : epochFields) {
+            sum += Byte.parseByte(value.trim());
+        }
+        return sum;
+    }
+}
\ No newline at end of file
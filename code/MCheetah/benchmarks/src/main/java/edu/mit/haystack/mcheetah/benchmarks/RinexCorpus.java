@@ -0,0 +1,196 @@
+package edu.mit.haystack.mcheetah.benchmarks;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * @author David Mascharka
+ *
+ * Makes realistic RINEX fields and lines for the benchmarks to parse
+ *
+ * Everything is made from a seed so every run of a benchmark parses exactly the same values
+ */
+public final class RinexCorpus {
+
+    /**
+     * Number of values each benchmark parses per invocation
+     */
+    public static final int SIZE = 1024;
+
+    public static final long SEED = 20150518L;
+
+    private RinexCorpus() {} // static class, don't let other classes instantiate this
+
+    /**
+     * Observation values in the F14.3 format used in observation files - carrier phases in the
+     * hundreds of millions of cycles and pseudoranges around twenty million meters
+     *
+     * @param count the number of values
+     * @param seed the random seed
+     * @return 14 character fields like " 114208031.516"
+     */
+    public static String[] phaseValues(int count, long seed) {
+        Random random = new Random(seed);
+        String[] values = new String[count];
+        double value;
+        for (int i = 0; i < count; i++) {
+            if (random.nextBoolean()) {
+                // Phase, either sign
+                value = (random.nextDouble()*2 - 1) * 1.5e8;
+            } else {
+                // Pseudorange
+                value = 2.0e7 + random.nextDouble()*5.0e6;
+            }
+            values[i] = String.format(Locale.US, "%14.3f", value);
+        }
+        return values;
+    }
+
+    /**
+     * Orbit values in the D19.12 format used in navigation files, spread over many exponents
+     *
+     * @param count the number of values
+     * @param seed the random seed
+     * @return 19 character fields like "-0.211263075471D-03"
+     */
+    public static String[] navigationValues(int count, long seed) {
+        Random random = new Random(seed);
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            double magnitude = Math.pow(10, random.nextInt(24) - 12) * (1 + random.nextDouble()*9);
+            values[i] = fortranD(random.nextBoolean() ? -magnitude : magnitude);
+        }
+        return values;
+    }
+
+    /**
+     * Small integer fields like the ones in an epoch line - year, month, day, hour, minute and
+     * satellite counts
+     *
+     * @param count the number of values
+     * @param seed the random seed
+     * @return 3 character fields like " 15"
+     */
+    public static String[] epochFields(int count, long seed) {
+        Random random = new Random(seed);
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = String.format(Locale.US, "%3d", random.nextInt(60));
+        }
+        return values;
+    }
+
+    /**
+     * Integer fields up to six digits wide, like GPS weeks and times of week
+     *
+     * @param count the number of values
+     * @param seed the random seed
+     * @return 6 character fields like "  1845"
+     */
+    public static String[] integerFields(int count, long seed) {
+        Random random = new Random(seed);
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = String.format(Locale.US, "%6d", random.nextInt(604800));
+        }
+        return values;
+    }
+
+    /**
+     * RINEX 2 observation epoch lines with 4 to 12 GPS satellites
+     *
+     * @param count the number of lines
+     * @param seed the random seed
+     * @return lines like " 15  5 18  0  0 14.5000000  0  9G01G02G03G04G05G06G07G08G09"
+     */
+    public static String[] epochLines(int count, long seed) {
+        Random random = new Random(seed);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            int seconds = i*15;
+            lines[i] = String.format(Locale.US, " 15  5 18 %2d %2d %10.7f  0", (seconds / 3600) % 24,
+                    (seconds / 60) % 60, (double) (seconds % 60)) + prnList(random);
+        }
+        return lines;
+    }
+
+    /**
+     * The satellite part of epoch lines, as passed to ParserUtils.splitPRNs
+     *
+     * @param count the number of lists
+     * @param seed the random seed
+     * @return lists like "9G01G02G03G04G05G06G07G08G09"
+     */
+    public static String[] prnLists(int count, long seed) {
+        Random random = new Random(seed);
+        String[] lists = new String[count];
+        for (int i = 0; i < count; i++) {
+            lists[i] = prnList(random).trim();
+        }
+        return lists;
+    }
+
+    /**
+     * @return a satellite count and that many different PRNs, like " 4G05G13G21G30"
+     */
+    private static String prnList(Random random) {
+        int satellites = 4 + random.nextInt(9);
+        boolean[] used = new boolean[33];
+        StringBuilder list = new StringBuilder(String.format(Locale.US, "%3d", satellites));
+        for (int i = 0; i < satellites; i++) {
+            int prn;
+            do {
+                prn = 1 + random.nextInt(32);
+            } while (used[prn]);
+            used[prn] = true;
+            list.append('G').append(prn < 10 ? "0" : "").append(prn);
+        }
+        return list.toString();
+    }
+
+    /**
+     * Format a value the way Fortran's D19.12 does, with a leading 0 and a D exponent
+     */
+    private static String fortranD(double value) {
+        if (value == 0) {
+            return " 0.000000000000D+00";
+        }
+
+        double magnitude = Math.abs(value);
+        int exponent = (int) Math.floor(Math.log10(magnitude)) + 1;
+        long mantissa = Math.round(magnitude / Math.pow(10, exponent) * 1e12);
+        if (mantissa >= 1000000000000L) {
+            // Rounded up to 1.0
+            mantissa /= 10;
+            exponent++;
+        }
+
+        return (value < 0 ? "-" : " ") + "0." + String.format(Locale.US, "%012d", mantissa) + "D"
+                + (exponent < 0 ? "-" : "+") + String.format(Locale.US, "%02d", Math.abs(exponent));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package edu.mit.haystack.mcheetah.benchmarks;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import edu.mit.haystack.mcheetah.utils.ParserUtils;
+import edu.mit.haystack.mcheetah.utils.Tokenizer;
+
+/**
+ * @author David Mascharka
+ *
+ * Compares ParserUtils' splitting and the Tokenizer with String.split and a precompiled Pattern on
+ * RINEX epoch lines
+ *
+ * Scores are nanoseconds per line
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(RinexCorpus.SIZE)
+public class TokenizerBenchmark {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern PRN_SEPARATOR = Pattern.compile("G");
+
+    private String[] epochLines;
+    private String[] prnLists;
+    private byte[] prnCounts;
+
+    private final Tokenizer tokenizer = new Tokenizer(new int[80]);
+    private final byte[] prns = new byte[Byte.MAX_VALUE];
+
+    @Setup
+    public void setUp() {
+        epochLines = RinexCorpus.epochLines(RinexCorpus.SIZE, RinexCorpus.SEED);
+        prnLists = RinexCorpus.prnLists(RinexCorpus.SIZE, RinexCorpus.SEED);
+        prnCounts = new byte[prnLists.length];
+        for (int i = 0; i < prnLists.length; i++) {
+            prnCounts[i] = Byte.parseByte(prnLists[i].substring(0, prnLists[i].indexOf('G')));
+        }
+    }
+
+    @Benchmark
+    public void parserUtilsSplitSpace(Blackhole blackhole) {
+        for (String line : epochLines) {
+            blackhole.consume(ParserUtils.splitSpace(line));
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) {
+        for (String line : epochLines) {
+            blackhole.consume(tokenizer.tokenize(line));
+        }
+    }
+
+    /**
+     * Reads the date, satellite count and PRNs of every epoch line the way the observation parser
+     * did before the Tokenizer
+     */
+    @Benchmark
+    public void parserUtilsSplitSpaceEpoch(Blackhole blackhole) {
+        for (String line : epochLines) {
+            String[] items = ParserUtils.splitSpace(line);
+            blackhole.consume(ParserUtils.parseShort(items[0]));
+            blackhole.consume(ParserUtils.parseByte(items[1]));
+            blackhole.consume(ParserUtils.parseByte(items[2]));
+            blackhole.consume(ParserUtils.parseByte(items[3]));
+            blackhole.consume(ParserUtils.parseByte(items[4]));
+            blackhole.consume(ParserUtils.parseDouble(items[5]));
+            String prnString = items[7];
+            blackhole.consume(ParserUtils.parseByte(prnString, 0, prnString.indexOf('G')));
+            blackhole.consume(ParserUtils.splitPRNs(prnString, 0, prnString.length(), prns, 0));
+        }
+    }
+
+    /**
+     * Reads the same fields as parserUtilsSplitSpaceEpoch in place with the Tokenizer
+     */
+    @Benchmark
+    public void tokenizerEpoch(Blackhole blackhole) {
+        for (String line : epochLines) {
+            tokenizer.tokenize(line);
+            blackhole.consume(tokenizer.shortAt(0));
+            blackhole.consume(tokenizer.byteAt(1));
+            blackhole.consume(tokenizer.byteAt(2));
+            blackhole.consume(tokenizer.byteAt(3));
+            blackhole.consume(tokenizer.byteAt(4));
+            blackhole.consume(tokenizer.doubleAt(5));
+            int prnStart = tokenizer.start(7);
+            blackhole.consume(ParserUtils.parseByte(line, prnStart, tokenizer.indexOf(7, 'G') - prnStart));
+            blackhole.consume(ParserUtils.splitPRNs(line, prnStart, tokenizer.length(7), prns, 0));
+        }
+    }
+
+    @Benchmark
+    public void stringSplit(Blackhole blackhole) {
+        for (String line : epochLines) {
+            blackhole.consume(line.trim().split("\\s+"));
+        }
+    }
+
+    @Benchmark
+    public void patternSplit(Blackhole blackhole) {
+        for (String line : epochLines) {
+            blackhole.consume(WHITESPACE.split(line.trim()));
+        }
+    }
+
+    @Benchmark
+    public void parserUtilsSplitPRNs(Blackhole blackhole) {
+        for (int i = 0; i < prnLists.length; i++) {
+            blackhole.consume(ParserUtils.splitPRNs(prnLists[i], prnCounts[i]));
+        }
+    }
+
+    @Benchmark
+    public void jdkSplitPRNs(Blackhole blackhole) {
+        for (String list : prnLists) {
+            String[] parts = PRN_SEPARATOR.split(list);
+            byte[] prns = new byte[parts.length - 1];
+            for (int i = 1; i < parts.length; i++) {
+                prns[i-1] = Byte.parseByte(parts[i]);
+            }
+            blackhole.consume(prns);
+        }
+    }
+}
\ No newline at end of file
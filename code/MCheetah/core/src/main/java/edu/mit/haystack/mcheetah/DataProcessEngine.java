@@ -0,0 +1,971 @@
+package edu.mit.haystack.mcheetah;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.mit.haystack.mcheetah.autotune.HillClimbingTuner;
+import edu.mit.haystack.mcheetah.metrics.Metrics;
+import edu.mit.haystack.mcheetah.metrics.Tracer;
+import edu.mit.haystack.mcheetah.parsing.ArrayListFactory;
+import edu.mit.haystack.mcheetah.parsing.ChunkedSink;
+import edu.mit.haystack.mcheetah.parsing.CompletionCollector;
+import edu.mit.haystack.mcheetah.parsing.DataListFactory;
+import edu.mit.haystack.mcheetah.parsing.FileSplit;
+import edu.mit.haystack.mcheetah.parsing.ListSink;
+import edu.mit.haystack.mcheetah.parsing.ParsedFileCache;
+import edu.mit.haystack.mcheetah.parsing.Parser;
+import edu.mit.haystack.mcheetah.parsing.ParserFactory;
+import edu.mit.haystack.mcheetah.parsing.RecordBudget;
+import edu.mit.haystack.mcheetah.parsing.RecordCodec;
+import edu.mit.haystack.mcheetah.parsing.SplittableParser;
+import edu.mit.haystack.mcheetah.parsing.StreamingParser;
+
+/**
+ * @author David Mascharka
+ *
+ * Runs the parse and compute stages on a set of data files
+ *
+ * This holds the thread pools, the data object, and the order the stages run in. It has no Android
+ * dependencies so the same Parser and Computer can run on a desktop or server JVM. On Android,
+ * DataProcessFragment wraps one of these and adds the plot on top
+ *
+ * Files are parsed in parallel and merged into the data object as each one finishes, then the
+ * Computer runs on the full data set. If the Computer is a PipelinedComputer, computation on early
+ * files overlaps parsing of later ones. If there are fewer files than parser threads and the Parser
+ * is a SplittableParser, large files are split so every thread has something to parse
+ *
+ * With online tuning on, the number of parser threads and a TunableComputer's compute threads are
+ * adjusted while the real data is processed, so no separate benchmarking is needed
+ *
+ * With parsed data reuse on, parsed data is kept in memory so processing the same files at a
+ * different data density only parses epochs that haven't been parsed before. Given a directory
+ * and a RecordCodec, parsed data is also kept on disk so it lasts between runs
+ *
+ * With a record budget set, memory use is bounded: only a few tasks per parser thread are queued
+ * at a time, and parser threads wait whenever too many parsed records are still waiting on the
+ * compute stage
+ *
+ * Each stage is measured through getMetrics() once a MetricsSink is added to it - parse time and
+ * speed for every file, compute times, and queue depths while parsing. Each parse task and compute
+ * stage is also marked as a Tracer section, so a running trace shows what every thread was doing
+ *
+ * To use, set the parser factory, computer, and data object, then call process() from a background
+ * thread. Call shutdown() when finished with the engine
+ *
+ * The type D is the data type this will process, and must be the same across the computer and parser
+ */
+public class DataProcessEngine<D> {
+
+    /**
+     * Files smaller than this are never split - the overhead isn't worth it
+     */
+    public static final long MIN_SPLIT_BYTES = 1024*1024;
+
+    /**
+     * With a record budget, how many parsing tasks each parser thread may have queued or running
+     */
+    public static final int PENDING_TASKS_PER_THREAD = 2;
+
+    /**
+     * Called when a data file can't be parsed
+     *
+     * This is called from a parser thread, not the thread that called parse()
+     */
+    public interface ErrorListener {
+        public void onParseError(File file, Exception e);
+    }
+
+    /**
+     * Creates a Parser for each thread
+     */
+    private ParserFactory<D> parserFactory;
+
+    /**
+     * The Parser belonging to each thread, reused for every file that thread parses
+     *
+     * Replaced whenever the parser factory changes so old Parsers aren't reused
+     */
+    private ThreadLocal<Parser<D>> threadParsers;
+
+    /**
+     * Compute object
+     */
+    private Computer<D> computer;
+
+    /**
+     * The data object that will be processed - all parsed data is merged into this
+     */
+    private List<D> dataObject;
+
+    /**
+     * Makes the lists parsed data is held in before it's merged into the data object
+     */
+    private DataListFactory<D> dataListFactory = new ArrayListFactory<D>();
+
+    /**
+     * Number of threads to use for parsing
+     */
+    private int parserThreads;
+
+    /**
+     * ThreadPool for parsing data files, created the first time it's needed
+     *
+     * Can be resized between tasks by online tuning
+     */
+    private ThreadPoolExecutor parserPool;
+
+    /**
+     * Whether thread counts are adjusted while processing
+     */
+    private boolean onlineTuning;
+
+    /**
+     * Adjusts the number of parser threads between parsing tasks, null until online tuning first needs it
+     */
+    private HillClimbingTuner parserTuner;
+
+    /**
+     * Adjusts a TunableComputer's compute threads between runs, null until online tuning first needs it
+     */
+    private HillClimbingTuner computeTuner;
+
+    /**
+     * Single thread that runs partial computations while parsing is still going
+     *
+     * Only used when the computer is a PipelinedComputer, null otherwise
+     */
+    private ThreadPoolExecutor computePipeline;
+
+    /**
+     * Time spent and bytes allocated in computePartial this run, only touched by the compute pipeline
+     * thread until the pipeline has finished
+     */
+    private long partialComputeNanos;
+    private long partialComputeAllocated;
+
+    /**
+     * Told about any file that fails to parse, may be null
+     */
+    private ErrorListener errorListener;
+
+    /**
+     * Keeps parsed data between runs, null unless parsed data reuse is on
+     */
+    private ParsedFileCache<D> parsedCache;
+
+    /**
+     * Limits the parsed records waiting on the compute stage, null for no limit
+     */
+    private RecordBudget recordBudget;
+
+    /**
+     * Measurements of each stage go here
+     */
+    private final Metrics metrics = new Metrics();
+
+    public DataProcessEngine() {
+        parserThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Set the factory used to create a Parser for each parser thread
+     *
+     * @param factory the parser factory
+     */
+    public void setParserFactory(ParserFactory<D> factory) {
+        parserFactory = factory;
+        threadParsers = new ThreadLocal<Parser<D>>();
+    }
+
+    public ParserFactory<D> getParserFactory() {
+        return parserFactory;
+    }
+
+    /**
+     * Set the computing object, which will be used in compute() to perform the main computation
+     *
+     * @param c the Computer object
+     */
+    public void setComputer(Computer<D> c) {
+        computer = c;
+    }
+
+    public Computer<D> getComputer() {
+        return computer;
+    }
+
+    /**
+     * Set the list all parsed data is merged into
+     *
+     * @param d the data object, a list of type D, data
+     */
+    public void setDataObject(List<D> d) {
+        dataObject = d;
+    }
+
+    public List<D> getDataObject() {
+        return dataObject;
+    }
+
+    /**
+     * Set how the lists parsed data is held in before it's merged into the data object are made -
+     * the chunks streaming parsers fill, the pieces of split files and the data kept by the parsed
+     * data cache. ArrayLists unless this is set
+     *
+     * Making these the same kind of list as the data object lets the data object merge them in
+     * bulk, and lets a parser that knows the list type fill them directly (see CollectingSink)
+     *
+     * Don't call this while parsing is running
+     *
+     * @param factory makes the lists
+     */
+    public void setDataListFactory(DataListFactory<D> factory) {
+        dataListFactory = factory;
+        if (parsedCache != null) {
+            parsedCache.setListFactory(factory);
+        }
+    }
+
+    public DataListFactory<D> getDataListFactory() {
+        return dataListFactory;
+    }
+
+    /**
+     * Get the metrics for this engine. Add a MetricsSink to start measuring
+     *
+     * @return the metrics
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set the listener to tell when a file fails to parse
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setErrorListener(ErrorListener listener) {
+        errorListener = listener;
+    }
+
+    /**
+     * Set the number of threads to use for parsing
+     *
+     * Don't call this while parsing is running
+     *
+     * @param threads the number of parser threads
+     */
+    public void setParserThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads == parserThreads) {
+            return;
+        }
+
+        parserThreads = threads;
+        // The pool is recreated with the new size next time we parse
+        if (parserPool != null) {
+            parserPool.shutdown();
+            parserPool = null;
+        }
+        // Online tuning starts over from the new thread count
+        parserTuner = null;
+    }
+
+    public int getParserThreads() {
+        return parserThreads;
+    }
+
+    /**
+     * Turn online tuning on or off
+     *
+     * While on, the parser pool grows or shrinks by one thread at a time between parsing tasks
+     * depending on how fast data is being parsed, and a TunableComputer's compute threads are
+     * adjusted between runs the same way. The counts reached carry over to later runs
+     *
+     * Don't call this while parsing is running
+     *
+     * @param enabled true to tune while processing
+     */
+    public void setOnlineTuning(boolean enabled) {
+        onlineTuning = enabled;
+        parserTuner = null;
+        computeTuner = null;
+    }
+
+    public boolean isOnlineTuning() {
+        return onlineTuning;
+    }
+
+    /**
+     * Turn parsed data reuse on or off
+     *
+     * While on, every parsed file is kept in memory. Processing it again at a density whose epochs
+     * are all cached doesn't read the file at all, and any other density only parses the epochs
+     * that are missing. This needs a StreamingParser that tells its sink about epochs (see
+     * EpochSink), other parsers parse every time as usual. Files aren't split while this is on
+     *
+     * The same data objects are handed to the Computer on every run. The Computer must not change
+     * parsed values in place, or must reset anything it stores in the data objects before
+     * computing it again
+     *
+     * Turning this off drops the cached data
+     *
+     * @param enabled true to keep parsed data between runs
+     */
+    public void setReuseParsedData(boolean enabled) {
+        if (enabled && parsedCache == null) {
+            parsedCache = new ParsedFileCache<D>();
+            parsedCache.setListFactory(dataListFactory);
+        } else if (!enabled) {
+            parsedCache = null;
+        }
+    }
+
+    public boolean isReusingParsedData() {
+        return parsedCache != null;
+    }
+
+    /**
+     * Turn parsed data reuse on and keep the parsed data on disk too
+     *
+     * The first time a file is processed after this is set, it's read from its cache file if the
+     * file hasn't changed since it was cached, instead of being parsed. See setReuseParsedData for
+     * what the Computer must do with reused data
+     *
+     * Don't call this while parsing is running
+     *
+     * @param directory where to keep cache files
+     * @param codec writes and reads the data objects
+     */
+    public void setParsedDataCache(File directory, RecordCodec<D> codec) {
+        parsedCache = new ParsedFileCache<D>(directory, codec);
+        parsedCache.setListFactory(dataListFactory);
+    }
+
+    /**
+     * Bound the memory used while parsing
+     *
+     * A record is in flight from when a parser thread hands it on until it has been merged into the
+     * data object and, with a PipelinedComputer, passed through computePartial. Parser threads wait
+     * before handing on more data while maxRecords are in flight, so a slow compute stage slows
+     * parsing down instead of letting parsed data pile up. Each parser thread may also hold the file
+     * it's parsing, which isn't handed on until the whole file has parsed
+     *
+     * The number of tasks queued on the parser pool is limited too, rather than every file being
+     * queued at once
+     *
+     * To budget in bytes, see RecordBudget.recordsFor. Don't call this while parsing is running
+     *
+     * @param maxRecords the most records in flight, 0 for no limit
+     */
+    public void setRecordBudget(int maxRecords) {
+        recordBudget = maxRecords > 0 ? new RecordBudget(maxRecords) : null;
+    }
+
+    /**
+     * @return the most records in flight, 0 for no limit
+     */
+    public int getRecordBudget() {
+        return recordBudget == null ? 0 : recordBudget.getMaxRecords();
+    }
+
+    /**
+     * Parses all the data files then performs the main computation
+     *
+     * Do NOT call this on the UI thread
+     *
+     * @param dataFiles the files to process
+     * @param dataDensity the density of data to parse (every point, every other point, ...)
+     * @return the result of the computation
+     */
+    public boolean process(File[] dataFiles, int dataDensity) {
+        parse(dataFiles, dataDensity);
+        return compute();
+    }
+
+    /**
+     * Parses all given data files
+     *
+     * Each file's data is merged into the data object as soon as that file finishes parsing
+     *
+     * If the computer is a PipelinedComputer, each piece of merged data is also handed to it right
+     * away so computation overlaps with parsing the rest of the files
+     *
+     * @param dataFiles the files to parse
+     * @param dataDensity the density of data to parse (every point, every other point, ...)
+     * @return the number of files that failed to parse
+     */
+    public int parse(File[] dataFiles, int dataDensity) {
+        if (parserPool == null) {
+            parserPool = new ThreadPoolExecutor(parserThreads, parserThreads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>());
+        }
+        if (onlineTuning && parserTuner == null) {
+            // One window is a task for every core, so each step sees a full round of parsing
+            int cores = Runtime.getRuntime().availableProcessors();
+            parserTuner = new HillClimbingTuner(1, 2*cores, parserThreads, cores);
+        }
+
+        computePipeline = null;
+        partialComputeNanos = 0;
+        partialComputeAllocated = 0;
+        if (computer instanceof PipelinedComputer) {
+            // A single thread, made directly so the queue depth can be measured
+            computePipeline = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>());
+        }
+
+        final HillClimbingTuner tuner = onlineTuning ? parserTuner : null;
+        CompletionCollector<D> collector = new CompletionCollector<D>(parserPool, dataObject) {
+            private long lastTime = System.nanoTime();
+            private int lastSize = dataSize();
+
+            @Override
+            protected void merge(List<D> parsed) {
+                super.merge(parsed);
+                computePartial(parsed);
+            }
+
+            @Override
+            protected void taskFinished() {
+                if (metrics.isEnabled()) {
+                    recordQueueDepths();
+                }
+                if (tuner == null) {
+                    return;
+                }
+
+                // Streaming parsers merge from the parser thread, so count everything added since the last task
+                long now = System.nanoTime();
+                int size = dataSize();
+                resizeParserPool(tuner.record(size - lastSize, now - lastTime));
+                lastTime = now;
+                lastSize = size;
+            }
+        };
+
+        if (recordBudget != null) {
+            collector.setMaxPending(PENDING_TASKS_PER_THREAD*parserThreads);
+        }
+
+        // If there are more threads than files, split the files so the extra threads have work
+        // Cached data is kept per whole file, so files aren't split when reusing parsed data
+        // Each split counts its records from 0, so below density 1 which records are kept would
+        // depend on where the splits fall - only split when every record is kept
+        int splitsPerFile = parsedCache == null && dataDensity <= 1
+                ? parserThreads / Math.max(1, dataFiles.length) : 1;
+
+        try {
+            // Fork - submit every file (or every piece of a file) to the parser pool
+            // With a record budget this waits for earlier tasks once enough are pending
+            for (File f : dataFiles) {
+                List<FileSplit> splits = splitsPerFile > 1 ? split(f, splitsPerFile) : null;
+                if (parsedCache != null) {
+                    collector.submit(cachedParseTask(f, dataDensity));
+                } else if (splits == null || splits.size() < 2) {
+                    collector.submit(parseTask(f, dataDensity));
+                } else {
+                    for (Callable<List<D>> task : splitTasks(splits, dataDensity)) {
+                        collector.submit(task);
+                    }
+                }
+            }
+
+            // Join - merge results in whatever order the files finish
+            return collector.awaitAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return dataFiles.length;
+        }
+    }
+
+    /**
+     * Performs the main computation
+     *
+     * Waits for any partial computations still running from parsing before computing on the full
+     * data set
+     *
+     * @return the result of the computation, false if interrupted
+     */
+    public boolean compute() {
+        if (computePipeline != null) {
+            computePipeline.shutdown();
+            try {
+                computePipeline.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            computePipeline = null;
+            metrics.recordTime(Metrics.COMPUTE_PARTIAL, null, partialComputeNanos,
+                    partialComputeAllocated);
+        }
+
+        int size = dataSize();
+        long startAllocated = metrics.isEnabled() ? Metrics.allocatedBytes() : -1;
+        long startTime = System.nanoTime();
+        boolean result;
+        Tracer.beginSection("compute");
+        try {
+            result = computer.compute(dataObject);
+        } finally {
+            Tracer.endSection();
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        metrics.recordTime(Metrics.COMPUTE, null, elapsed, Metrics.allocatedSince(startAllocated));
+        metrics.flush();
+
+        if (onlineTuning && computer instanceof TunableComputer) {
+            TunableComputer<D> tunable = (TunableComputer<D>) computer;
+            if (computeTuner == null || computeTuner.getThreads() != tunable.getComputeThreads()) {
+                // Compute runs once per process() so every run is a window, starting from this one
+                int cores = Runtime.getRuntime().availableProcessors();
+                computeTuner = new HillClimbingTuner(1, cores, tunable.getComputeThreads(), 1);
+            }
+            tunable.setComputeThreads(computeTuner.record(size, elapsed));
+        }
+
+        return result;
+    }
+
+    /**
+     * Stop the parser threads once any files still parsing are done
+     */
+    public void shutdown() {
+        if (parserPool != null) {
+            parserPool.shutdown();
+            parserPool = null;
+        }
+    }
+
+    /**
+     * Change the number of parser threads while parsing is running
+     *
+     * Growing starts new threads for any queued tasks right away. Shrinking lets extra threads finish
+     * their current task and then exit
+     *
+     * @param threads the new number of parser threads
+     */
+    private void resizeParserPool(int threads) {
+        if (threads == parserThreads) {
+            return;
+        }
+
+        // The core size can never be above the max size, so change them in the safe order
+        if (threads > parserPool.getMaximumPoolSize()) {
+            parserPool.setMaximumPoolSize(threads);
+            parserPool.setCorePoolSize(threads);
+        } else {
+            parserPool.setCorePoolSize(threads);
+            parserPool.setMaximumPoolSize(threads);
+        }
+        parserThreads = threads;
+    }
+
+    /**
+     * Record how many tasks are waiting on the parser pool and compute pipeline, and how many
+     * records are in flight
+     */
+    private void recordQueueDepths() {
+        ThreadPoolExecutor pool = parserPool;
+        if (pool != null) {
+            metrics.record(Metrics.QUEUE, Metrics.PARSER_QUEUE, null, pool.getQueue().size());
+        }
+        ThreadPoolExecutor pipeline = computePipeline;
+        if (pipeline != null) {
+            metrics.record(Metrics.QUEUE, Metrics.COMPUTE_QUEUE, null, pipeline.getQueue().size());
+        }
+        RecordBudget budget = recordBudget;
+        if (budget != null) {
+            metrics.record(Metrics.QUEUE, Metrics.RECORDS_IN_FLIGHT, null, budget.getInFlight());
+        }
+    }
+
+    /**
+     * Record how long parsing took, if metrics are on
+     *
+     * @param label what was parsed
+     * @param startTime System.nanoTime() when parsing started
+     * @param startAllocated Metrics.allocatedBytes() when parsing started
+     * @param bytes the size of what was parsed
+     * @param records the number of data objects parsed
+     */
+    private void recordParse(String label, long startTime, long startAllocated, long bytes, long records) {
+        if (metrics.isEnabled()) {
+            metrics.recordParse(label, System.nanoTime() - startTime, Metrics.allocatedSince(startAllocated),
+                    bytes, records);
+        }
+    }
+
+    /**
+     * @return the number of data points in the data object
+     */
+    private int dataSize() {
+        synchronized (dataObject) {
+            return dataObject.size();
+        }
+    }
+
+    /**
+     * Make a task that parses a data file, to be submitted to the parser pool
+     *
+     * If the parser is a StreamingParser, data is held a chunk at a time while the file is being
+     * read. Once the whole file has parsed the chunks are moved into the data object, and the task
+     * returns an empty list. A file that fails partway adds nothing, the same as any other parser
+     *
+     * @param f the file to parse
+     * @param dataDensity the density of data to parse
+     * @return a task which will return a list of data objects, or null if parsing failed
+     */
+    private Callable<List<D>> parseTask(final File f, final int dataDensity) {
+        return new Callable<List<D>>() {
+            @Override
+            public List<D> call() {
+                long startAllocated = metrics.isEnabled() ? Metrics.allocatedBytes() : -1;
+                long startTime = System.nanoTime();
+                Tracer.beginSection("parse " + f.getName());
+                try {
+                    Parser<D> parser = threadParser();
+
+                    if (parser instanceof StreamingParser) {
+                        // Nothing is merged until the whole file has parsed
+                        final List<List<D>> chunks = new ArrayList<List<D>>();
+                        ChunkedSink<D> sink = new ChunkedSink<D>(dataObject, ChunkedSink.DEFAULT_CHUNK_SIZE,
+                                dataListFactory) {
+                            @Override
+                            protected void merge(List<D> fullChunk) {
+                                chunks.add(fullChunk);
+                            }
+                        };
+                        ((StreamingParser<D>) parser).parse(f, dataDensity, sink);
+                        sink.flush();
+                        recordParse(f.getName(), startTime, startAllocated, f.length(), sink.getMovedCount());
+                        mergeChunks(chunks, sink.getMovedCount());
+                        return Collections.emptyList();
+                    }
+
+                    List<D> parsed = parser.parse(f, dataDensity);
+                    recordParse(f.getName(), startTime, startAllocated, f.length(), parsed.size());
+                    return acquire(parsed);
+                } catch (Exception e) {
+                    reportError(f, e);
+                    return null;
+                } finally {
+                    Tracer.endSection();
+                }
+            }
+        };
+    }
+
+    /**
+     * Make a task that gets a data file's data from the parsed data cache, parsing only what the
+     * cache is missing
+     *
+     * Parsers that can't stream data into the cache parse the whole file as usual
+     *
+     * @param f the file to parse
+     * @param dataDensity the density of data to parse
+     * @return a task which will return a list of data objects, or null if parsing failed
+     */
+    private Callable<List<D>> cachedParseTask(final File f, final int dataDensity) {
+        final ParsedFileCache<D> cache = parsedCache;
+        return new Callable<List<D>>() {
+            @Override
+            public List<D> call() {
+                long startAllocated = metrics.isEnabled() ? Metrics.allocatedBytes() : -1;
+                long startTime = System.nanoTime();
+                Tracer.beginSection("parse " + f.getName() + " (cached)");
+                try {
+                    Parser<D> parser = threadParser();
+
+                    List<D> parsed;
+                    if (parser instanceof StreamingParser) {
+                        parsed = cache.parse(f, dataDensity, (StreamingParser<D>) parser);
+                    } else {
+                        parsed = parser.parse(f, dataDensity);
+                    }
+                    recordParse(f.getName(), startTime, startAllocated, f.length(), parsed.size());
+                    return acquire(parsed);
+                } catch (Exception e) {
+                    reportError(f, e);
+                    return null;
+                } finally {
+                    Tracer.endSection();
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the calling thread's Parser, creating it the first time this thread needs one
+     *
+     * @return the Parser for this thread
+     * @throws Exception if the parser factory can't create a Parser
+     */
+    private Parser<D> threadParser() throws Exception {
+        ThreadLocal<Parser<D>> parsers = threadParsers;
+        Parser<D> parser = parsers.get();
+        if (parser == null) {
+            parser = parserFactory.newParser();
+            parsers.set(parser);
+        }
+        return parser;
+    }
+
+    /**
+     * Ask the parser to split a file into pieces that can be parsed on separate threads
+     *
+     * @param f the file to split
+     * @param maxSplits the most pieces to make
+     * @return the splits, or null if the file shouldn't or can't be split
+     */
+    private List<FileSplit> split(File f, int maxSplits) {
+        if (f.length() < MIN_SPLIT_BYTES) {
+            return null;
+        }
+
+        try {
+            Parser<D> parser = threadParser();
+            if (!(parser instanceof SplittableParser)) {
+                return null;
+            }
+            return ((SplittableParser<D>) parser).split(f, maxSplits);
+        } catch (Exception e) {
+            // Fall back to parsing the whole file, which will report the problem if there is one
+            return null;
+        }
+    }
+
+    /**
+     * Make a task for each split of a file
+     *
+     * Each split is parsed into its own list. Whichever task finishes last joins all the lists in
+     * file order and returns the whole file's data, so no task ever waits on another. The other
+     * tasks return an empty list
+     *
+     * A file is merged all or nothing, the same as one that isn't split. If any split fails the
+     * last task drops every piece and returns null, so the file counts as one failure
+     *
+     * @param splits the splits of one file, in file order
+     * @param dataDensity the density of data to parse
+     * @return one task per split
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Callable<List<D>>> splitTasks(final List<FileSplit> splits, final int dataDensity) {
+        final int count = splits.size();
+        final List<D>[] pieces = new List[count];
+        final AtomicInteger remaining = new AtomicInteger(count);
+        final AtomicBoolean fileFailed = new AtomicBoolean(false);
+
+        List<Callable<List<D>>> tasks = new ArrayList<Callable<List<D>>>(count);
+        for (int i = 0; i < count; i++) {
+            final FileSplit split = splits.get(i);
+            final int index = i;
+            tasks.add(new Callable<List<D>>() {
+                @Override
+                public List<D> call() {
+                    long startAllocated = metrics.isEnabled() ? Metrics.allocatedBytes() : -1;
+                    long startTime = System.nanoTime();
+                    Tracer.beginSection("parse " + split.file.getName() + " split " + index);
+                    try {
+                        SplittableParser<D> parser = (SplittableParser<D>) threadParser();
+                        ListSink<D> sink = new ListSink<D>(dataListFactory.newList(0));
+                        parser.parse(split, dataDensity, sink);
+                        pieces[index] = sink.getData();
+                        recordParse(split.file.getName() + " split " + index, startTime, startAllocated,
+                                split.length(), pieces[index].size());
+                    } catch (Exception e) {
+                        // Only tell the listener once per file
+                        if (fileFailed.compareAndSet(false, true)) {
+                            reportError(split.file, e);
+                        }
+                    } finally {
+                        Tracer.endSection();
+                    }
+
+                    // The decrement makes every other split's piece and failure visible to the last one
+                    if (remaining.decrementAndGet() > 0) {
+                        return Collections.<D>emptyList();
+                    }
+                    if (fileFailed.get()) {
+                        Arrays.fill(pieces, null);
+                        return null;
+                    }
+                    return acquire(join(pieces));
+                }
+            });
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Join the pieces of a split file back together in file order
+     *
+     * @param pieces the data from each split
+     * @return all the data in one list
+     */
+    private List<D> join(List<D>[] pieces) {
+        int size = 0;
+        for (List<D> piece : pieces) {
+            size += piece.size();
+        }
+
+        List<D> joined = dataListFactory.newList(size);
+        for (int i = 0; i < pieces.length; i++) {
+            joined.addAll(pieces[i]);
+            pieces[i] = null;
+        }
+
+        return joined;
+    }
+
+    /**
+     * Let the error listener know a file couldn't be parsed
+     *
+     * @param f the file that failed
+     * @param e what went wrong
+     */
+    private void reportError(File f, Exception e) {
+        e.printStackTrace();
+        if (errorListener != null) {
+            errorListener.onParseError(f, e);
+        }
+    }
+
+    /**
+     * Move a whole file's chunks into the data object, handing each one to the compute pipeline
+     *
+     * @param chunks the file's data in file order
+     * @param records the number of data objects in all the chunks
+     */
+    private void mergeChunks(List<List<D>> chunks, long records) {
+        // The chunks are released one at a time as computePartial finishes with them
+        acquire((int) Math.min(Integer.MAX_VALUE, records));
+        for (int i = 0; i < chunks.size(); i++) {
+            List<D> chunk = chunks.get(i);
+            chunks.set(i, null);
+            synchronized (dataObject) {
+                dataObject.addAll(chunk);
+            }
+            computePartial(chunk);
+        }
+    }
+
+    /**
+     * Count parsed data against the record budget before handing it on, waiting if the budget is used up
+     *
+     * @param parsed data about to be handed on, may be null
+     * @return parsed
+     */
+    private List<D> acquire(List<D> parsed) {
+        if (parsed != null) {
+            acquire(parsed.size());
+        }
+        return parsed;
+    }
+
+    /**
+     * Count records against the record budget, waiting if the budget is used up
+     *
+     * @param records the number of records about to be handed on
+     */
+    private void acquire(int records) {
+        RecordBudget budget = recordBudget;
+        if (budget != null && records > 0) {
+            Tracer.beginSection("wait for record budget");
+            try {
+                budget.acquire(records);
+            } finally {
+                Tracer.endSection();
+            }
+        }
+    }
+
+    /**
+     * Give data back to the record budget once nothing downstream needs it
+     *
+     * @param data data that has been merged and computed on
+     */
+    private void release(List<D> data) {
+        RecordBudget budget = recordBudget;
+        if (budget != null) {
+            budget.release(data.size());
+        }
+    }
+
+    /**
+     * Queue a piece of freshly parsed data on the compute pipeline, if there is one
+     *
+     * The data is released from the record budget once it's been computed, or right away if there's
+     * no pipeline
+     *
+     * @param partialData data that has just been merged into the data object
+     */
+    private void computePartial(final List<D> partialData) {
+        final ThreadPoolExecutor pipeline = computePipeline;
+        if (pipeline == null) {
+            release(partialData);
+            return;
+        }
+
+        final PipelinedComputer<D> pipelinedComputer = (PipelinedComputer<D>) computer;
+        pipeline.submit(new Runnable() {
+            @Override
+            public void run() {
+                long startAllocated = metrics.isEnabled() ? Metrics.allocatedBytes() : -1;
+                long startTime = System.nanoTime();
+                Tracer.beginSection("computePartial");
+                try {
+                    pipelinedComputer.computePartial(partialData);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    release(partialData);
+                    Tracer.endSection();
+                }
+
+                // Only this thread touches these until the pipeline is shut down
+                partialComputeNanos += System.nanoTime() - startTime;
+                long allocated = Metrics.allocatedSince(startAllocated);
+                partialComputeAllocated = allocated < 0 || partialComputeAllocated < 0 ? -1
+                        : partialComputeAllocated + allocated;
+            }
+        });
+    }
+}
\ No newline at end of file
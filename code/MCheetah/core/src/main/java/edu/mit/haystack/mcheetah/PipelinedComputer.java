@@ -0,0 +1,54 @@
+package edu.mit.haystack.mcheetah;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * A Computer that can start working on data before parsing has finished
+ *
+ * When the DataProcessFragment's computer implements this, every piece of data handed off by a
+ * parser (a chunk from a StreamingParser or a whole file from a list Parser) is passed to
+ * computePartial() while later files are still being parsed. Once parsing and all the partial
+ * computations are done, compute() is called with the full data set like normal
+ *
+ * Put per-point work that doesn't depend on the rest of the data set in computePartial() and leave
+ * anything that needs all the data (biases, fits, sorting) in compute(). compute() should skip
+ * work computePartial() has already done rather than repeating it
+ *
+ * Calls to computePartial() are made one at a time from a single background thread, in the order
+ * the pieces were parsed. A given data object is only ever passed to computePartial() once
+ */
+public interface PipelinedComputer<D> extends Computer<D> {
+    /**
+     * Performs the part of the computation that only needs the given data
+     *
+     * @param partialData a piece of the data set that has just been parsed
+     */
+    void computePartial(List<D> partialData);
+}
\ No newline at end of file
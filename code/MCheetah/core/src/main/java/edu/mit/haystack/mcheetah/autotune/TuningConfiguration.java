@@ -0,0 +1,126 @@
+package edu.mit.haystack.mcheetah.autotune;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * One point in the space the Autotuner searches - everything that can be changed about how a data
+ * set gets parsed and computed
+ *
+ * Configurations are immutable so they can be used as keys when remembering measurements
+ */
+public final class TuningConfiguration {
+
+    /**
+     * Dimensions of the search space, used with get and with
+     */
+    public static final int PARSER_THREADS = 0;
+    public static final int COMPUTE_THREADS = 1;
+    public static final int BATCH_SIZE = 2;
+    public static final int DATA_DENSITY = 3;
+    public static final int DIMENSIONS = 4;
+
+    public final int parserThreads;
+    public final int computeThreads;
+    public final int batchSize;
+    public final int dataDensity;
+
+    public TuningConfiguration(int parserThreads, int computeThreads, int batchSize, int dataDensity) {
+        this.parserThreads = parserThreads;
+        this.computeThreads = computeThreads;
+        this.batchSize = batchSize;
+        this.dataDensity = dataDensity;
+    }
+
+    /**
+     * @param dimension one of PARSER_THREADS, COMPUTE_THREADS, BATCH_SIZE or DATA_DENSITY
+     * @return the value of that dimension
+     */
+    public int get(int dimension) {
+        switch (dimension) {
+            case PARSER_THREADS:
+                return parserThreads;
+            case COMPUTE_THREADS:
+                return computeThreads;
+            case BATCH_SIZE:
+                return batchSize;
+            case DATA_DENSITY:
+                return dataDensity;
+            default:
+                throw new IllegalArgumentException("Unknown dimension: " + dimension);
+        }
+    }
+
+    /**
+     * @param dimension one of PARSER_THREADS, COMPUTE_THREADS, BATCH_SIZE or DATA_DENSITY
+     * @param value the new value of that dimension
+     * @return a copy of this configuration with one dimension changed
+     */
+    public TuningConfiguration with(int dimension, int value) {
+        switch (dimension) {
+            case PARSER_THREADS:
+                return new TuningConfiguration(value, computeThreads, batchSize, dataDensity);
+            case COMPUTE_THREADS:
+                return new TuningConfiguration(parserThreads, value, batchSize, dataDensity);
+            case BATCH_SIZE:
+                return new TuningConfiguration(parserThreads, computeThreads, value, dataDensity);
+            case DATA_DENSITY:
+                return new TuningConfiguration(parserThreads, computeThreads, batchSize, value);
+            default:
+                throw new IllegalArgumentException("Unknown dimension: " + dimension);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TuningConfiguration)) {
+            return false;
+        }
+
+        TuningConfiguration other = (TuningConfiguration) o;
+        return parserThreads == other.parserThreads && computeThreads == other.computeThreads &&
+                batchSize == other.batchSize && dataDensity == other.dataDensity;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = parserThreads;
+        result = 31*result + computeThreads;
+        result = 31*result + batchSize;
+        result = 31*result + dataDensity;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "parserThreads=" + parserThreads + ", computeThreads=" + computeThreads +
+                ", batchSize=" + batchSize + ", dataDensity=" + dataDensity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package edu.mit.haystack.mcheetah.metrics;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * @author David Mascharka
+ *
+ * Writes metrics to a CSV file, one line per metric
+ *
+ * Columns are timestamp, stage, name, label, value. The file is appended to, so runs on different
+ * days (or copied from different devices) can be compared in one spreadsheet. A header line is
+ * written when the file is new
+ */
+public class CsvMetricsSink implements MetricsSink {
+
+    public static final String HEADER = "timestamp,stage,name,label,value";
+
+    private Writer writer;
+
+    /**
+     * @param file the CSV file to append to
+     * @throws IOException if the file can't be opened
+     */
+    public CsvMetricsSink(File file) throws IOException {
+        boolean newFile = !file.exists() || file.length() == 0;
+        writer = new BufferedWriter(new FileWriter(file, true));
+        if (newFile) {
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public synchronized void record(Metric metric) {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.write(metric.timestamp + "," + escape(metric.stage) + "," + escape(metric.name) + ","
+                    + escape(metric.label) + "," + metric.value + "\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write out anything buffered and close the file. Metrics recorded after this are dropped
+     */
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        writer = null;
+    }
+
+    /**
+     * Quote a field if it has a comma, quote or line break in it
+     */
+    private static String escape(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+}
\ No newline at end of file
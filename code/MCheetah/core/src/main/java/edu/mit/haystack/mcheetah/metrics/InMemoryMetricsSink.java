@@ -0,0 +1,89 @@
+package edu.mit.haystack.mcheetah.metrics;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * Keeps every metric in memory so tests and benchmarks can check them after a run
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+
+    private final List<Metric> metrics = new ArrayList<Metric>();
+
+    @Override
+    public synchronized void record(Metric metric) {
+        metrics.add(metric);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * @return a copy of everything recorded so far, in the order it was recorded
+     */
+    public synchronized List<Metric> getSnapshot() {
+        return new ArrayList<Metric>(metrics);
+    }
+
+    /**
+     * @param stage the stage, see Metrics
+     * @param name the metric name, see Metrics
+     * @return every metric recorded with this stage and name, in the order they were recorded
+     */
+    public synchronized List<Metric> get(String stage, String name) {
+        List<Metric> matching = new ArrayList<Metric>();
+        for (Metric m : metrics) {
+            if (m.stage.equals(stage) && m.name.equals(name)) {
+                matching.add(m);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * @param stage the stage, see Metrics
+     * @param name the metric name, see Metrics
+     * @return the sum of every metric recorded with this stage and name, 0 if there are none
+     */
+    public synchronized double sum(String stage, String name) {
+        double sum = 0;
+        for (Metric m : metrics) {
+            if (m.stage.equals(stage) && m.name.equals(name)) {
+                sum += m.value;
+            }
+        }
+        return sum;
+    }
+
+    public synchronized void clear() {
+        metrics.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package edu.mit.haystack.mcheetah.metrics;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * One measurement from the processing pipeline, like the time taken to parse a file or the number of
+ * tasks waiting on the parser pool
+ *
+ * The stage and name say what was measured (see the constants in Metrics), and the label says what
+ * it was measured on, usually a file name. The label is empty when there's nothing more specific
+ */
+public class Metric {
+
+    /**
+     * When the measurement was taken, in milliseconds since the epoch
+     */
+    public final long timestamp;
+
+    public final String stage;
+
+    public final String name;
+
+    public final String label;
+
+    public final double value;
+
+    public Metric(long timestamp, String stage, String name, String label, double value) {
+        this.timestamp = timestamp;
+        this.stage = stage;
+        this.name = name;
+        this.label = label == null ? "" : label;
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return stage + " " + name + (label.isEmpty() ? "" : " [" + label + "]") + " = " + value;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package edu.mit.haystack.mcheetah.metrics;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author David Mascharka
+ *
+ * Records measurements from each stage of the processing pipeline and passes them on to sinks
+ *
+ * With no sinks added nothing is measured, so leaving metrics off costs next to nothing. Add a
+ * CsvMetricsSink to compare devices or versions, an InMemoryMetricsSink to check results in tests,
+ * or a sink that writes to the platform log
+ *
+ * Allocation is measured with the JVM's per-thread allocation counter when there is one. Android
+ * doesn't have one, so allocation metrics are only recorded on desktop and server JVMs
+ */
+public class Metrics {
+
+    /**
+     * Parsing one file, or one split of a file
+     */
+    public static final String PARSE = "parse";
+
+    /**
+     * Computing on data as it's parsed, summed over a run
+     */
+    public static final String COMPUTE_PARTIAL = "compute_partial";
+
+    /**
+     * The main computation on the whole data set
+     */
+    public static final String COMPUTE = "compute";
+
+    /**
+     * Building the buffers to draw from
+     */
+    public static final String RENDER = "render";
+
+    /**
+     * Thread pool queue depths, sampled each time a parsing task finishes
+     */
+    public static final String QUEUE = "queue";
+
+    public static final String TIME_MS = "time_ms";
+    public static final String BYTES = "bytes";
+    public static final String RECORDS = "records";
+    public static final String BYTES_PER_SECOND = "bytes_per_second";
+    public static final String RECORDS_PER_SECOND = "records_per_second";
+    public static final String ALLOCATED_BYTES = "allocated_bytes";
+
+    public static final String PARSER_QUEUE = "parser_queue";
+    public static final String COMPUTE_QUEUE = "compute_queue";
+    public static final String RECORDS_IN_FLIGHT = "records_in_flight";
+
+    /**
+     * com.sun.management.ThreadMXBean and its getThreadAllocatedBytes method, null if this JVM
+     * doesn't have them. Found by reflection since the class doesn't exist on Android
+     */
+    private static final Object THREAD_BEAN;
+    private static final Method ALLOCATED_BYTES_METHOD;
+
+    static {
+        Object bean = null;
+        Method method = null;
+        try {
+            Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+            bean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            if (beanClass.isInstance(bean)) {
+                method = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+                // Make sure it's turned on and works before relying on it
+                if ((Long) method.invoke(bean, Thread.currentThread().getId()) < 0) {
+                    method = null;
+                }
+            }
+        } catch (Throwable t) {
+            method = null;
+        }
+        THREAD_BEAN = bean;
+        ALLOCATED_BYTES_METHOD = method;
+    }
+
+    private final List<MetricsSink> sinks = new CopyOnWriteArrayList<MetricsSink>();
+
+    public void addSink(MetricsSink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(MetricsSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * @return whether there's anywhere to send metrics - callers can skip measuring if not
+     */
+    public boolean isEnabled() {
+        return !sinks.isEmpty();
+    }
+
+    /**
+     * Send a measurement to every sink
+     *
+     * @param stage the stage measured
+     * @param name what was measured
+     * @param label what it was measured on, may be null
+     * @param value the measurement
+     */
+    public void record(String stage, String name, String label, double value) {
+        if (sinks.isEmpty()) {
+            return;
+        }
+
+        Metric metric = new Metric(System.currentTimeMillis(), stage, name, label, value);
+        for (MetricsSink sink : sinks) {
+            sink.record(metric);
+        }
+    }
+
+    /**
+     * Record how long a stage took and, if known, how much it allocated
+     *
+     * @param stage the stage measured
+     * @param label what it was measured on, may be null
+     * @param elapsedNanos how long it took
+     * @param allocatedBytes bytes allocated while it ran, negative if unknown
+     */
+    public void recordTime(String stage, String label, long elapsedNanos, long allocatedBytes) {
+        record(stage, TIME_MS, label, elapsedNanos / 1e6);
+        if (allocatedBytes >= 0) {
+            record(stage, ALLOCATED_BYTES, label, allocatedBytes);
+        }
+    }
+
+    /**
+     * Record how long parsing took and how fast it went
+     *
+     * @param label the file parsed
+     * @param elapsedNanos how long it took
+     * @param allocatedBytes bytes allocated while parsing, negative if unknown
+     * @param bytes the size of what was parsed
+     * @param records the number of data objects parsed
+     */
+    public void recordParse(String label, long elapsedNanos, long allocatedBytes, long bytes, long records) {
+        recordTime(PARSE, label, elapsedNanos, allocatedBytes);
+        record(PARSE, BYTES, label, bytes);
+        record(PARSE, RECORDS, label, records);
+
+        double seconds = Math.max(1, elapsedNanos) / 1e9;
+        record(PARSE, BYTES_PER_SECOND, label, bytes / seconds);
+        record(PARSE, RECORDS_PER_SECOND, label, records / seconds);
+    }
+
+    /**
+     * Tell every sink a run has finished
+     */
+    public void flush() {
+        for (MetricsSink sink : sinks) {
+            sink.flush();
+        }
+    }
+
+    /**
+     * Get the number of bytes the calling thread has allocated so far
+     *
+     * Take the difference of two calls to get what a stage allocated
+     *
+     * @return bytes allocated by this thread, or -1 if the runtime doesn't say
+     */
+    public static long allocatedBytes() {
+        if (ALLOCATED_BYTES_METHOD == null) {
+            return -1;
+        }
+
+        try {
+            return (Long) ALLOCATED_BYTES_METHOD.invoke(THREAD_BEAN, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param start what allocatedBytes returned when the stage started
+     * @return bytes allocated since then, or -1 if unknown
+     */
+    public static long allocatedSince(long start) {
+        if (start < 0) {
+            return -1;
+        }
+        long now = allocatedBytes();
+        return now < 0 ? -1 : now - start;
+    }
+}
\ No newline at end of file
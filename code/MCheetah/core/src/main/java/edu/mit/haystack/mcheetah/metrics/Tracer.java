@@ -0,0 +1,256 @@
+package edu.mit.haystack.mcheetah.metrics;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author David Mascharka
+ *
+ * Records a timeline of what every thread was doing during a run, to see in chrome://tracing or
+ * Perfetto
+ *
+ * Code marks the work it does with beginSection and endSection, the same way as android.os.Trace.
+ * Sections can be nested, and must be ended on the thread that began them - use try/finally. While
+ * no trace is running the sections cost almost nothing, so they can be left in
+ *
+ * To trace a run, call start(), do the work, call stop() and write the trace out. The file is in
+ * Trace Event JSON format, with one row per thread, so uneven work between parser threads shows
+ * up as one long bar holding everything else up
+ *
+ * Only one trace runs at a time. Starting a new one stops the last
+ */
+public class Tracer {
+
+    /**
+     * The trace sections are recorded into, null when not tracing
+     */
+    private static volatile Tracer active;
+
+    /**
+     * Sections begun on each thread that haven't ended yet
+     */
+    private static final ThreadLocal<Deque<Section>> openSections = new ThreadLocal<Deque<Section>>() {
+        @Override
+        protected Deque<Section> initialValue() {
+            return new ArrayDeque<Section>();
+        }
+    };
+
+    /**
+     * When the trace started, all times in the file count from here
+     */
+    private final long startNanos;
+
+    private final ConcurrentLinkedQueue<Section> sections = new ConcurrentLinkedQueue<Section>();
+
+    /**
+     * The name of every thread that ended a section, by thread ID
+     */
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<Long, String>();
+
+    private volatile boolean stopped;
+
+    private Tracer() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Start recording sections from every thread
+     *
+     * @return the new trace
+     */
+    public static Tracer start() {
+        Tracer tracer = new Tracer();
+        Tracer previous = active;
+        active = tracer;
+        if (previous != null) {
+            previous.stopped = true;
+        }
+        return tracer;
+    }
+
+    /**
+     * @return whether a trace is running
+     */
+    public static boolean isTracing() {
+        return active != null;
+    }
+
+    /**
+     * Mark the start of some work on this thread
+     *
+     * @param name what the work is, shown on the timeline
+     */
+    public static void beginSection(String name) {
+        // Pushed even when not tracing so begin and end always pair up
+        openSections.get().push(new Section(active, name, System.nanoTime()));
+    }
+
+    /**
+     * Mark the end of the section this thread most recently began
+     */
+    public static void endSection() {
+        Deque<Section> open = openSections.get();
+        if (open.isEmpty()) {
+            return;
+        }
+
+        Section section = open.pop();
+        Tracer tracer = section.tracer;
+        if (tracer != null && !tracer.stopped) {
+            section.endNanos = System.nanoTime();
+            Thread thread = Thread.currentThread();
+            section.threadId = thread.getId();
+            tracer.threadNames.put(section.threadId, thread.getName());
+            tracer.sections.add(section);
+        }
+    }
+
+    /**
+     * Stop recording. Sections still open are dropped
+     */
+    public void stop() {
+        stopped = true;
+        if (active == this) {
+            active = null;
+        }
+    }
+
+    /**
+     * @return the number of sections recorded
+     */
+    public int getSectionCount() {
+        return sections.size();
+    }
+
+    /**
+     * Write the trace as Trace Event JSON
+     *
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void write(File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            write(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Write the trace as Trace Event JSON
+     *
+     * @param writer where to write it, not closed
+     * @throws IOException if writing fails
+     */
+    public void write(Writer writer) throws IOException {
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean first = true;
+
+        // Name each thread's row on the timeline
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            writer.write(first ? "\n" : ",\n");
+            first = false;
+            writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey()
+                    + ",\"args\":{\"name\":\"" + escape(thread.getValue()) + "\"}}");
+        }
+
+        // Sorted by start time so viewers that need it in order are happy
+        List<Section> sorted = new ArrayList<Section>(sections);
+        Collections.sort(sorted);
+        for (Section s : sorted) {
+            writer.write(first ? "\n" : ",\n");
+            first = false;
+            writer.write("{\"name\":\"" + escape(s.name) + "\",\"cat\":\"mcheetah\",\"ph\":\"X\",\"pid\":1,\"tid\":"
+                    + s.threadId + ",\"ts\":" + micros(s.startNanos - startNanos) + ",\"dur\":"
+                    + micros(s.endNanos - s.startNanos) + "}");
+        }
+
+        writer.write("\n]}\n");
+    }
+
+    /**
+     * @return nanoseconds as microseconds, to the nearest nanosecond
+     */
+    private static String micros(long nanos) {
+        // Not String.format, which can use non-ASCII digits in some locales
+        long fraction = nanos % 1000;
+        return (nanos / 1000) + (fraction < 10 ? ".00" : (fraction < 100 ? ".0" : ".")) + fraction;
+    }
+
+    private static String escape(String s) {
+        StringBuilder escaped = new StringBuilder(s.length());
+        char c;
+        for (int i = 0; i < s.length(); i++) {
+            c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < ' ') {
+                String hex = Integer.toHexString(c);
+                escaped.append("\\u00").append(hex.length() < 2 ? "0" : "").append(hex);
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * One piece of work on one thread
+     */
+    private static class Section implements Comparable<Section> {
+        final Tracer tracer;
+        final String name;
+        final long startNanos;
+        long endNanos;
+        long threadId;
+
+        Section(Tracer tracer, String name, long startNanos) {
+            this.tracer = tracer;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public int compareTo(Section another) {
+            return startNanos < another.startNanos ? -1 : (startNanos == another.startNanos ? 0 : 1);
+        }
+    }
+}
\ No newline at end of file
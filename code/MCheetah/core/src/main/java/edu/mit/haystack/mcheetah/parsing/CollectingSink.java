@@ -0,0 +1,55 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * A DataSink that collects data into a list a parser can add to directly
+ *
+ * accept adds one data object to the end of getList(). A parser that knows what kind of list that
+ * is can add to it itself instead - for example writing fields straight into the columns of a list
+ * that stores its data in arrays - without making a data object for each record. It must then call
+ * added with how many it added, and get the list again before adding more, because the sink may
+ * hand it on and start a new one
+ *
+ * Everything added directly counts exactly as if it had been passed to accept
+ */
+public interface CollectingSink<D> extends DataSink<D> {
+    /**
+     * @return the list the next data object goes on the end of
+     */
+    List<D> getList();
+
+    /**
+     * Tell the sink data was added to the end of getList() directly
+     *
+     * @param count how many data objects were added
+     */
+    void added(int count);
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * @author David Mascharka
+ *
+ * Collects the results of parsing tasks in the order they finish
+ *
+ * This is the join half of the fork-join pattern used for parsing. Tasks are submitted to an
+ * Executor through an ExecutorCompletionService, and awaitAll() blocks on whichever task finishes
+ * next. Each result is merged into the target list the moment its file is done, so there is no
+ * polling and no fixed sleep between checks
+ *
+ * The number of tasks submitted but not collected can be capped with setMaxPending. Once the cap is
+ * reached, submit() collects whichever task finishes next before submitting another, so finished
+ * results never queue up behind files that haven't started
+ *
+ * A collector is meant for one batch of files. Create a new one for each round of parsing
+ */
+public class CompletionCollector<D> {
+
+    /**
+     * Hands back finished tasks in completion order
+     */
+    private final CompletionService<List<D>> completionService;
+
+    /**
+     * The shared list all results are merged into - all access to it is synchronized on the list itself
+     */
+    private final List<D> target;
+
+    /**
+     * Number of tasks submitted that haven't been collected yet
+     */
+    private int pending;
+
+    /**
+     * The most tasks submitted but not collected at once
+     */
+    private int maxPending = Integer.MAX_VALUE;
+
+    /**
+     * Number of tasks collected so far that failed
+     */
+    private int failed;
+
+    /**
+     * @param executor the Executor to run parsing tasks on, usually the parser thread pool
+     * @param target the list results are merged into
+     */
+    public CompletionCollector(Executor executor, List<D> target) {
+        completionService = new ExecutorCompletionService<List<D>>(executor);
+        this.target = target;
+        pending = 0;
+    }
+
+    /**
+     * Limit the number of tasks submitted but not yet collected
+     *
+     * @param max the most pending tasks, at least 1
+     */
+    public void setMaxPending(int max) {
+        maxPending = Math.max(1, max);
+    }
+
+    /**
+     * Submit a parsing task
+     *
+     * The task should return the data it parsed, an empty list if it already moved its data over
+     * (like a StreamingParser writing through a ChunkedSink), or null if parsing failed
+     *
+     * If the most tasks allowed are already pending, this waits for one to finish and merges it first
+     *
+     * @param task the task to run
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void submit(Callable<List<D>> task) throws InterruptedException {
+        while (pending >= maxPending) {
+            collectNext();
+        }
+
+        completionService.submit(task);
+        pending++;
+    }
+
+    /**
+     * Wait for every submitted task to finish, merging each result as soon as it's available
+     *
+     * @return the number of tasks that failed, either by throwing or by returning null, including
+     *         any collected while submitting
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public int awaitAll() throws InterruptedException {
+        while (pending > 0) {
+            collectNext();
+        }
+
+        return failed;
+    }
+
+    /**
+     * Wait for the next task to finish and merge its result
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    private void collectNext() throws InterruptedException {
+        // Blocks until the next task finishes, whichever one that is. If this is interrupted no
+        // task has been taken, so it's still pending
+        Future<List<D>> finished = completionService.take();
+        pending--;
+
+        List<D> parsed;
+        try {
+            // Already finished, so this doesn't wait
+            parsed = finished.get();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            parsed = null;
+        }
+
+        if (parsed == null) {
+            failed++;
+        } else if (!parsed.isEmpty()) {
+            merge(parsed);
+        }
+        taskFinished();
+    }
+
+    /**
+     * Called on the thread running awaitAll() after each task is collected, whether it succeeded or
+     * not, once its results have been merged
+     *
+     * Does nothing by default
+     */
+    protected void taskFinished() {
+    }
+
+    /**
+     * Add one task's results to the target list
+     *
+     * @param parsed the data from one finished task
+     */
+    protected void merge(List<D> parsed) {
+        synchronized (target) {
+            target.addAll(parsed);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * Creates the lists parsed data is collected in before it's merged into the data object
+ *
+ * The DataProcessEngine and ParsedFileCache hold parsed data in lists of their own - a chunk of a
+ * file, a split, a cached file - and merge those into the data object. By default they're
+ * ArrayLists. A data object that stores its data some other way (in columns, say) can have those
+ * lists made the same way, so its addAll can copy them in bulk and a parser that knows the list
+ * type can write into them directly (see CollectingSink)
+ *
+ * Lists may be created on any parser thread, so an implementation must be safe to call from more
+ * than one thread at a time
+ */
+public interface DataListFactory<D> {
+    /**
+     * Make a new, empty list
+     *
+     * @param capacity how many data objects the list is expected to hold
+     * @return the list
+     */
+    List<D> newList(int capacity);
+}
\ No newline at end of file
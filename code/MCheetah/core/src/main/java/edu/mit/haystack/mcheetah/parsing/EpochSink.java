@@ -0,0 +1,52 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * A DataSink that chooses which epochs a StreamingParser parses
+ *
+ * Most data files are a series of epochs - all the observations taken at one time, one line of an
+ * example file, and so on. The data density picks which epochs are kept: at density d, epochs 0,
+ * d, 2d, ... are parsed and the rest are skipped
+ *
+ * A parser that knows about epochs checks whether its sink is an EpochSink. If it is, the parser
+ * calls startEpoch before each epoch and only parses the epoch if startEpoch returns true, instead
+ * of using the data density. Every data object passed to accept then belongs to the epoch most
+ * recently started. This lets ParsedFileCache parse only the epochs it doesn't already have
+ *
+ * Parsers that don't know about epochs never call startEpoch and just use the data density
+ */
+public interface EpochSink<D> extends DataSink<D> {
+    /**
+     * Called before each epoch in the file
+     *
+     * @param epoch the number of the epoch, counting from 0 in file order
+     * @return true if the epoch should be parsed, false to skip it
+     */
+    boolean startEpoch(int epoch);
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * Simplest possible sink - collects everything it is given into a list
+ *
+ * Used to turn a StreamingParser back into a list-returning Parser
+ */
+public class ListSink<D> implements CollectingSink<D> {
+
+    /**
+     * Everything passed to this sink, in the order it arrived
+     */
+    private List<D> data;
+
+    public ListSink() {
+        this(new ArrayList<D>());
+    }
+
+    /**
+     * @param data the list to collect into, data is added to the end of it
+     */
+    public ListSink(List<D> data) {
+        this.data = data;
+    }
+
+    @Override
+    public void accept(D d) {
+        data.add(d);
+    }
+
+    @Override
+    public List<D> getList() {
+        return data;
+    }
+
+    @Override
+    public void added(int count) {
+        // Nothing to do, the data is already in the list
+    }
+
+    /**
+     * Get all the data objects collected so far
+     *
+     * @return the list of data objects
+     */
+    public List<D> getData() {
+        return data;
+    }
+}
\ No newline at end of file
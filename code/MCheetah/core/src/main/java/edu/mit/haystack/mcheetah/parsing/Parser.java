@@ -38,8 +38,15 @@ import java.util.List;
  * use of static variables in this class should be done with caution
  * For more details on why this is, see how a DataProcessFragment utilizes this class
  *
+ * Each parser thread creates one Parser and reuses it for every file that thread parses, so a Parser
+ * can keep buffers and lookup tables as fields to avoid reallocating them for each file. A Parser is
+ * never used by two threads at once, but it must not carry any results from one file over to the next
+ *
  * Commonly, a parser should only need to have a parse function which returns a list of objects this parses
  * A class implementing this Parser needs to specify what type of object will be returned, D
+ *
+ * If your files can be large, implement StreamingParser instead (AbstractStreamingParser is an easy
+ * place to start) so data objects are handed off as they're read rather than all at once
  */
 public interface Parser<D> {
     /**
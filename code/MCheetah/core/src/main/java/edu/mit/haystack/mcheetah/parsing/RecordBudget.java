@@ -0,0 +1,108 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * Limits how many parsed records can be in flight between parsing and the stages after it
+ *
+ * A parser thread acquires records from the budget before handing a batch of data on, and whatever
+ * finishes with the batch downstream releases them. When the downstream stages fall behind the
+ * budget runs out and parser threads wait, so parsed data can't pile up faster than it's used
+ *
+ * A batch is always let through when nothing else is in flight, so a batch bigger than the whole
+ * budget still makes progress
+ */
+public class RecordBudget {
+
+    private final int maxRecords;
+
+    /**
+     * Records acquired and not yet released
+     */
+    private int inFlight;
+
+    /**
+     * @param maxRecords the most records in flight at once
+     */
+    public RecordBudget(int maxRecords) {
+        this.maxRecords = Math.max(1, maxRecords);
+    }
+
+    /**
+     * Work out a record budget from a budget in bytes
+     *
+     * @param maxBytes the most memory parsed data in flight should take
+     * @param bytesPerRecord roughly how much memory one record takes
+     * @return the number of records that fit in maxBytes
+     */
+    public static int recordsFor(long maxBytes, int bytesPerRecord) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / Math.max(1, bytesPerRecord)));
+    }
+
+    /**
+     * Wait until there's room for a batch, then count it as in flight
+     *
+     * If the thread is interrupted while waiting it keeps waiting, and the interrupt is set again
+     * once the records are acquired. This keeps acquire and release balanced
+     *
+     * @param records the number of records in the batch
+     */
+    public synchronized void acquire(int records) {
+        boolean interrupted = false;
+        while (inFlight > 0 && inFlight + records > maxRecords) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        inFlight += records;
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop counting a batch as in flight, letting waiting parser threads go on
+     *
+     * @param records the number of records in the batch
+     */
+    public synchronized void release(int records) {
+        inFlight -= records;
+        notifyAll();
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * Writes data objects to a buffer and reads them back, so ParsedFileCache can keep parsed data on disk
+ *
+ * Records are stored a column at a time - every record's first field, then every record's second
+ * field, and so on - and every record takes the same number of bytes
+ *
+ * Only the fields a Parser sets need to be stored. Anything a Computer works out is computed again
+ * after the data is read back
+ */
+public interface RecordCodec<D> {
+    /**
+     * Cached data written with a different version is thrown away and the file is parsed again
+     *
+     * @return a number to change whenever the parser or this codec changes what's stored
+     */
+    public int getVersion();
+
+    /**
+     * @return the number of bytes one record takes across all columns
+     */
+    public int getRecordBytes();
+
+    /**
+     * Write records one column at a time
+     *
+     * @param records the records to write
+     * @param out the buffer to write to, with room for records.size()*getRecordBytes() bytes
+     */
+    public void encode(List<D> records, ByteBuffer out);
+
+    /**
+     * Read records written by encode
+     *
+     * @param in the buffer to read from, positioned where encode started writing
+     * @param count the number of records to read
+     * @return the records, in the order they were written
+     */
+    public List<D> decode(ByteBuffer in, int count);
+}
\ No newline at end of file
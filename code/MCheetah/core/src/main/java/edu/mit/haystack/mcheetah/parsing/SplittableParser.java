@@ -0,0 +1,69 @@
+package edu.mit.haystack.mcheetah.parsing;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author David Mascharka
+ *
+ * A StreamingParser that can break one file into pieces and parse each piece separately
+ *
+ * Parallelism is normally one thread per file, so a single large file only uses one core. When
+ * there are fewer files than parser threads, the DataProcessEngine asks a SplittableParser to split
+ * each file, parses every split on its own thread, then joins the results back together in file
+ * order
+ *
+ * split() is called once per file and should read the header. Each split is then passed to
+ * parse(FileSplit, int, DataSink) on a different Parser from the same ParserFactory
+ *
+ * Data density is applied within each split, counting records from the start of the split, so
+ * which points are kept depends on where the splits fall. With a density of 1 the results are
+ * identical to parsing the whole file at once, so the DataProcessEngine only splits files then
+ */
+public interface SplittableParser<D> extends StreamingParser<D> {
+    /**
+     * Break a file into byte ranges that each start at a record boundary
+     *
+     * @param file the file to split
+     * @param maxSplits the most splits to make - fewer may be returned for small files
+     * @return the splits, in file order, covering every record in the file
+     * @throws IOException if the file can't be read or its header is bad
+     */
+    List<FileSplit> split(File file, int maxSplits) throws IOException;
+
+    /**
+     * Parse one split of a file
+     *
+     * @param split the piece of the file to parse, from split()
+     * @param dataDensity the density of data to process (every point, every third point, every n points)
+     * @param sink receives every parsed data object, in the order they appear in the file
+     * @throws IOException if the file can't be read
+     */
+    void parse(FileSplit split, int dataDensity, DataSink<D> sink) throws IOException;
+}
\ No newline at end of file
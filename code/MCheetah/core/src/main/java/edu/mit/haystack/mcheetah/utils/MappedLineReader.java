@@ -0,0 +1,273 @@
+package edu.mit.haystack.mcheetah.utils;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * @author David Mascharka
+ *
+ * Reads an ASCII file line by line straight from its bytes, without decoding it into chars the way
+ * a LineReader over an InputStreamReader does
+ *
+ * The file is memory mapped with FileChannel.map a window at a time, and each line is copied into
+ * the same byte buffer. The current line is this CharSequence, so Tokenizer and the CharSequence
+ * methods of ParserUtils work on it, and getBuffer can be handed to the byte array methods of
+ * ParserUtils. It changes on every call to readLine, so copy anything that needs to be kept with
+ * toString
+ *
+ * Every byte is read as the character with the same value (ISO-8859-1), which is right for
+ * anything ASCII like RINEX
+ *
+ * Lines end at "\n", "\r" or "\r\n", the same as LineReader
+ *
+ * Note that this class is NOT thread safe
+ */
+public class MappedLineReader implements CharSequence {
+
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+
+    /**
+     * How much of the file is mapped at once. Keeps the address space used small for big files on
+     * 32 bit phones
+     */
+    private static final int DEFAULT_WINDOW_SIZE = 1 << 25;
+    private static final int DEFAULT_LINE_LENGTH = 128;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int windowSize;
+
+    /**
+     * Where the next window starts in the file, and where the last one has to end
+     */
+    private long windowStart;
+    private final long end;
+
+    private ByteBuffer input;
+
+    private byte[] line;
+    private int length;
+
+    /**
+     * Set when a line ended with '\r', so a '\n' right after it isn't read as an empty line
+     */
+    private boolean skipNewline;
+
+    /**
+     * @param f the file to read
+     * @throws IOException if the file can't be opened
+     */
+    public MappedLineReader(File f) throws IOException {
+        this(f, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads a range of bytes from a file as if it were the whole file, like a RangeInputStream
+     *
+     * @param f the file to read
+     * @param start position of the first byte to read
+     * @param end position one past the last byte to read
+     * @throws IOException if the file can't be opened
+     */
+    public MappedLineReader(File f, long start, long end) throws IOException {
+        this(f, start, end, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param f the file to read
+     * @param start position of the first byte to read
+     * @param end position one past the last byte to read
+     * @param windowSize how many bytes of the file to map at once
+     * @throws IOException if the file can't be opened
+     */
+    public MappedLineReader(File f, long start, long end, int windowSize) throws IOException {
+        file = new RandomAccessFile(f, "r");
+        channel = file.getChannel();
+        this.windowSize = Math.max(1, windowSize);
+        this.end = Math.min(end, channel.size());
+        windowStart = start;
+        input = ByteBuffer.allocate(0);
+        line = new byte[DEFAULT_LINE_LENGTH];
+    }
+
+    /**
+     * Reads lines from bytes that are already in memory, from the buffer's position to its limit
+     *
+     * @param buffer the bytes to read. Its position is moved as lines are read
+     */
+    public MappedLineReader(ByteBuffer buffer) {
+        file = null;
+        channel = null;
+        windowSize = 0;
+        end = 0;
+        input = buffer;
+        line = new byte[DEFAULT_LINE_LENGTH];
+    }
+
+    /**
+     * Reads the next line, without the line terminator
+     *
+     * @return false if there are no more lines
+     * @throws IOException if the file can't be mapped
+     */
+    public boolean readLine() throws IOException {
+        length = 0;
+        boolean read = false;
+
+        while (true) {
+            if (!input.hasRemaining() && !mapNextWindow()) {
+                // The last line doesn't need a line terminator
+                return read;
+            }
+
+            int start = input.position();
+            int limit = input.limit();
+
+            if (skipNewline) {
+                skipNewline = false;
+                if (input.get(start) == '\n') {
+                    input.position(start + 1);
+                    continue;
+                }
+            }
+
+            read = true;
+
+            // Copy up to the end of the line or the end of the window, whichever is first
+            int lineEnd = start;
+            byte b = 0;
+            while (lineEnd < limit && (b = input.get(lineEnd)) != '\n' && b != '\r') {
+                lineEnd++;
+            }
+            append(lineEnd - start);
+
+            if (lineEnd < limit) {
+                skipNewline = b == '\r';
+                input.position(lineEnd + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Maps the next part of the file
+     *
+     * @return false if the whole file (or range) has been read
+     */
+    private boolean mapNextWindow() throws IOException {
+        if (channel == null || windowStart >= end) {
+            return false;
+        }
+
+        long size = Math.min(windowSize, end - windowStart);
+        input = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+        windowStart += size;
+        return true;
+    }
+
+    private void append(int count) {
+        if (length + count > line.length) {
+            byte[] bigger = new byte[Math.max(line.length*2, length + count)];
+            System.arraycopy(line, 0, bigger, 0, length);
+            line = bigger;
+        }
+        input.get(line, length, count);
+        length += count;
+    }
+
+    /**
+     * @return the buffer holding the current line, from index 0 to length(). Only valid until the
+     * next call to readLine
+     */
+    public byte[] getBuffer() {
+        return line;
+    }
+
+    /**
+     * Checks whether the current line contains some text, like String.contains without making a String
+     *
+     * @param text what to look for
+     * @return true if the line contains the text
+     */
+    public boolean contains(String text) {
+        int count = text.length();
+        int last = length - count;
+        for (int i = 0; i <= last; i++) {
+            int j = 0;
+            while (j < count && (line[i + j] & 0xFF) == text.charAt(j)) {
+                j++;
+            }
+            if (j == count) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return (char) (line[index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new String(line, start, end - start, LATIN_1);
+    }
+
+    /**
+     * @return a copy of the current line
+     */
+    @Override
+    public String toString() {
+        return new String(line, 0, length, LATIN_1);
+    }
+
+    /**
+     * Closes the file. The mapped windows are let go by the garbage collector
+     */
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,745 @@
+package edu.mit.haystack.mcheetah.utils;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.ArrayList;
+
+/**
+ * @author David Mascharka
+ *
+ * Contains handy functions for parsing files that create significantly less
+ * garbage than Java's methods
+ *
+ * Note that this class is NOT thread safe and should not be called from multiple threads
+ */
+public class ParserUtils {
+    public static final double DEGREES_TO_RADIANS = 0.01745329251;
+
+    public static final double RADIANS_TO_DEGREES = 57.2957795;
+
+    /**
+     * The most significant digits a long can hold for any digits
+     */
+    private static final int MAX_MANTISSA_DIGITS = 19;
+
+    /**
+     * Exponents are only read up to this, anything bigger overflows or underflows anyway
+     */
+    private static final int MAX_EXPONENT_VALUE = 100000;
+
+    private ParserUtils() {} // static class, don't let other classes instantiate this
+
+    /**
+     * Java's parseDouble creates too many objects and can't read the D exponent in navigation files,
+     * so do this character-by-character and don't create any new objects
+     *
+     * Gives exactly the same double as Double.parseDouble. Leading and trailing spaces are fine, and
+     * the exponent can start with E, e, D or d
+     *
+     * @param num the string representation of the double we want to parse
+     * @return the double represented by the input string, Integer.MAX_VALUE if it's blank, or NaN
+     * if it isn't a number
+     */
+    public static double parseDouble(String num) {
+        return parseDouble(num, 0, num.length());
+    }
+
+    /**
+     * Same as parseDouble(String), but parses the number in place from part of a line without
+     * making a substring first
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the double representation of the number, Integer.MAX_VALUE if it's blank, or NaN if it
+     * isn't a number
+     */
+    public static double parseDouble(CharSequence num, int offset, int length) {
+        return parseDouble(num, null, null, offset, length);
+    }
+
+    /**
+     * Same as parseDouble(CharSequence, int, int), for a character array
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the double representation of the number, Integer.MAX_VALUE if it's blank, or NaN if it
+     * isn't a number
+     */
+    public static double parseDouble(char[] num, int offset, int length) {
+        return parseDouble(null, num, null, offset, length);
+    }
+
+    /**
+     * Same as parseDouble(CharSequence, int, int), for ASCII text held in bytes, like a line from a MappedLineReader
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the double representation of the number, Integer.MAX_VALUE if it's blank, or NaN if it
+     * isn't a number
+     */
+    public static double parseDouble(byte[] num, int offset, int length) {
+        return parseDouble(null, null, num, offset, length);
+    }
+
+    /**
+     * Does the work for every parseDouble. The number is in exactly one of text, chars or bytes,
+     * the other two are null
+     */
+    private static double parseDouble(CharSequence text, char[] chars, byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        char c = ' ';
+
+        // Fixed width fields are padded with spaces
+        while (i < end && charAt(text, chars, bytes, i) <= ' ') {
+            i++;
+        }
+        if (i == end) {
+            return Integer.MAX_VALUE;
+        }
+
+        boolean negative = false;
+        c = charAt(text, chars, bytes, i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        // Keep the first 19 significant digits, which always fit in 64 bits, and count the rest in
+        // the exponent
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean hasDigits = false;
+
+        for (; i < end; i++) {
+            c = charAt(text, chars, bytes, i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            hasDigits = true;
+            if (significantDigits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa*10 + (c - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+            } else {
+                exponent++;
+                truncated |= c != '0';
+            }
+        }
+
+        if (i < end && c == '.') {
+            for (i++; i < end; i++) {
+                c = charAt(text, chars, bytes, i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                hasDigits = true;
+                if (significantDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa*10 + (c - '0');
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated |= c != '0';
+                }
+            }
+        }
+
+        if (!hasDigits) {
+            return Double.NaN;
+        }
+
+        // 1.2E7 and 1.2D7 are both 1.2*10^7
+        if (i < end && (c == 'E' || c == 'e' || c == 'D' || c == 'd')) {
+            boolean exponentNegative = false;
+            int exponentValue = 0;
+            boolean hasExponentDigits = false;
+
+            i++;
+            if (i < end) {
+                c = charAt(text, chars, bytes, i);
+                if (c == '-' || c == '+') {
+                    exponentNegative = c == '-';
+                    i++;
+                }
+            }
+            for (; i < end; i++) {
+                c = charAt(text, chars, bytes, i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                hasExponentDigits = true;
+                // Anything this big is already zero or infinity
+                if (exponentValue < MAX_EXPONENT_VALUE) {
+                    exponentValue = exponentValue*10 + (c - '0');
+                }
+            }
+
+            if (!hasExponentDigits) {
+                return Double.NaN;
+            }
+            exponent += exponentNegative ? -exponentValue : exponentValue;
+        }
+
+        while (i < end && charAt(text, chars, bytes, i) <= ' ') {
+            i++;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        double value = DoubleConversion.toDouble(mantissa, exponent, negative, truncated);
+        if (value != value) {
+            // Too many digits or too close to call, let Java decide
+            value = parseDoubleSlowly(text, chars, bytes, offset, length);
+        }
+        return value;
+    }
+
+    /**
+     * @return character i of whichever of text, chars or bytes isn't null. Bytes are read as
+     * ISO-8859-1, the same as MappedLineReader.charAt
+     */
+    private static char charAt(CharSequence text, char[] chars, byte[] bytes, int i) {
+        if (bytes != null) {
+            return (char) (bytes[i] & 0xFF);
+        }
+        if (chars != null) {
+            return chars[i];
+        }
+        return text.charAt(i);
+    }
+
+    /**
+     * Hands a number that's already been checked over to Double.parseDouble, which doesn't know
+     * about the D exponent
+     */
+    private static double parseDoubleSlowly(CharSequence text, char[] chars, byte[] bytes, int offset, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = offset; i < offset + length; i++) {
+            char c = charAt(text, chars, bytes, i);
+            builder.append(c == 'D' || c == 'd' ? 'E' : c);
+        }
+        return Double.parseDouble(builder.toString().trim());
+    }
+
+    /**
+     * Java's Byte.parseByte method calls Integer.parseInt, which creates some objects
+     * Don't create a bunch of objects. Just take the number directly
+     * Experimentally, takes a little bit less time and memory than calling Byte.parseByte
+     *
+     * Digits are read one at a time and anything that isn't a digit or a minus sign is skipped
+     *
+     * @param num the string representation of the number we want to parse
+     * @return the byte representation of the number
+     */
+    public static byte parseByte(String num) {
+        return parseByte(num, 0, num.length());
+    }
+
+    /**
+     * Same as parseByte(String), but parses the number in place from part of a line without
+     * making a substring first
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the byte representation of the number, Byte.MAX_VALUE if there are no digits
+     */
+    public static byte parseByte(CharSequence num, int offset, int length) {
+        byte byteRetVal = Byte.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = num.charAt(i);
+
+            if ('0' <= c && c <= '9') {
+                // the character is a diigt
+                digit = (byte) (c - '0');
+                if (byteRetVal == Byte.MAX_VALUE) {
+                    byteRetVal = digit;
+                } else {
+                    byteRetVal *= 10;
+                    byteRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            byteRetVal *= -1;
+        }
+
+        return byteRetVal;
+    }
+
+    /**
+     * Same as parseByte(CharSequence, int, int), for a character array
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the byte representation of the number, Byte.MAX_VALUE if there are no digits
+     */
+    public static byte parseByte(char[] num, int offset, int length) {
+        byte byteRetVal = Byte.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = num[i];
+
+            if ('0' <= c && c <= '9') {
+                digit = (byte) (c - '0');
+                if (byteRetVal == Byte.MAX_VALUE) {
+                    byteRetVal = digit;
+                } else {
+                    byteRetVal *= 10;
+                    byteRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            byteRetVal *= -1;
+        }
+
+        return byteRetVal;
+    }
+
+    /**
+     * Same as parseByte(CharSequence, int, int), for ASCII text held in bytes, like a line from a MappedLineReader
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the byte representation of the number, Byte.MAX_VALUE if there are no digits
+     */
+    public static byte parseByte(byte[] num, int offset, int length) {
+        byte byteRetVal = Byte.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = (char) (num[i] & 0xFF);
+
+            if ('0' <= c && c <= '9') {
+                digit = (byte) (c - '0');
+                if (byteRetVal == Byte.MAX_VALUE) {
+                    byteRetVal = digit;
+                } else {
+                    byteRetVal *= 10;
+                    byteRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            byteRetVal *= -1;
+        }
+
+        return byteRetVal;
+    }
+
+    /**
+     * Java's Short.parseShort method calls Integer.parseInt, which creates objects
+     * Don't create lots of objects. Just take the number directly
+     *
+     * Works the same way as parseByte
+     *
+     * @param num the string representation of the number to parse
+     * @return the short integer (2 byte) representation of the number
+     */
+    public static short parseShort(String num) {
+        return parseShort(num, 0, num.length());
+    }
+
+    /**
+     * Same as parseShort(String), but parses the number in place from part of a line without
+     * making a substring first
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the short integer representation of the number, Short.MAX_VALUE if there are no digits
+     */
+    public static short parseShort(CharSequence num, int offset, int length) {
+        short shortRetVal = Short.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = num.charAt(i);
+
+            if ('0' <= c && c <= '9') {
+                // digit
+                digit = (byte) (c - '0');
+                if (shortRetVal == Short.MAX_VALUE) {
+                    shortRetVal = digit;
+                } else {
+                    shortRetVal *= 10;
+                    shortRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            shortRetVal *= -1;
+        }
+
+        return shortRetVal;
+    }
+
+    /**
+     * Same as parseShort(CharSequence, int, int), for a character array
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the short integer representation of the number, Short.MAX_VALUE if there are no digits
+     */
+    public static short parseShort(char[] num, int offset, int length) {
+        short shortRetVal = Short.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = num[i];
+
+            if ('0' <= c && c <= '9') {
+                digit = (byte) (c - '0');
+                if (shortRetVal == Short.MAX_VALUE) {
+                    shortRetVal = digit;
+                } else {
+                    shortRetVal *= 10;
+                    shortRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            shortRetVal *= -1;
+        }
+
+        return shortRetVal;
+    }
+
+    /**
+     * Same as parseShort(CharSequence, int, int), for ASCII text held in bytes, like a line from a MappedLineReader
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the short integer representation of the number, Short.MAX_VALUE if there are no digits
+     */
+    public static short parseShort(byte[] num, int offset, int length) {
+        short shortRetVal = Short.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = (char) (num[i] & 0xFF);
+
+            if ('0' <= c && c <= '9') {
+                digit = (byte) (c - '0');
+                if (shortRetVal == Short.MAX_VALUE) {
+                    shortRetVal = digit;
+                } else {
+                    shortRetVal *= 10;
+                    shortRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            shortRetVal *= -1;
+        }
+
+        return shortRetVal;
+    }
+
+    /**
+     * Java's Integer.parseInt method generates a lot of garbage
+     * Use this instead for performance
+     *
+     * Works the same way as parseByte
+     *
+     * @param num the string representation of the number to parse
+     * @return the integer representation of the number
+     */
+    public static int parseInt(String num) {
+        return parseInt(num, 0, num.length());
+    }
+
+    /**
+     * Same as parseInt(String), but parses the number in place from part of a line without
+     * making a substring first
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the integer representation of the number, Integer.MAX_VALUE if there are no digits
+     */
+    public static int parseInt(CharSequence num, int offset, int length) {
+        int intRetVal = Integer.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = num.charAt(i);
+
+            if ('0' <= c && c <= '9') {
+                // digit
+                digit = (byte) (c - '0');
+                if (intRetVal == Integer.MAX_VALUE) {
+                    intRetVal = digit;
+                } else {
+                    intRetVal *= 10;
+                    intRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            intRetVal *= -1;
+        }
+
+        return intRetVal;
+    }
+
+    /**
+     * Same as parseInt(CharSequence, int, int), for a character array
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the integer representation of the number, Integer.MAX_VALUE if there are no digits
+     */
+    public static int parseInt(char[] num, int offset, int length) {
+        int intRetVal = Integer.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = num[i];
+
+            if ('0' <= c && c <= '9') {
+                digit = (byte) (c - '0');
+                if (intRetVal == Integer.MAX_VALUE) {
+                    intRetVal = digit;
+                } else {
+                    intRetVal *= 10;
+                    intRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            intRetVal *= -1;
+        }
+
+        return intRetVal;
+    }
+
+    /**
+     * Same as parseInt(CharSequence, int, int), for ASCII text held in bytes, like a line from a MappedLineReader
+     *
+     * @param num holds the number
+     * @param offset where the number starts
+     * @param length how many characters the number takes up
+     * @return the integer representation of the number, Integer.MAX_VALUE if there are no digits
+     */
+    public static int parseInt(byte[] num, int offset, int length) {
+        int intRetVal = Integer.MAX_VALUE;
+        boolean negative = false;
+
+        char c;
+        byte digit;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            c = (char) (num[i] & 0xFF);
+
+            if ('0' <= c && c <= '9') {
+                digit = (byte) (c - '0');
+                if (intRetVal == Integer.MAX_VALUE) {
+                    intRetVal = digit;
+                } else {
+                    intRetVal *= 10;
+                    intRetVal += digit;
+                }
+            } else if (c == '-') {
+                negative = !negative;
+            }
+        }
+
+        if (negative) {
+            intRetVal *= -1;
+        }
+
+        return intRetVal;
+    }
+
+    /**
+     * Java's String.split is awful for performance and Pattern.split also creates too many objects
+     * Splits on at least one space
+     * Equivalent to the regular expression /\s+/
+     *
+     * Use a Tokenizer instead when the tokens are only going to be parsed, it doesn't make any Strings
+     *
+     * @param input the string to split on a space
+     * @return array of tokens
+     */
+    public static String[] splitSpace(String input) {
+        ArrayList<String> splitHelper = new ArrayList<>();
+
+        int startIndex = -1;
+
+        int size = input.length();
+        char c;
+        for (int i = 0; i < size; i++) {
+            c = input.charAt(i);
+            if (c == ' ' && startIndex != -1) {
+                splitHelper.add(input.substring(startIndex, i));
+                startIndex = -1;
+            } else if (c != ' ' && startIndex == -1) {
+                startIndex = i;
+            }
+        }
+
+        if (startIndex != -1) {
+            // we're at the end of the string and there's something else to add
+            splitHelper.add(input.substring(startIndex, size));
+        }
+
+        size = splitHelper.size();
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = splitHelper.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Again, Java's split methods create a lot of garbage
+     * Optimize splitting on a G for reading PRNs
+     *
+     * @param input a prn string
+     * @param numPRNs the number of PRNs we're reading
+     * @return a byte array of PRNs for the observation epoch
+     */
+    public static byte[] splitPRNs(String input, byte numPRNs) {
+        byte[] PRNs = new byte[numPRNs];
+        byte prnIndex = 0;
+        boolean inPRN = false;
+
+        // Here we allocate a new byte for size because we call parseByte in here, which would modify
+        // the global size, which would be really bad and cause a lot of ephemerides to be null -- not good!
+        byte size = (byte) input.length();
+        char c;
+
+        for (byte i = 0; i < size; i++) {
+            c = input.charAt(i);
+            if (c == 'G' && inPRN) {
+                // all PRNs will be 2 characters
+                PRNs[prnIndex] = parseByte(input, i - 2, 2);
+                prnIndex++;
+            } else if (c == 'G') { // the first number indicates numPRNs, skip over it
+                inPRN = true;
+            }
+        }
+        // get the last one
+        PRNs[prnIndex] = parseByte(input, size - 2, 2);
+
+        return PRNs;
+    }
+
+    /**
+     * Same as splitPRNs(String, byte), but reads the PRNs in place from part of a line into an array
+     * the caller keeps, so nothing is allocated
+     *
+     * Epochs with more than 12 satellites continue their PRNs on the next line, so call this once per
+     * line, passing back the index it returns
+     *
+     * @param input holds PRNs like 3G12G06G22 or G12G06G22
+     * @param offset where the PRNs start
+     * @param length how many characters the PRNs take up
+     * @param prns where to put the PRNs
+     * @param prnIndex where in prns to put the first PRN
+     * @return the index after the last PRN read
+     */
+    public static int splitPRNs(CharSequence input, int offset, int length, byte[] prns, int prnIndex) {
+        int end = offset + length;
+        for (int i = offset; i + 2 < end && prnIndex < prns.length; i++) {
+            if (input.charAt(i) == 'G') {
+                // all PRNs will be 2 characters
+                prns[prnIndex++] = parseByte(input, i + 1, 2);
+                i += 2;
+            }
+        }
+
+        return prnIndex;
+    }
+}
\ No newline at end of file
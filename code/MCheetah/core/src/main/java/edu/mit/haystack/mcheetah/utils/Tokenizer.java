@@ -0,0 +1,195 @@
+package edu.mit.haystack.mcheetah.utils;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * @author David Mascharka
+ *
+ * Splits a line on spaces without making any objects, the same way ParserUtils.splitSpace does
+ *
+ * Instead of a String for every token, the start and end of each token are written into an int
+ * array owned by the caller: token k starts at bounds[2*k] and ends (exclusive) at bounds[2*k + 1].
+ * The typed accessors parse a token where it sits in the line, so a tokenizer can be made once and
+ * used for every line of a file
+ *
+ * The line isn't copied, so the tokens are only good until the line changes (for a LineReader,
+ * until the next readLine)
+ *
+ * Note that this class is NOT thread safe
+ */
+public class Tokenizer {
+
+    private final int[] bounds;
+    private final int maxTokens;
+
+    private CharSequence line;
+    private int count;
+
+    /**
+     * @param bounds where to put the token offsets, two for each token. Lines with more than
+     *               bounds.length/2 tokens only have their first bounds.length/2 tokens read
+     */
+    public Tokenizer(int[] bounds) {
+        if (bounds.length < 2) {
+            throw new IllegalArgumentException("Room for at least one token is needed");
+        }
+        this.bounds = bounds;
+        maxTokens = bounds.length / 2;
+    }
+
+    /**
+     * Splits the whole line on spaces
+     *
+     * @param line the line to split
+     * @return the number of tokens
+     */
+    public int tokenize(CharSequence line) {
+        return tokenize(line, 0, line.length());
+    }
+
+    /**
+     * Splits part of a line on spaces. Token offsets are still from the start of the line
+     *
+     * @param line holds the part to split
+     * @param offset where to start splitting
+     * @param length how many characters to split
+     * @return the number of tokens
+     */
+    public int tokenize(CharSequence line, int offset, int length) {
+        this.line = line;
+        count = 0;
+
+        int end = offset + length;
+        int i = offset;
+        while (i < end && count < maxTokens) {
+            while (i < end && line.charAt(i) == ' ') {
+                i++;
+            }
+            if (i == end) {
+                break;
+            }
+
+            bounds[2*count] = i;
+            while (i < end && line.charAt(i) != ' ') {
+                i++;
+            }
+            bounds[2*count + 1] = i;
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the number of tokens in the last line split
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @param k the token
+     * @return where token k starts in the line
+     */
+    public int start(int k) {
+        checkToken(k);
+        return bounds[2*k];
+    }
+
+    /**
+     * @param k the token
+     * @return where token k ends (exclusive) in the line
+     */
+    public int end(int k) {
+        checkToken(k);
+        return bounds[2*k + 1];
+    }
+
+    /**
+     * @param k the token
+     * @return how many characters are in token k
+     */
+    public int length(int k) {
+        checkToken(k);
+        return bounds[2*k + 1] - bounds[2*k];
+    }
+
+    /**
+     * @param k the token
+     * @param c the character to look for
+     * @return where c first shows up in token k, as an offset into the line, or -1 if it doesn't
+     */
+    public int indexOf(int k, char c) {
+        int end = end(k);
+        for (int i = bounds[2*k]; i < end; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses token k with ParserUtils.parseDouble
+     */
+    public double doubleAt(int k) {
+        return ParserUtils.parseDouble(line, start(k), length(k));
+    }
+
+    /**
+     * Parses token k with ParserUtils.parseInt
+     */
+    public int intAt(int k) {
+        return ParserUtils.parseInt(line, start(k), length(k));
+    }
+
+    /**
+     * Parses token k with ParserUtils.parseShort
+     */
+    public short shortAt(int k) {
+        return ParserUtils.parseShort(line, start(k), length(k));
+    }
+
+    /**
+     * Parses token k with ParserUtils.parseByte
+     */
+    public byte byteAt(int k) {
+        return ParserUtils.parseByte(line, start(k), length(k));
+    }
+
+    /**
+     * Makes a String of token k, for the few places that need to keep one
+     */
+    public String tokenAt(int k) {
+        return line.subSequence(start(k), end(k)).toString();
+    }
+
+    private void checkToken(int k) {
+        if (k < 0 || k >= count) {
+            throw new IndexOutOfBoundsException("Token " + k + " of " + count);
+        }
+    }
+}
\ No newline at end of file
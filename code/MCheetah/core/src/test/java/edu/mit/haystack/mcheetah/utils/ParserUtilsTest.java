@@ -0,0 +1,170 @@
+package edu.mit.haystack.mcheetah.utils;
+
+/* The MIT License (MIT)
+ * Copyright (c) 2015 Massachusetts Institute of Technology
+ *
+ * Author: David Mascharka
+ * This software is part of the Mahali Project, PI: V. Pankratius
+ * http://mahali.mit.edu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David Mascharka
+ *
+ * parseDouble has to give exactly the same double as Double.parseDouble, from every kind of input
+ */
+public class ParserUtilsTest {
+
+    @Test
+    public void simpleNumbers() {
+        assertParses("0", 0.0);
+        assertParses("-0.0", -0.0);
+        assertParses("+12.5", 12.5);
+        assertParses("20730878.191", 20730878.191);
+        assertParses(".5", 0.5);
+        assertParses("5.", 5.0);
+        assertParses("-0.123456789012D+05", -12345.6789012);
+        assertParses("1.5d-3", 1.5e-3);
+        assertParses("7e2", 700.0);
+    }
+
+    @Test
+    public void halfwayCasesRoundToEven() {
+        // 2^53 + 1 and 2^53 + 3 are exactly halfway between two doubles
+        assertParses("9007199254740993", 9007199254740992.0);
+        assertParses("9007199254740995", 9007199254740996.0);
+        // 1 + 2^-53 is halfway between 1 and the next double up, a hair more isn't
+        assertParses("1.00000000000000011102230246251565404236316680908203125", 1.0);
+        assertParses("1.00000000000000011102230246251565404236316680908203126", Math.nextUp(1.0));
+        assertParses("1.00000000000000011102230246251565404236316680908203124", 1.0);
+    }
+
+    @Test
+    public void subnormals() {
+        assertParses("4.9E-324", Double.MIN_VALUE);
+        assertParses("2.4703282292062327E-324", 0.0);
+        assertParses("2.4703282292062328E-324", Double.MIN_VALUE);
+        assertParses("2.2250738585072011E-308", Double.parseDouble("2.2250738585072011E-308"));
+        assertParses("2.2250738585072012E-308", Double.MIN_NORMAL);
+        assertParses("-1.0E-310", -1.0E-310);
+    }
+
+    @Test
+    public void manyDigits() {
+        assertParses("123456789012345678901234567890", 1.2345678901234568E29);
+        assertParses("0.1000000000000000055511151231257827021181583404541015625", 0.1);
+        assertParses("1234567890123456789", 1234567890123456789.0);
+        assertParses("12345678901234567890", 12345678901234567890.0);
+        assertParses("0.000000000000000000000000000000001234567890123456789012345", 1.234567890123456789012345E-33);
+        assertParses("179769313486231580793728971405303415079934132710037826936173778980444968292764750946649017977587207096330286416692887910946555547851940402630657488671505820681908902000708383676273854845817711531764475730270069855571366959622842914819860834936475292719074168444365510704342711559699508093042880177904174497791.9999999", Double.MAX_VALUE);
+    }
+
+    @Test
+    public void exponentOverflowAndUnderflow() {
+        assertParses("1E308", 1E308);
+        assertParses("1E309", Double.POSITIVE_INFINITY);
+        assertParses("-1D400", Double.NEGATIVE_INFINITY);
+        assertParses("1E99999999999", Double.POSITIVE_INFINITY);
+        assertParses("1E-400", 0.0);
+        assertParses("-1E-99999999999", -0.0);
+        assertParses("0E99999999999", 0.0);
+        assertParses("0.00000000000000000000000000000000001E330", 1E295);
+    }
+
+    @Test
+    public void blankIsMaxValue() {
+        assertParses("", Integer.MAX_VALUE);
+        assertParses("              ", Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, ParserUtils.parseDouble(""), 0);
+    }
+
+    @Test
+    public void malformedIsNaN() {
+        for (String text : new String[] {"abc", "-", "+", ".", "-.", "1.2.3", "1E", "1E+", "1D-", "1 2",
+                "12a", "E5", "--1", "1e5.5"}) {
+            assertParses(text, Double.NaN);
+        }
+    }
+
+    @Test
+    public void matchesJava() {
+        Random random = new Random(20);
+        for (int i = 0; i < 200000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                continue;
+            }
+            String text = Double.toString(d);
+            assertParses(text, d);
+            text = String.format(Locale.US, "%.3f", random.nextDouble()*1e9 - 5e8);
+            assertParses(text, Double.parseDouble(text));
+            text = randomDigits(random);
+            assertParses(text, Double.parseDouble(text));
+        }
+    }
+
+    /**
+     * @return a number with up to 25 digits, a decimal point somewhere and maybe an exponent
+     */
+    private static String randomDigits(Random random) {
+        StringBuilder text = new StringBuilder();
+        if (random.nextBoolean()) {
+            text.append('-');
+        }
+        int digits = 1 + random.nextInt(25);
+        int point = random.nextInt(digits + 1);
+        for (int i = 0; i < digits; i++) {
+            if (i == point) {
+                text.append('.');
+            }
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+        if (random.nextBoolean()) {
+            text.append('E').append(random.nextInt(640) - 340);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Checks text parses to exactly expected from a String and, padded with spaces inside a longer
+     * line, from a CharSequence, a char array and ASCII bytes
+     */
+    private static void assertParses(String text, double expected) {
+        String line = "G12  " + text + "   7";
+        int offset = 3;
+        int length = text.length() + 4;
+
+        assertBits(text, expected, ParserUtils.parseDouble(text));
+        assertBits(text, expected, ParserUtils.parseDouble(line, offset, length));
+        assertBits(text, expected, ParserUtils.parseDouble(line.toCharArray(), offset, length));
+        assertBits(text, expected, ParserUtils.parseDouble(line.getBytes(), offset, length));
+    }
+
+    private static void assertBits(String text, double expected, double actual) {
+        assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+}
\ No newline at end of file